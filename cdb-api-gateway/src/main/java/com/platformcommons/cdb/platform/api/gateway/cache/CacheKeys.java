@@ -0,0 +1,74 @@
+package com.platformcommons.cdb.platform.api.gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds response cache keys from method, raw path, the raw query with its {@code name=value}
+ * pairs sorted (so {@code ?b=2&a=1} and {@code ?a=1&b=2} share an entry), and the request values
+ * of the route's Vary headers. The pairs are taken as sent, still percent-encoded: decoding them
+ * first would let {@code ?a=1%26b%3D2} (one parameter) share the key of {@code ?a=1&b=2} and
+ * poison its entry. Two spellings of the same value are two keys, which is safe.
+ */
+public final class CacheKeys {
+
+    private CacheKeys() {
+    }
+
+    public static String of(ServerHttpRequest request, List<String> varyHeaders) {
+        StringBuilder key = new StringBuilder(128)
+                .append(request.getMethod().name()).append(' ')
+                .append(request.getPath().value());
+        String query = request.getURI().getRawQuery();
+        if (query != null && !query.isEmpty()) {
+            appendQuery(key, query);
+        }
+        for (String header : varyHeaders) {
+            key.append('\n').append(header).append(':');
+            List<String> values = request.getHeaders().get(header);
+            if (values != null) {
+                key.append(String.join(",", values));
+            }
+        }
+        return key.toString();
+    }
+
+    private static void appendQuery(StringBuilder key, String rawQuery) {
+        String[] pairs = rawQuery.split("&");
+        Arrays.sort(pairs);
+        char sep = '?';
+        for (String pair : pairs) {
+            if (!pair.isEmpty()) {
+                key.append(sep).append(pair);
+                sep = '&';
+            }
+        }
+    }
+
+    /**
+     * @return true if every name in the response's Vary header is part of the key; Accept-Encoding
+     * always counts, as the cache fetches identity bodies and negotiates the encoding itself
+     */
+    public static boolean coversVary(List<String> responseVary, List<String> keyedHeaders) {
+        for (String vary : responseVary) {
+            for (String name : vary.split(",")) {
+                String trimmed = name.trim();
+                if (trimmed.isEmpty() || trimmed.equalsIgnoreCase(HttpHeaders.ACCEPT_ENCODING)) continue;
+                if (trimmed.equals("*") || !containsIgnoreCase(keyedHeaders, trimmed)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsIgnoreCase(List<String> names, String name) {
+        for (String n : names) {
+            if (n.equalsIgnoreCase(name)) return true;
+        }
+        return false;
+    }
+}
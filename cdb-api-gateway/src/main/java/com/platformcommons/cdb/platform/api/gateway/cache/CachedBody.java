@@ -0,0 +1,189 @@
+package com.platformcommons.cdb.platform.api.gateway.cache;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A cached response body as stored bytes: gzip-compressed when that pays off, held either on the
+ * heap or in a direct (off-heap) buffer. Bodies are served as {@link DataBuffer}s wrapping the
+ * stored bytes, so a client accepting the stored encoding gets them without any copy; other
+ * clients get the body decompressed as it is written.
+ */
+public final class CachedBody {
+
+    public static final String GZIP = "gzip";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    public enum Storage { HEAP, DIRECT }
+
+    private final ByteBuffer data;
+    private final String encoding;
+    private final int length;
+
+    private CachedBody(ByteBuffer data, String encoding, int length) {
+        this.data = data;
+        this.encoding = encoding;
+        this.length = length;
+    }
+
+    /**
+     * @param body        the identity (uncompressed) body
+     * @param contentType the response content type, or null
+     * @param compress    whether to try gzip at all
+     * @param minCompress smallest body worth compressing
+     */
+    public static CachedBody of(byte[] body, MediaType contentType, boolean compress, int minCompress, Storage storage) {
+        byte[] stored = body;
+        String encoding = null;
+        if (compress && body.length >= minCompress && isCompressible(contentType)) {
+            byte[] gzipped = gzip(body);
+            if (gzipped.length < body.length) {
+                stored = gzipped;
+                encoding = GZIP;
+            }
+        }
+        ByteBuffer data;
+        if (storage == Storage.DIRECT) {
+            data = ByteBuffer.allocateDirect(stored.length).put(stored).flip();
+        } else {
+            data = ByteBuffer.wrap(stored);
+        }
+        return new CachedBody(data.asReadOnlyBuffer(), encoding, body.length);
+    }
+
+    /**
+     * @return the content coding of the stored bytes, or null if stored as is
+     */
+    public String encoding() {
+        return encoding;
+    }
+
+    /**
+     * @return the size of the body as sent upstream (uncompressed)
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return the size of the stored bytes, on or off heap
+     */
+    public int storedLength() {
+        return data.capacity();
+    }
+
+    public boolean isDirect() {
+        return data.isDirect();
+    }
+
+    /**
+     * @return the stored bytes (in {@link #encoding()}) as a single buffer sharing the storage
+     */
+    public DataBuffer encoded(DataBufferFactory factory) {
+        return factory.wrap(data.duplicate());
+    }
+
+    /**
+     * @return the identity body, decompressed chunk by chunk if stored compressed
+     */
+    public Flux<DataBuffer> decoded(DataBufferFactory factory) {
+        if (encoding == null) {
+            return Flux.just(encoded(factory));
+        }
+        return DataBufferUtils.readInputStream(
+                () -> new GZIPInputStream(new ByteBufferInputStream(data.duplicate()), BUFFER_SIZE), factory, BUFFER_SIZE);
+    }
+
+    /**
+     * @return true if an Accept-Encoding header (all values) allows {@code coding}
+     */
+    public static boolean accepts(List<String> acceptEncoding, String coding) {
+        boolean wildcard = false;
+        for (String header : acceptEncoding) {
+            for (String part : header.split(",")) {
+                String[] tokens = part.split(";");
+                String name = tokens[0].trim().toLowerCase(Locale.ROOT);
+                boolean refused = tokens.length > 1 && isZeroQuality(tokens[1]);
+                if (name.equals(coding)) {
+                    return !refused;
+                }
+                if (name.equals("*")) {
+                    wildcard = !refused;
+                }
+            }
+        }
+        return wildcard;
+    }
+
+    private static boolean isZeroQuality(String param) {
+        String p = param.trim().toLowerCase(Locale.ROOT);
+        if (!p.startsWith("q=")) {
+            return false;
+        }
+        try {
+            return Double.parseDouble(p.substring(2)) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Text-like payloads (JSON, XML, YAML, text) compress well; images and archives do not.
+     */
+    private static boolean isCompressible(MediaType type) {
+        if (type == null) {
+            return true;
+        }
+        String subtype = type.getSubtype().toLowerCase(Locale.ROOT);
+        return type.getType().equalsIgnoreCase("text") || subtype.contains("json") || subtype.contains("xml")
+                || subtype.contains("yaml") || subtype.contains("javascript");
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.platformcommons.cdb.platform.api.gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A stored upstream response. Fresh until {@code freshUntilNanos}, then servable stale (while
+ * one request refreshes it) until {@code staleUntilNanos}, after which the cache drops it.
+ *
+ * @param headers upstream headers only (no hop-by-hop, Set-Cookie, Content-Encoding or gateway-added
+ *                headers); read-only
+ * @param body    the body, possibly compressed and off heap
+ */
+public record CachedResponse(HttpStatusCode status, HttpHeaders headers, CachedBody body, long storedAtMillis,
+                             long freshUntilNanos, long staleUntilNanos) {
+
+    private static final int ENTRY_OVERHEAD = 128;
+
+    public boolean isFresh(long now) {
+        return now - freshUntilNanos < 0;
+    }
+
+    /**
+     * Approximate retained size in bytes (stored body, on or off heap, plus headers), used as the
+     * cache weight.
+     */
+    public int weight() {
+        long size = ENTRY_OVERHEAD + body.storedLength();
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            size += header.getKey().length() * 2L;
+            for (String value : header.getValue()) {
+                size += value.length() * 2L;
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+}
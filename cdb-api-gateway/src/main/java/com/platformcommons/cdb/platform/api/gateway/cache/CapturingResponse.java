@@ -0,0 +1,169 @@
+package com.platformcommons.cdb.platform.api.gateway.cache;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Response decorator that copies the body into a byte array as it streams through, for storing
+ * in the response cache. Buffers are passed on as they arrive, so the client is not held back;
+ * bodies larger than the limit are streamed without being kept.
+ * <p>
+ * A detached instance is used for background revalidation: status, headers and cookies are kept
+ * locally and the body is consumed and released instead of written, so the upstream call runs
+ * through the normal routing filters without touching the (already answered) client response.
+ * </p>
+ */
+public class CapturingResponse extends ServerHttpResponseDecorator {
+
+    private final int maxBytes;
+    private final boolean detached;
+    private final Consumer<CapturingResponse> onComplete;
+
+    private HttpHeaders detachedHeaders;
+    private HttpStatusCode detachedStatus;
+    private MultiValueMap<String, ResponseCookie> detachedCookies;
+
+    private byte[] body = new byte[1024];
+    private int size;
+    private boolean overflow;
+    private boolean streamed;
+
+    /**
+     * @param onComplete called once the body has been fully written (or consumed, when detached)
+     */
+    public CapturingResponse(ServerHttpResponse delegate, int maxBytes, boolean detached,
+                             Consumer<CapturingResponse> onComplete) {
+        super(delegate);
+        this.maxBytes = maxBytes;
+        this.detached = detached;
+        this.onComplete = onComplete;
+        if (detached) {
+            this.detachedHeaders = new HttpHeaders();
+            this.detachedCookies = new LinkedMultiValueMap<>();
+        }
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        Flux<DataBuffer> tee = Flux.<DataBuffer>from(body).doOnNext(this::capture);
+        if (detached) {
+            return tee.doOnNext(DataBufferUtils::release).then().doOnSuccess(v -> onComplete.accept(this));
+        }
+        return super.writeWith(tee).doOnSuccess(v -> onComplete.accept(this));
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        // Streaming responses (SSE and the like) are never cached
+        streamed = true;
+        if (detached) {
+            return Flux.from(body).flatMap(Flux::from).doOnNext(DataBufferUtils::release).then();
+        }
+        return super.writeAndFlushWith(body);
+    }
+
+    @Override
+    public Mono<Void> setComplete() {
+        if (detached) {
+            onComplete.accept(this);
+            return Mono.empty();
+        }
+        return super.setComplete().doOnSuccess(v -> onComplete.accept(this));
+    }
+
+    private void capture(DataBuffer buffer) {
+        if (overflow) {
+            return;
+        }
+        int n = buffer.readableByteCount();
+        if ((long) size + n > maxBytes) {
+            overflow = true;
+            body = null;
+            return;
+        }
+        if (size + n > body.length) {
+            body = Arrays.copyOf(body, Math.min(maxBytes, Math.max(size + n, body.length * 2)));
+        }
+        buffer.toByteBuffer(buffer.readPosition(), ByteBuffer.wrap(body), size, n);
+        size += n;
+    }
+
+    /**
+     * @return the captured body, or null if it was streamed or exceeded the size limit
+     */
+    public byte[] capturedBody() {
+        return overflow || streamed ? null : Arrays.copyOf(body, size);
+    }
+
+    // Detached mode keeps response metadata locally
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return detached ? detachedHeaders : super.getHeaders();
+    }
+
+    @Override
+    public boolean setStatusCode(HttpStatusCode status) {
+        if (detached) {
+            detachedStatus = status;
+            return true;
+        }
+        return super.setStatusCode(status);
+    }
+
+    @Override
+    @Deprecated
+    public boolean setRawStatusCode(Integer value) {
+        if (detached) {
+            detachedStatus = value == null ? null : HttpStatusCode.valueOf(value);
+            return true;
+        }
+        return super.setRawStatusCode(value);
+    }
+
+    @Override
+    public HttpStatusCode getStatusCode() {
+        return detached ? detachedStatus : super.getStatusCode();
+    }
+
+    @Override
+    public MultiValueMap<String, ResponseCookie> getCookies() {
+        return detached ? detachedCookies : super.getCookies();
+    }
+
+    @Override
+    public void addCookie(ResponseCookie cookie) {
+        if (detached) {
+            detachedCookies.add(cookie.getName(), cookie);
+        } else {
+            super.addCookie(cookie);
+        }
+    }
+
+    @Override
+    public void beforeCommit(Supplier<? extends Mono<Void>> action) {
+        if (!detached) {
+            super.beforeCommit(action);
+        }
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return !detached && super.isCommitted();
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Gateway response caching: cache keys, cached entries and body capture, used by CacheService
+ * and the ResponseCache route filter.
+ */
+package com.platformcommons.cdb.platform.api.gateway.cache;
@@ -0,0 +1,44 @@
+package com.platformcommons.cdb.platform.api.gateway.config;
+
+import com.platformcommons.cdb.platform.api.gateway.loadbalancer.LatencyAwareLoadBalancer;
+import com.platformcommons.cdb.platform.api.gateway.loadbalancer.RouteBalancer;
+import com.platformcommons.cdb.platform.api.gateway.resilience.CircuitBreakerRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Per-service load balancer configuration, instantiated by Spring Cloud LoadBalancer in each
+ * service's child context (see LoadBalancingConfig). Deliberately not a @Configuration: it must
+ * not be picked up by component scanning, or its beans would land in the main context. Instances
+ * behind an open circuit breaker (see ResilienceConfig) are steered around like ejected ones.
+ */
+public class LatencyAwareLoadBalancerClientConfiguration {
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> latencyAwareLoadBalancer(
+            Environment environment,
+            LoadBalancerClientFactory loadBalancerClientFactory,
+            ObjectProvider<CircuitBreakerRegistry> circuitBreakers,
+            @Value("${cdb.gateway.load-balancer.decay-time:10000}") long decayTimeMs,
+            @Value("${cdb.gateway.load-balancer.failure-threshold:5}") int failureThreshold,
+            @Value("${cdb.gateway.load-balancer.base-ejection-time:30}") long baseEjectionSeconds,
+            @Value("${cdb.gateway.load-balancer.max-ejection-percent:50}") int maxEjectionPercent,
+            @Value("${cdb.gateway.load-balancer.slow-start:30}") long slowStartSeconds) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        RouteBalancer.Settings settings = RouteBalancer.Settings.of(Duration.ofMillis(decayTimeMs), failureThreshold,
+                Duration.ofSeconds(baseEjectionSeconds), maxEjectionPercent, Duration.ofSeconds(slowStartSeconds));
+        CircuitBreakerRegistry breakers = circuitBreakers.getIfAvailable();
+        return new LatencyAwareLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                new RouteBalancer(serviceId, settings),
+                breakers == null ? key -> true : key -> breakers.isCallPermitted(serviceId, key, System.nanoTime()));
+    }
+}
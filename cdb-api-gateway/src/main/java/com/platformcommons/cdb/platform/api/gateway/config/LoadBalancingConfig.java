@@ -0,0 +1,24 @@
+package com.platformcommons.cdb.platform.api.gateway.config;
+
+import com.platformcommons.cdb.platform.api.gateway.loadbalancer.LoadBalancerStatsFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Makes every {@code lb://} route use the latency-aware power-of-two-choices balancer
+ * (LatencyAwareLoadBalancer) instead of Spring Cloud's round-robin default, and registers the
+ * filter that feeds call outcomes back to it. Disable with
+ * {@code cdb.gateway.load-balancer.enabled=false} to fall back to round-robin.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "cdb.gateway.load-balancer", name = "enabled", havingValue = "true", matchIfMissing = true)
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerClientConfiguration.class)
+public class LoadBalancingConfig {
+
+    @Bean
+    public LoadBalancerStatsFilter loadBalancerStatsFilter() {
+        return new LoadBalancerStatsFilter();
+    }
+}
@@ -0,0 +1,50 @@
+package com.platformcommons.cdb.platform.api.gateway.config;
+
+import com.platformcommons.cdb.platform.api.gateway.metrics.LatencyMetrics;
+import com.platformcommons.cdb.platform.api.gateway.metrics.RouteLatencyFilter;
+import com.platformcommons.cdb.platform.api.gateway.metrics.UpstreamLatencyFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Wires {@link LatencyMetrics} and the filters recording route and upstream latencies into it.
+ * The filters are skipped when {@code cdb.gateway.metrics.enabled} is false; LatencyMetrics
+ * itself stays, for MonitoringService.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(LatencyMetrics.class)
+    public LatencyMetrics latencyMetrics(
+            @Value("${cdb.gateway.metrics.percentiles:0.5,0.9,0.99,0.999}") double[] percentiles,
+            @Value("${cdb.gateway.metrics.window:60}") long windowSeconds,
+            @Value("${cdb.gateway.metrics.window-slices:3}") int windowSlices,
+            @Value("${cdb.gateway.metrics.percentile-histogram:false}") boolean percentileHistogram,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new LatencyMetrics(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), percentiles,
+                Duration.ofSeconds(windowSeconds), windowSlices, percentileHistogram);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(RouteLatencyFilter.class)
+    @ConditionalOnProperty(prefix = "cdb.gateway.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public RouteLatencyFilter routeLatencyFilter(LatencyMetrics latencyMetrics) {
+        return new RouteLatencyFilter(latencyMetrics);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(UpstreamLatencyFilter.class)
+    @ConditionalOnProperty(prefix = "cdb.gateway.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public UpstreamLatencyFilter upstreamLatencyFilter(LatencyMetrics latencyMetrics) {
+        return new UpstreamLatencyFilter(latencyMetrics);
+    }
+}
@@ -0,0 +1,88 @@
+package com.platformcommons.cdb.platform.api.gateway.config;
+
+import com.platformcommons.cdb.platform.api.gateway.filter.RateLimitingFilter;
+import com.platformcommons.cdb.platform.api.gateway.model.RateLimitRule;
+import com.platformcommons.cdb.platform.api.gateway.ratelimit.InMemoryTokenLeaseStore;
+import com.platformcommons.cdb.platform.api.gateway.ratelimit.LeasedRateLimiter;
+import com.platformcommons.cdb.platform.api.gateway.ratelimit.ProviderRateLimitResolver;
+import com.platformcommons.cdb.platform.api.gateway.ratelimit.RateLimitKeyResolver;
+import com.platformcommons.cdb.platform.api.gateway.ratelimit.TokenBucketRateLimiter;
+import com.platformcommons.cdb.platform.api.gateway.ratelimit.TokenLeaseStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Wires the gateway's {@link RateLimitingFilter}. The whole setup is skipped when
+ * {@code cdb.gateway.security.rate-limiting.enabled} is false. With
+ * {@code cdb.gateway.security.rate-limiting.mode=distributed} limits are enforced cluster-wide by
+ * a {@link LeasedRateLimiter} over the {@link TokenLeaseStore} bean (an in-memory store unless the
+ * application defines a shared one); otherwise per node.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "cdb.gateway.security.rate-limiting", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitingConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnMissingBean(TokenBucketRateLimiter.class)
+    public TokenBucketRateLimiter tokenBucketRateLimiter(
+            @Value("${cdb.gateway.security.rate-limiting.idle-timeout:300}") long idleTimeoutSeconds,
+            @Value("${cdb.gateway.security.rate-limiting.max-keys:100000}") int maxKeys) {
+        return new TokenBucketRateLimiter(Duration.ofSeconds(idleTimeoutSeconds), maxKeys);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnMissingBean(TokenLeaseStore.class)
+    @ConditionalOnProperty(prefix = "cdb.gateway.security.rate-limiting", name = "mode", havingValue = "distributed")
+    public InMemoryTokenLeaseStore inMemoryTokenLeaseStore(
+            @Value("${cdb.gateway.security.rate-limiting.idle-timeout:300}") long idleTimeoutSeconds,
+            @Value("${cdb.gateway.security.rate-limiting.max-keys:100000}") int maxKeys) {
+        return new InMemoryTokenLeaseStore(new TokenBucketRateLimiter(Duration.ofSeconds(idleTimeoutSeconds), maxKeys));
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnMissingBean(LeasedRateLimiter.class)
+    @ConditionalOnProperty(prefix = "cdb.gateway.security.rate-limiting", name = "mode", havingValue = "distributed")
+    public LeasedRateLimiter leasedRateLimiter(TokenLeaseStore tokenLeaseStore,
+                                               TokenBucketRateLimiter tokenBucketRateLimiter,
+                                               @Value("${cdb.gateway.security.rate-limiting.distributed.lease-size:0}") long leaseSize,
+                                               @Value("${cdb.gateway.security.rate-limiting.distributed.renew-threads:2}") int renewThreads,
+                                               @Value("${cdb.gateway.security.rate-limiting.idle-timeout:300}") long idleTimeoutSeconds) {
+        return new LeasedRateLimiter(tokenLeaseStore, tokenBucketRateLimiter, leaseSize,
+                Duration.ofSeconds(idleTimeoutSeconds), renewThreads);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(RateLimitKeyResolver.class)
+    public RateLimitKeyResolver rateLimitKeyResolver() {
+        return new RateLimitKeyResolver();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnMissingBean(ProviderRateLimitResolver.class)
+    @ConditionalOnProperty(prefix = "cdb.gateway.security.rate-limiting.provider-limits", name = "uri")
+    public ProviderRateLimitResolver providerRateLimitResolver(
+            @Value("${cdb.gateway.security.rate-limiting.provider-limits.uri}") String limitsUri,
+            @Value("${cdb.gateway.security.rate-limiting.provider-limits.refresh-interval:60}") long refreshIntervalSeconds,
+            @Value("${cdb.gateway.security.rate-limiting.provider-limits.timeout-ms:2000}") long timeoutMs) {
+        return new ProviderRateLimitResolver(limitsUri, Duration.ofSeconds(refreshIntervalSeconds), timeoutMs);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(RateLimitingFilter.class)
+    public RateLimitingFilter rateLimitingFilter(TokenBucketRateLimiter tokenBucketRateLimiter,
+                                                 ObjectProvider<LeasedRateLimiter> leasedRateLimiter,
+                                                 RateLimitKeyResolver rateLimitKeyResolver,
+                                                 ObjectProvider<ProviderRateLimitResolver> providerRateLimitResolver,
+                                                 @Value("${cdb.gateway.security.rate-limiting.requests-per-second:100}") long requestsPerSecond) {
+        RateLimitRule defaultRule = RateLimitRule.builder().key("default").limit(requestsPerSecond).windowSeconds(1).build();
+        LeasedRateLimiter leased = leasedRateLimiter.getIfAvailable();
+        return new RateLimitingFilter(leased != null ? leased : tokenBucketRateLimiter, rateLimitKeyResolver,
+                providerRateLimitResolver.getIfAvailable(), defaultRule);
+    }
+}
@@ -0,0 +1,102 @@
+package com.platformcommons.cdb.platform.api.gateway.config;
+
+import com.platformcommons.cdb.platform.api.gateway.resilience.CircuitBreaker;
+import com.platformcommons.cdb.platform.api.gateway.resilience.CircuitBreakerFilter;
+import com.platformcommons.cdb.platform.api.gateway.resilience.CircuitBreakerRegistry;
+import com.platformcommons.cdb.platform.api.gateway.resilience.CircuitBreakersEndpoint;
+import com.platformcommons.cdb.platform.api.gateway.resilience.HedgingFilter;
+import com.platformcommons.cdb.platform.api.gateway.resilience.ResilienceFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Wires per-route timeouts and retries ({@link ResilienceFilter}), per-instance circuit breakers
+ * ({@link CircuitBreakerFilter}), hedged reads on opted-in routes ({@link HedgingFilter}) and the
+ * {@code circuitbreakers} actuator endpoint. The breakers are also consulted by the latency-aware
+ * load balancer, which steers around open ones. The whole setup is skipped when
+ * {@code cdb.gateway.resilience.enabled} is false, hedging alone with
+ * {@code cdb.gateway.resilience.hedging.enabled}.
+ *
+ * Configuration:
+ * - cdb.gateway.resilience.timeout-ms (default 30000; 0 for none)
+ * - cdb.gateway.resilience.retry-count (default 1)
+ * - cdb.gateway.resilience.circuit-breaker.window-size (calls, default 50)
+ * - cdb.gateway.resilience.circuit-breaker.minimum-calls (default 20)
+ * - cdb.gateway.resilience.circuit-breaker.failure-rate-threshold (percent, default 50)
+ * - cdb.gateway.resilience.circuit-breaker.slow-call-rate-threshold (percent, default 80)
+ * - cdb.gateway.resilience.circuit-breaker.slow-call-duration-ms (default 5000)
+ * - cdb.gateway.resilience.circuit-breaker.open-duration (seconds, default 30)
+ * - cdb.gateway.resilience.circuit-breaker.half-open-calls (default 5)
+ * - cdb.gateway.resilience.retry-budget.ratio (default 0.2)
+ * - cdb.gateway.resilience.retry-budget.min-per-second (default 10)
+ * - cdb.gateway.resilience.retry-budget.window (seconds, default 10)
+ * - cdb.gateway.resilience.hedging.* (see HedgingFilter)
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "cdb.gateway.resilience", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ResilienceConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(CircuitBreakerRegistry.class)
+    public CircuitBreakerRegistry circuitBreakerRegistry(
+            @Value("${cdb.gateway.resilience.circuit-breaker.window-size:50}") int windowSize,
+            @Value("${cdb.gateway.resilience.circuit-breaker.minimum-calls:20}") int minimumCalls,
+            @Value("${cdb.gateway.resilience.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+            @Value("${cdb.gateway.resilience.circuit-breaker.slow-call-rate-threshold:80}") int slowCallRateThreshold,
+            @Value("${cdb.gateway.resilience.circuit-breaker.slow-call-duration-ms:5000}") long slowCallDurationMs,
+            @Value("${cdb.gateway.resilience.circuit-breaker.open-duration:30}") long openDurationSeconds,
+            @Value("${cdb.gateway.resilience.circuit-breaker.half-open-calls:5}") int halfOpenCalls,
+            @Value("${cdb.gateway.resilience.retry-budget.ratio:0.2}") double retryRatio,
+            @Value("${cdb.gateway.resilience.retry-budget.min-per-second:10}") int minRetriesPerSecond,
+            @Value("${cdb.gateway.resilience.retry-budget.window:10}") int retryWindowSeconds,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        CircuitBreaker.Settings settings = CircuitBreaker.Settings.of(windowSize, minimumCalls, failureRateThreshold,
+                slowCallRateThreshold, Duration.ofMillis(slowCallDurationMs), Duration.ofSeconds(openDurationSeconds),
+                halfOpenCalls);
+        return new CircuitBreakerRegistry(settings, retryRatio, minRetriesPerSecond, retryWindowSeconds,
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(ResilienceFilter.class)
+    public ResilienceFilter resilienceFilter(CircuitBreakerRegistry circuitBreakerRegistry,
+                                             @Value("${cdb.gateway.resilience.timeout-ms:30000}") int timeoutMs,
+                                             @Value("${cdb.gateway.resilience.retry-count:1}") int retryCount) {
+        return new ResilienceFilter(circuitBreakerRegistry, timeoutMs, retryCount);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(CircuitBreakerFilter.class)
+    public CircuitBreakerFilter circuitBreakerFilter(CircuitBreakerRegistry circuitBreakerRegistry) {
+        return new CircuitBreakerFilter(circuitBreakerRegistry);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(HedgingFilter.class)
+    @ConditionalOnProperty(prefix = "cdb.gateway.resilience.hedging", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public HedgingFilter hedgingFilter(@Value("${cdb.gateway.resilience.hedging.percentile:95}") double percentile,
+                                       @Value("${cdb.gateway.resilience.hedging.initial-delay-ms:100}") long initialDelayMs,
+                                       @Value("${cdb.gateway.resilience.hedging.min-delay-ms:5}") long minDelayMs,
+                                       @Value("${cdb.gateway.resilience.hedging.max-ratio:0.1}") double maxRatio,
+                                       @Value("${cdb.gateway.resilience.hedging.min-per-second:1}") int minPerSecond,
+                                       @Value("${cdb.gateway.resilience.hedging.window:10}") int windowSeconds,
+                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        return new HedgingFilter(percentile, Duration.ofMillis(initialDelayMs), Duration.ofMillis(minDelayMs),
+                maxRatio, minPerSecond, windowSeconds, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    @ConditionalOnAvailableEndpoint(endpoint = CircuitBreakersEndpoint.class)
+    public CircuitBreakersEndpoint circuitBreakersEndpoint(CircuitBreakerRegistry circuitBreakerRegistry) {
+        return new CircuitBreakersEndpoint(circuitBreakerRegistry);
+    }
+}
@@ -4,6 +4,8 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
 
 import java.util.Map;
 
@@ -19,5 +21,6 @@ public class GatewayRequest {
     private String path;
     private Map<String, String> headers;
     private Map<String, String> queryParams;
-    private String body;
+    /** Body as it streams from the client; subscribe once, and release the buffers */
+    private Flux<DataBuffer> body;
 }
@@ -4,6 +4,8 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
 
 import java.util.Map;
 
@@ -19,5 +21,6 @@ import java.util.Map;
 public class GatewayResponse {
     private int status;
     private Map<String, String> headers;
-    private String body;
+    /** Body as it streams from upstream; subscribe once, and release the buffers */
+    private Flux<DataBuffer> body;
 }
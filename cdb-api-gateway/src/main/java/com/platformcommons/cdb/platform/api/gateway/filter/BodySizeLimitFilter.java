@@ -0,0 +1,254 @@
+package com.platformcommons.cdb.platform.api.gateway.filter;
+
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Enforces maximum request and response body sizes on the streaming proxy path.
+ * <p>
+ * The gateway never aggregates bodies: buffers flow from the client connection to the upstream
+ * one (and back) as they arrive, so memory per request stays at a few buffers whatever the
+ * payload size. Limits are enforced the same way:
+ * - A declared Content-Length over the limit is refused up front (413 for requests, 502 for
+ *   upstream responses) without reading the body.
+ * - Bodies without a length (chunked) are counted as they stream; crossing the limit fails the
+ *   request with 413, or aborts a response that is already on its way to the client.
+ * A route can override the limits with the metadata keys {@value #REQUEST_LIMIT_METADATA} and
+ * {@value #RESPONSE_LIMIT_METADATA}; a negative limit means unlimited. The overrides are parsed
+ * once per route when the routes are (re)loaded; an invalid value is logged and the default
+ * limit applies instead.
+ * </p>
+ * <p>
+ * Filters that need a whole body must opt in explicitly as route filters (for example Spring
+ * Cloud Gateway's CacheRequestBody, or ResponseCache, which copies responses up to its own entry
+ * limit) and should bound what they buffer with {@link #limit}. They run after this filter, so
+ * they only ever see bodies within the route's limits.
+ * </p>
+ *
+ * Configuration:
+ * - cdb.gateway.body.max-request-bytes (default 10485760; -1 for unlimited)
+ * - cdb.gateway.body.max-response-bytes (default -1, unlimited)
+ */
+@Component
+public class BodySizeLimitFilter implements GlobalFilter, Ordered, ApplicationListener<RefreshRoutesResultEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(BodySizeLimitFilter.class);
+
+    public static final int ORDER = 25;
+
+    public static final String REQUEST_LIMIT_METADATA = "max-request-body-bytes";
+    public static final String RESPONSE_LIMIT_METADATA = "max-response-body-bytes";
+
+    private static final byte[] REQUEST_TOO_LARGE_BODY = "Request body too large".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RESPONSE_TOO_LARGE_BODY = "Upstream response too large".getBytes(StandardCharsets.UTF_8);
+
+    private final long maxRequestBytes;
+    private final long maxResponseBytes;
+    private final Limits defaults;
+    private final ConcurrentHashMap<String, Limits> limits = new ConcurrentHashMap<>();
+
+    private record Limits(Route route, long maxRequest, long maxResponse) {
+    }
+
+    public BodySizeLimitFilter(@Value("${cdb.gateway.body.max-request-bytes:10485760}") long maxRequestBytes,
+                               @Value("${cdb.gateway.body.max-response-bytes:-1}") long maxResponseBytes) {
+        this.maxRequestBytes = maxRequestBytes;
+        this.maxResponseBytes = maxResponseBytes;
+        this.defaults = new Limits(null, maxRequestBytes, maxResponseBytes);
+    }
+
+    @Override
+    public void onApplicationEvent(RefreshRoutesResultEvent event) {
+        if (event.isSuccess() && event.getSource() instanceof RouteLocator routes) {
+            routes.getRoutes().subscribe(this::limitsFor);
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        Limits routeLimits = limitsFor(route);
+        long maxRequest = routeLimits.maxRequest();
+        long maxResponse = routeLimits.maxResponse();
+        if (maxRequest < 0 && maxResponse < 0) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpRequest request = exchange.getRequest();
+        long declared = request.getHeaders().getContentLength();
+        if (maxRequest >= 0 && declared > maxRequest) {
+            return reject(exchange.getResponse(), HttpStatus.PAYLOAD_TOO_LARGE, REQUEST_TOO_LARGE_BODY);
+        }
+        ServerWebExchange.Builder limited = exchange.mutate();
+        // With a Content-Length the server reads exactly that much, so only bodies without one
+        // (chunked, or HTTP/2 streams) need counting
+        if (maxRequest >= 0 && declared < 0) {
+            limited.request(new LimitedRequest(request, maxRequest));
+        }
+        if (maxResponse >= 0) {
+            limited.response(new LimitedResponse(exchange.getResponse(), maxResponse));
+        }
+        return chain.filter(limited.build());
+    }
+
+    /**
+     * Passes {@code body} through unchanged until more than {@code maxBytes} have gone by, then
+     * releases the offending buffer, cancels the source and signals the supplied error.
+     */
+    public static Flux<DataBuffer> limit(Publisher<? extends DataBuffer> body, long maxBytes,
+                                         Supplier<? extends RuntimeException> tooLarge) {
+        return Flux.defer(() -> limit(body, maxBytes, new long[1], tooLarge));
+    }
+
+    /**
+     * @param seen running byte count, shared by the parts of one body
+     */
+    private static Flux<DataBuffer> limit(Publisher<? extends DataBuffer> body, long maxBytes, long[] seen,
+                                          Supplier<? extends RuntimeException> tooLarge) {
+        return Flux.<DataBuffer>from(body)
+                .<DataBuffer>handle((buffer, sink) -> {
+                    seen[0] += buffer.readableByteCount();
+                    if (seen[0] > maxBytes) {
+                        DataBufferUtils.release(buffer);
+                        sink.error(tooLarge.get());
+                    } else {
+                        sink.next(buffer);
+                    }
+                })
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    private Limits limitsFor(Route route) {
+        if (route == null) {
+            return defaults;
+        }
+        Limits resolved = limits.get(route.getId());
+        if (resolved == null || resolved.route() != route) {
+            // Routes are rebuilt on refresh, so a different instance means possibly new metadata
+            resolved = new Limits(route, routeLimit(route, REQUEST_LIMIT_METADATA, maxRequestBytes),
+                    routeLimit(route, RESPONSE_LIMIT_METADATA, maxResponseBytes));
+            limits.put(route.getId(), resolved);
+        }
+        return resolved;
+    }
+
+    private static long routeLimit(Route route, String key, long defaultLimit) {
+        Object value = route.getMetadata().get(key);
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value == null) {
+            return defaultLimit;
+        }
+        try {
+            return Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException e) {
+            log.warn("Route {}: invalid {} '{}', using {}", route.getId(), key, value, defaultLimit);
+            return defaultLimit;
+        }
+    }
+
+    private static Mono<Void> reject(ServerHttpResponse response, HttpStatus status, byte[] message) {
+        response.setStatusCode(status);
+        HttpHeaders headers = response.getHeaders();
+        headers.remove(HttpHeaders.CONTENT_ENCODING);
+        headers.remove(HttpHeaders.TRANSFER_ENCODING);
+        headers.setContentLength(message.length);
+        headers.set(HttpHeaders.CONTENT_TYPE, "text/plain");
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(message)));
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private static final class LimitedRequest extends ServerHttpRequestDecorator {
+
+        private final long maxBytes;
+
+        LimitedRequest(ServerHttpRequest delegate, long maxBytes) {
+            super(delegate);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return limit(super.getBody(), maxBytes,
+                    () -> new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Request body exceeds " + maxBytes + " bytes"));
+        }
+    }
+
+    private static final class LimitedResponse extends ServerHttpResponseDecorator {
+
+        private final long maxBytes;
+
+        LimitedResponse(ServerHttpResponse delegate, long maxBytes) {
+            super(delegate);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (tooLargeUpfront()) {
+                return discard(body).then(reject(getDelegate(), HttpStatus.BAD_GATEWAY, RESPONSE_TOO_LARGE_BODY));
+            }
+            return super.writeWith(limit(body, maxBytes, this::tooLarge));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            if (tooLargeUpfront()) {
+                return discard(body).then(reject(getDelegate(), HttpStatus.BAD_GATEWAY, RESPONSE_TOO_LARGE_BODY));
+            }
+            return super.writeAndFlushWith(Flux.defer(() -> {
+                long[] seen = new long[1];
+                return Flux.from(body).map(part -> limit(part, maxBytes, seen, this::tooLarge));
+            }));
+        }
+
+        private boolean tooLargeUpfront() {
+            return getHeaders().getContentLength() > maxBytes && !isCommitted();
+        }
+
+        private RuntimeException tooLarge() {
+            // Headers are out already: all that can be done is cut the response short
+            log.warn("Aborting upstream response over {} bytes", maxBytes);
+            return new IllegalStateException("Upstream response exceeds " + maxBytes + " bytes");
+        }
+
+        /**
+         * Cancels the upstream body without reading it, which closes the upstream connection.
+         */
+        private static Mono<Void> discard(Publisher<?> body) {
+            return Flux.from(body).take(0).then();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.platformcommons.cdb.platform.api.gateway.filter;
+
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exchange for routing a request alongside its original exchange (background revalidation,
+ * hedged attempts): its own request, response and attribute map, the latter seeded with a copy
+ * of the original's. Routing state the gateway keeps in attributes (request URL, chosen instance,
+ * upstream connection) then stays with the routing it belongs to.
+ */
+public class DetachedExchange extends ServerWebExchangeDecorator {
+
+    private final ServerHttpRequest request;
+    private final ServerHttpResponse response;
+    private final Map<String, Object> attributes;
+
+    public DetachedExchange(ServerWebExchange exchange, ServerHttpRequest request, ServerHttpResponse response) {
+        super(exchange);
+        this.request = request;
+        this.response = response;
+        this.attributes = new ConcurrentHashMap<>(exchange.getAttributes());
+    }
+
+    @Override
+    public ServerHttpRequest getRequest() {
+        return request;
+    }
+
+    @Override
+    public ServerHttpResponse getResponse() {
+        return response;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+}
@@ -1,33 +1,95 @@
 package com.platformcommons.cdb.platform.api.gateway.filter;
 
-import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletException;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.core.annotation.Order;
-import org.springframework.stereotype.Component;
-import org.springframework.web.filter.OncePerRequestFilter;
+import com.platformcommons.cdb.platform.api.gateway.model.RateLimitRule;
+import com.platformcommons.cdb.platform.api.gateway.ratelimit.ProviderRateLimitResolver;
+import com.platformcommons.cdb.platform.api.gateway.ratelimit.RateLimitDecision;
+import com.platformcommons.cdb.platform.api.gateway.ratelimit.RateLimitKeyResolver;
+import com.platformcommons.cdb.platform.api.gateway.ratelimit.RateLimiter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
 
-import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Simple rate limiting filter placeholder.
+ * Rate limiting filter backed by per-key token buckets ({@link RateLimiter}: per node, or
+ * cluster-wide via leased tokens).
  * <p>
- * In production, integrate a token bucket or leaky bucket algorithm backed by a
- * distributed store (e.g., Redis). This stub does not enforce limits and only
- * demonstrates where such logic would be executed.
+ * Requests are counted against the key chosen by {@link RateLimitKeyResolver} (provider, user,
+ * API key or client IP). A provider with its own {@code rateLimit} in provider-registry gets that
+ * many requests per second; everything else gets the default rule. The check is a map lookup and
+ * a CAS, so it runs inline on the event loop. Every response carries RateLimit-Limit,
+ * RateLimit-Remaining and RateLimit-Reset (seconds until the bucket is full); refused requests
+ * get 429 with Retry-After and are not routed.
  * </p>
+ *
+ * Configuration (see RateLimitingConfig):
+ * - cdb.gateway.security.rate-limiting.enabled (default true)
+ * - cdb.gateway.security.rate-limiting.requests-per-second (default rule, default 100)
+ * - cdb.gateway.security.rate-limiting.mode (local (default) or distributed)
  */
-@Component
-@Order(20)
-public class RateLimitingFilter extends OncePerRequestFilter {
+public class RateLimitingFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = 20;
+
+    public static final String LIMIT_HEADER = "RateLimit-Limit";
+    public static final String REMAINING_HEADER = "RateLimit-Remaining";
+    public static final String RESET_HEADER = "RateLimit-Reset";
+
+    private static final byte[] REJECTED_BODY = "Rate limit exceeded".getBytes(StandardCharsets.UTF_8);
+
+    private final RateLimiter limiter;
+    private final RateLimitKeyResolver keyResolver;
+    private final ProviderRateLimitResolver providerLimits; // may be null when provider limits are off
+    private final RateLimitRule defaultRule;
+
+    public RateLimitingFilter(RateLimiter limiter, RateLimitKeyResolver keyResolver,
+                              ProviderRateLimitResolver providerLimits, RateLimitRule defaultRule) {
+        this.limiter = limiter;
+        this.keyResolver = keyResolver;
+        this.providerLimits = providerLimits;
+        this.defaultRule = defaultRule;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return exchange.getPrincipal()
+                .map(principal -> keyResolver.resolve(exchange, principal))
+                .switchIfEmpty(Mono.fromSupplier(() -> keyResolver.resolve(exchange, null)))
+                .flatMap(key -> limit(exchange, chain, key));
+    }
+
+    private Mono<Void> limit(ServerWebExchange exchange, GatewayFilterChain chain, RateLimitKeyResolver.RateLimitKey key) {
+        RateLimitRule rule = providerLimits == null ? null : providerLimits.ruleFor(key.providerCode());
+        RateLimitDecision decision = limiter.tryAcquire(key.key(), rule != null ? rule : defaultRule);
+
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.set(LIMIT_HEADER, Long.toString(decision.limit()));
+        headers.set(REMAINING_HEADER, Long.toString(decision.remaining()));
+        headers.set(RESET_HEADER, Long.toString(ceilSeconds(decision.resetNanos())));
+        if (decision.allowed()) {
+            return chain.filter(exchange);
+        }
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, ceilSeconds(decision.retryAfterNanos()))));
+        DataBuffer body = response.bufferFactory().wrap(REJECTED_BODY);
+        return response.writeWith(Mono.just(body));
+    }
+
+    private static long ceilSeconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
 
     @Override
-    protected void doFilterInternal(HttpServletRequest request,
-                                    HttpServletResponse response,
-                                    FilterChain filterChain) throws ServletException, IOException {
-        // Placeholder: Evaluate request key (IP, API key, user id) and check limits.
-        // Do not block traffic in this stub.
-        filterChain.doFilter(request, response);
+    public int getOrder() {
+        return ORDER;
     }
 }
@@ -1,35 +1,54 @@
 package com.platformcommons.cdb.platform.api.gateway.filter;
 
-import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletException;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.core.annotation.Order;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
-import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
 
-import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Filter that performs request transformations (headers, path, body) before routing.
  * <p>
- * The implementation here is intentionally minimal and non-destructive, serving as a
- * placeholder for real transformation rules (e.g., header injections, path rewrites).
+ * Currently ensures every routed request carries an {@value #CORRELATION_ID} header: an incoming
+ * value is kept, otherwise one is generated and added both to the proxied request and to the
+ * response. Ids come from ThreadLocalRandom rather than {@link UUID#randomUUID()}, whose shared
+ * SecureRandom is contended across event-loop threads; correlation ids need uniqueness, not
+ * unpredictability.
  * </p>
  */
 @Component
-@Order(30)
-public class RequestTransformationFilter extends OncePerRequestFilter {
+public class RequestTransformationFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = 30;
+    public static final String CORRELATION_ID = "X-Correlation-Id";
 
     @Override
-    protected void doFilterInternal(HttpServletRequest request,
-                                    HttpServletResponse response,
-                                    FilterChain filterChain) throws ServletException, IOException {
-        // Placeholder: Add or adjust headers for downstream services.
-        // Example: propagate a correlation id if absent.
-        if (request.getHeader("X-Correlation-Id") == null) {
-            response.addHeader("X-Correlation-Id", java.util.UUID.randomUUID().toString());
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (request.getHeaders().getFirst(CORRELATION_ID) != null) {
+            return chain.filter(exchange);
         }
-        filterChain.doFilter(request, response);
+        String correlationId = newCorrelationId();
+        exchange.getResponse().getHeaders().set(CORRELATION_ID, correlationId);
+        ServerHttpRequest withId = request.mutate().header(CORRELATION_ID, correlationId).build();
+        return chain.filter(exchange.mutate().request(withId).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /** Random (version 4 layout) UUID string without touching SecureRandom. */
+    static String newCorrelationId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb).toString();
     }
 }
@@ -0,0 +1,296 @@
+package com.platformcommons.cdb.platform.api.gateway.filter;
+
+import com.platformcommons.cdb.platform.api.gateway.cache.CacheKeys;
+import com.platformcommons.cdb.platform.api.gateway.cache.CachedBody;
+import com.platformcommons.cdb.platform.api.gateway.cache.CachedResponse;
+import com.platformcommons.cdb.platform.api.gateway.cache.CapturingResponse;
+import com.platformcommons.cdb.platform.api.gateway.service.CacheService;
+import lombok.Getter;
+import lombok.Setter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Route filter caching successful GET responses in {@link CacheService}, for read-mostly routes
+ * such as API discovery:
+ * <pre>
+ * filters:
+ *   - name: ResponseCache
+ *     args:
+ *       ttl: 60s
+ *       stale-while-revalidate: 30s
+ *       vary-headers: Accept,Accept-Language
+ *       cache-authenticated: true   # only for responses that do not depend on the caller
+ * </pre>
+ * - Fresh hits are answered from memory ({@value #CACHE_HEADER}: HIT) without routing.
+ * - Stale hits (within stale-while-revalidate after the ttl) are answered from memory (STALE)
+ *   while one background call through the rest of the chain refreshes the entry.
+ * - Misses are single-flight: one request goes upstream (MISS) and concurrent ones for the same
+ *   key wait for its response.
+ * - Only 200 responses without Set-Cookie, {@code Cache-Control: no-store/private} or a Vary on
+ *   headers outside the key are stored. Requests with {@code Cache-Control: no-cache/no-store},
+ *   Range, or (unless cache-authenticated) Authorization bypass the cache.
+ * - Bodies are stored compressed where that helps (see CacheService) and sent as stored to
+ *   clients accepting gzip; others get them decompressed on the way out. Upstream is always
+ *   asked for an identity body, so one entry serves all encodings.
+ * The filter runs after rate limiting and the request/response transformations, so those still
+ * apply to cached answers.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCacheGatewayFilterFactory.class);
+
+    public static final int ORDER = 50;
+    public static final String CACHE_HEADER = "X-Cache";
+
+    /** Compresses bodies off the event loop; compression is CPU-bound, so no elastic threads. */
+    private static final Scheduler ENCODER = Schedulers.parallel();
+
+    /** Never stored: connection-level, per-client, or recomputed when serving. */
+    private static final Set<String> EXCLUDED_HEADERS = caseInsensitive(List.of(
+            HttpHeaders.CONNECTION, "Keep-Alive", HttpHeaders.TRANSFER_ENCODING, HttpHeaders.TE, HttpHeaders.TRAILER,
+            HttpHeaders.UPGRADE, HttpHeaders.PROXY_AUTHENTICATE, HttpHeaders.PROXY_AUTHORIZATION,
+            HttpHeaders.CONTENT_LENGTH, HttpHeaders.DATE, HttpHeaders.AGE, HttpHeaders.SET_COOKIE, CACHE_HEADER));
+
+    @Getter
+    @Setter
+    public static class Config {
+        private Duration ttl = Duration.ofSeconds(60);
+        private Duration staleWhileRevalidate = Duration.ofSeconds(30);
+        /** Accept-Encoding is not needed here: one entry serves every encoding (see CachedBody) */
+        private List<String> varyHeaders = List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_LANGUAGE);
+        private boolean cacheAuthenticated;
+    }
+
+    private final CacheService cache;
+
+    public ResponseCacheGatewayFilterFactory(CacheService cache) {
+        super(Config.class);
+        this.cache = cache;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("ttl", "staleWhileRevalidate");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter((exchange, chain) -> filter(exchange, chain, config), ORDER);
+    }
+
+    private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, Config config) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (request.getMethod() != HttpMethod.GET || bypass(request.getHeaders(), config)) {
+            return chain.filter(exchange);
+        }
+        String key = CacheKeys.of(request, config.getVaryHeaders());
+        CachedResponse cached = cache.get(key);
+        if (cached != null && cached.isFresh(System.nanoTime())) {
+            return serve(exchange, cached, "HIT");
+        }
+        CacheService.Flight flight = cache.join(key);
+        if (cached != null) {
+            if (flight.leader()) {
+                revalidate(exchange, chain, key, flight, config);
+            }
+            return serve(exchange, cached, "STALE");
+        }
+        if (!flight.leader()) {
+            return flight.result().map(Optional::of).defaultIfEmpty(Optional.empty())
+                    .flatMap(shared -> shared.isPresent() ? serve(exchange, shared.get(), "HIT") : chain.filter(exchange));
+        }
+        return fetch(exchange, chain, key, flight, config);
+    }
+
+    /**
+     * Leader on a miss: route normally (asking upstream for an uncompressed body, since the cache
+     * does its own encoding), copying the body as it streams to the client.
+     */
+    private Mono<Void> fetch(ServerWebExchange exchange, GatewayFilterChain chain, String key,
+                             CacheService.Flight flight, Config config) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().set(CACHE_HEADER, "MISS");
+        Set<String> gatewayHeaders = caseInsensitive(response.getHeaders().keySet());
+        AtomicBoolean done = new AtomicBoolean();
+        CapturingResponse capturing = new CapturingResponse(response, cache.maxEntryBytes(), false,
+                r -> store(key, flight, done, r, gatewayHeaders, config));
+        return chain.filter(upstreamExchange(exchange, capturing))
+                .doFinally(signal -> release(key, flight, done));
+    }
+
+    /**
+     * Leader on a stale hit: refresh in the background with a detached response (and attributes,
+     * as the client's exchange completes meanwhile), so the client is answered from the stale
+     * entry right away.
+     */
+    private void revalidate(ServerWebExchange exchange, GatewayFilterChain chain, String key,
+                            CacheService.Flight flight, Config config) {
+        AtomicBoolean done = new AtomicBoolean();
+        CapturingResponse detached = new CapturingResponse(exchange.getResponse(), cache.maxEntryBytes(), true,
+                r -> store(key, flight, done, r, Set.of(), config));
+        chain.filter(new DetachedExchange(exchange, upstreamRequest(exchange), detached))
+                .doFinally(signal -> release(key, flight, done))
+                .subscribe(null, e -> log.debug("Background revalidation of {} failed: {}", key, e.toString()));
+    }
+
+    private static ServerWebExchange upstreamExchange(ServerWebExchange exchange, CapturingResponse response) {
+        return exchange.mutate().request(upstreamRequest(exchange)).response(response).build();
+    }
+
+    private static ServerHttpRequest upstreamRequest(ServerWebExchange exchange) {
+        return exchange.getRequest().mutate()
+                .headers(headers -> headers.remove(HttpHeaders.ACCEPT_ENCODING))
+                .build();
+    }
+
+    /**
+     * Ends the flight with the captured response. Bodies that will be compressed are encoded on
+     * a worker thread rather than the event loop; followers wait for the result either way. Status
+     * and headers are copied first, as the server recycles the response once it is written.
+     */
+    private void store(String key, CacheService.Flight flight, AtomicBoolean done, CapturingResponse captured,
+                       Set<String> gatewayHeaders, Config config) {
+        if (!done.compareAndSet(false, true)) {
+            return;
+        }
+        byte[] body = captured.capturedBody();
+        // A response nobody set a status on is sent as 200
+        HttpStatusCode status = captured.getStatusCode() != null ? captured.getStatusCode() : HttpStatus.OK;
+        HttpHeaders upstream = new HttpHeaders();
+        upstream.addAll(captured.getHeaders());
+        if (body == null || !cache.compresses(body.length)) {
+            cache.complete(key, flight, toEntry(status, upstream, body, gatewayHeaders, config));
+            return;
+        }
+        ENCODER.schedule(() -> {
+            CachedResponse entry = null;
+            try {
+                entry = toEntry(status, upstream, body, gatewayHeaders, config);
+            } catch (RuntimeException e) {
+                log.warn("Could not encode response for {}: {}", key, e.toString());
+            } finally {
+                cache.complete(key, flight, entry);
+            }
+        });
+    }
+
+    /**
+     * Ends the flight empty-handed if the response never completed normally.
+     */
+    private void release(String key, CacheService.Flight flight, AtomicBoolean done) {
+        if (done.compareAndSet(false, true)) {
+            cache.complete(key, flight, null);
+        }
+    }
+
+    private static Mono<Void> serve(ServerWebExchange exchange, CachedResponse cached, String state) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(cached.status());
+        HttpHeaders headers = response.getHeaders();
+        cached.headers().forEach((name, values) -> {
+            if (!headers.containsKey(name)) {
+                headers.put(name, values);
+            }
+        });
+        headers.set(CACHE_HEADER, state);
+        headers.set(HttpHeaders.AGE, Long.toString((System.currentTimeMillis() - cached.storedAtMillis()) / 1000));
+        CachedBody body = cached.body();
+        DataBufferFactory buffers = response.bufferFactory();
+        if (body.encoding() == null) {
+            headers.setContentLength(body.length());
+            return response.writeWith(Mono.just(body.encoded(buffers)));
+        }
+        if (!containsIgnoreCase(headers.getVary(), HttpHeaders.ACCEPT_ENCODING)) {
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (CachedBody.accepts(exchange.getRequest().getHeaders().getOrEmpty(HttpHeaders.ACCEPT_ENCODING), body.encoding())) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, body.encoding());
+            headers.setContentLength(body.storedLength());
+            return response.writeWith(Mono.just(body.encoded(buffers)));
+        }
+        headers.setContentLength(body.length());
+        return response.writeWith(body.decoded(buffers));
+    }
+
+    private static boolean bypass(HttpHeaders headers, Config config) {
+        if (headers.containsKey(HttpHeaders.RANGE)
+                || (!config.isCacheAuthenticated() && headers.containsKey(HttpHeaders.AUTHORIZATION))) {
+            return true;
+        }
+        String cacheControl = String.join(",", headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)).toLowerCase(Locale.ROOT);
+        return cacheControl.contains("no-cache") || cacheControl.contains("no-store")
+                || headers.getOrEmpty(HttpHeaders.PRAGMA).contains("no-cache");
+    }
+
+    /**
+     * @param body           the captured identity body, or null if there is none to store
+     * @param gatewayHeaders headers already on the response before routing (set by earlier
+     *                       filters for this particular request); not stored
+     * @return the entry to store, or null if the response must not be cached
+     */
+    private CachedResponse toEntry(HttpStatusCode status, HttpHeaders upstream, byte[] body, Set<String> gatewayHeaders,
+                                   Config config) {
+        if (body == null || status.value() != HttpStatus.OK.value()
+                || upstream.containsKey(HttpHeaders.SET_COOKIE) || upstream.containsKey(HttpHeaders.CONTENT_ENCODING)
+                || !CacheKeys.coversVary(upstream.getOrEmpty(HttpHeaders.VARY), config.getVaryHeaders())) {
+            return null;
+        }
+        String cacheControl = String.join(",", upstream.getOrEmpty(HttpHeaders.CACHE_CONTROL)).toLowerCase(Locale.ROOT);
+        if (cacheControl.contains("no-store") || cacheControl.contains("private")) {
+            return null;
+        }
+        HttpHeaders stored = new HttpHeaders();
+        upstream.forEach((name, values) -> {
+            if (!EXCLUDED_HEADERS.contains(name) && !gatewayHeaders.contains(name)) {
+                stored.put(name, List.copyOf(values));
+            }
+        });
+        long now = System.nanoTime();
+        long freshUntil = now + config.getTtl().toNanos();
+        CachedBody cachedBody = cache.encode(body, upstream.getContentType());
+        return new CachedResponse(status, HttpHeaders.readOnlyHttpHeaders(stored), cachedBody, System.currentTimeMillis(),
+                freshUntil, freshUntil + config.getStaleWhileRevalidate().toNanos());
+    }
+
+    private static boolean containsIgnoreCase(List<String> names, String name) {
+        for (String n : names) {
+            if (n.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> caseInsensitive(Collection<String> names) {
+        Set<String> set = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        set.addAll(names);
+        return set;
+    }
+}
@@ -1,33 +1,48 @@
 package com.platformcommons.cdb.platform.api.gateway.filter;
 
-import jakarta.servlet.FilterChain;
-import jakarta.servlet.ServletException;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.core.annotation.Order;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
-import org.springframework.web.filter.OncePerRequestFilter;
-
-import java.io.IOException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
 
 /**
  * Filter that performs response transformations after downstream handling.
  * <p>
  * Typical use-cases include header normalization, adding security headers,
  * or mapping backend-specific response structures to standardized forms.
+ * Headers are applied in a before-commit hook, i.e. after the proxied response headers have
+ * been copied but before anything is written, which is the last point they can still change on
+ * a reactive response. Values sent by the backend are left as they are.
  * </p>
  */
 @Component
-@Order(40)
-public class ResponseTransformationFilter extends OncePerRequestFilter {
+public class ResponseTransformationFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = 40;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.beforeCommit(() -> {
+            // Post-processing: ensure some minimal headers exist
+            HttpHeaders headers = response.getHeaders();
+            if (!headers.containsKey("X-Content-Type-Options")) {
+                headers.set("X-Content-Type-Options", "nosniff");
+            }
+            if (!headers.containsKey("X-Frame-Options")) {
+                headers.set("X-Frame-Options", "DENY");
+            }
+            return Mono.empty();
+        });
+        return chain.filter(exchange);
+    }
 
     @Override
-    protected void doFilterInternal(HttpServletRequest request,
-                                    HttpServletResponse response,
-                                    FilterChain filterChain) throws ServletException, IOException {
-        filterChain.doFilter(request, response);
-        // Post-processing: ensure some minimal headers exist
-        response.addHeader("X-Content-Type-Options", "nosniff");
-        response.addHeader("X-Frame-Options", "DENY");
+    public int getOrder() {
+        return ORDER;
     }
 }
@@ -0,0 +1,48 @@
+package com.platformcommons.cdb.platform.api.gateway.filter;
+
+import com.platformcommons.cdb.platform.api.gateway.resilience.ResilienceFilter;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR;
+
+/**
+ * Writes proxied response bodies late in the filter chain rather than first.
+ * <p>
+ * Spring Cloud Gateway's NettyWriteResponseFilter (order -1) copies the upstream body into the
+ * response of the exchange it was handed, once the rest of the chain has completed, so a
+ * response decorator installed by a filter ordered after it never sees the body. This filter does
+ * the same write just before ResilienceFilter, where the exchange carries the decorators of all
+ * the filters above (BodySizeLimitFilter, ResponseCache), and then leaves nothing for the
+ * built-in filter to write. Everything below it still completes as soon as the upstream status
+ * and headers arrive, which is what the per-attempt timeouts and retries measure.
+ * </p>
+ */
+@Component
+public class ResponseWriteFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = ResilienceFilter.ORDER - 1;
+
+    private final NettyWriteResponseFilter writer;
+
+    public ResponseWriteFilter(GatewayProperties properties) {
+        this.writer = new NettyWriteResponseFilter(properties.getStreamingMediaTypes());
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return writer.filter(exchange, chain)
+                .doFinally(signal -> exchange.getAttributes().remove(CLIENT_RESPONSE_CONN_ATTR));
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
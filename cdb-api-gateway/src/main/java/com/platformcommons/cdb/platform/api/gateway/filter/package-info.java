@@ -1,5 +1,6 @@
 /**
- * Servlet filters used by the API Gateway to enforce cross-cutting concerns
- * such as authentication, rate limiting, and transformations.
+ * Reactive gateway filters ({@code GlobalFilter}s on the Spring Cloud Gateway pipeline) used by the
+ * API Gateway to enforce cross-cutting concerns such as rate limiting and transformations.
+ * Authentication runs earlier, in the security library's ReactiveAuthFilter.
  */
 package com.platformcommons.cdb.platform.api.gateway.filter;
@@ -0,0 +1,135 @@
+package com.platformcommons.cdb.platform.api.gateway.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load and health of one instance of a route, as seen by this gateway node.
+ * <p>
+ * Latency is a peak EWMA: a sample above the average replaces it outright, so a replica that
+ * turns slow is avoided immediately, while recovery decays in over the decay time. Updates are
+ * plain volatile read-modify-writes; an occasionally lost sample under concurrent completions
+ * does not matter for balancing and keeps the path lock-free.
+ * </p>
+ */
+public final class InstanceStats {
+
+    private final RouteBalancer.Settings settings;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile double ewmaNanos;
+    private volatile long lastSampleAt;
+    private volatile long ejectedUntil;
+    private volatile long readmittedAt;
+    private volatile int ejections;
+
+    InstanceStats(RouteBalancer.Settings settings, long now) {
+        this.settings = settings;
+        this.lastSampleAt = now;
+        this.readmittedAt = now;
+    }
+
+    /**
+     * Expected cost of sending one more request here: latency times queue depth, inflated while
+     * the instance is warming up after (re)admission.
+     */
+    double cost(long now) {
+        double latency = ewmaNanos > 0 ? ewmaNanos : settings.defaultLatencyNanos();
+        return latency * (inFlight.get() + 1) / weight(now);
+    }
+
+    /**
+     * Slow-start weight, from min-weight right after (re)admission up to 1 over the slow-start
+     * window.
+     */
+    double weight(long now) {
+        long warm = now - readmittedAt;
+        long window = settings.slowStartNanos();
+        if (window <= 0 || warm >= window) {
+            return 1.0;
+        }
+        return Math.max(settings.minWeight(), (double) Math.max(0, warm) / window);
+    }
+
+    boolean isEjected(long now) {
+        return now - ejectedUntil < 0;
+    }
+
+    void start() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Records a finished request.
+     *
+     * @return true if this failure crossed the ejection threshold; the caller must then either
+     *         {@link #eject} the instance or {@link #keep} it, which starts the count over
+     */
+    boolean complete(long latencyNanos, boolean success, long now) {
+        inFlight.decrementAndGet();
+        observe(latencyNanos, now);
+        if (success) {
+            consecutiveFailures.set(0);
+            if (ejections > 0 && now - readmittedAt > settings.slowStartNanos()) {
+                ejections = 0;
+            }
+            return false;
+        }
+        return consecutiveFailures.incrementAndGet() == settings.failureThreshold();
+    }
+
+    /** Request overtaken by a hedge: frees the slot, with the time so far as a latency sample. */
+    void overtaken(long elapsedNanos, long now) {
+        inFlight.decrementAndGet();
+        observe(elapsedNanos, now);
+    }
+
+    /** Request abandoned (e.g. client went away): frees the slot without a sample. */
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Takes the instance out of rotation for base-ejection-time times the number of ejections in a
+     * row (capped at 10x); it is readmitted with slow start afterwards.
+     */
+    void eject(long now) {
+        int n = Math.min(++ejections, 10);
+        long until = now + settings.baseEjectionNanos() * n;
+        ejectedUntil = until;
+        readmittedAt = until;
+        consecutiveFailures.set(0);
+    }
+
+    /**
+     * Ejection refused (max-ejection-percent reached): starts the failure count over, so the next
+     * run of failure-threshold failures asks again once other instances may have recovered.
+     */
+    void keep() {
+        consecutiveFailures.set(0);
+    }
+
+    private void observe(long sampleNanos, long now) {
+        double current = ewmaNanos;
+        if (current == 0 || sampleNanos > current) {
+            ewmaNanos = sampleNanos;
+        } else {
+            long elapsed = Math.max(0, now - lastSampleAt);
+            double w = Math.exp(-(double) elapsed / settings.decayNanos());
+            ewmaNanos = current * w + sampleNanos * (1 - w);
+        }
+        lastSampleAt = now;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public double latencyMillis() {
+        return ewmaNanos / 1_000_000.0;
+    }
+
+    public boolean ejected() {
+        return isEjected(System.nanoTime());
+    }
+}
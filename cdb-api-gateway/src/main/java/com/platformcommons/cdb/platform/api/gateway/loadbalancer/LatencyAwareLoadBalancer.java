@@ -0,0 +1,88 @@
+package com.platformcommons.cdb.platform.api.gateway.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Predicate;
+
+/**
+ * Spring Cloud LoadBalancer adapter over a {@link RouteBalancer}, one per service (the per-client
+ * context of {@code lb://<service>} routes). Picks return a {@link TrackedResponse} carrying the
+ * in-flight slot; {@link LoadBalancerStatsFilter} completes it with the outcome and latency of
+ * the proxied call.
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    /**
+     * Instance pick plus its balancer bookkeeping.
+     */
+    public static class TrackedResponse extends DefaultResponse {
+
+        private final RouteBalancer.Selection<ServiceInstance> selection;
+
+        TrackedResponse(RouteBalancer.Selection<ServiceInstance> selection) {
+            super(selection.instance());
+            this.selection = selection;
+        }
+
+        public RouteBalancer.Selection<ServiceInstance> selection() {
+            return selection;
+        }
+    }
+
+    /**
+     * Exchange attribute naming an instance (by {@link #key}) to avoid while others are
+     * available, e.g. the one a hedged request's first attempt went to.
+     */
+    public static final String AVOID_INSTANCE_ATTR = LatencyAwareLoadBalancer.class.getName() + ".avoidInstance";
+
+    private final ObjectProvider<ServiceInstanceListSupplier> suppliers;
+    private final RouteBalancer balancer;
+    private final Predicate<String> admitted;
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> suppliers, RouteBalancer balancer) {
+        this(suppliers, balancer, key -> true);
+    }
+
+    /**
+     * @param admitted whether an instance (by {@link #key}) may take requests, e.g. is not behind
+     *                 an open circuit breaker; instances that may not are avoided like ejected ones
+     */
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> suppliers, RouteBalancer balancer,
+                                    Predicate<String> admitted) {
+        this.suppliers = suppliers;
+        this.balancer = balancer;
+        this.admitted = admitted;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = suppliers.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        Object avoid = request.getContext() instanceof RequestDataContext context && context.getClientRequest() != null
+                ? context.getClientRequest().getAttributes().get(AVOID_INSTANCE_ATTR) : null;
+        Predicate<String> admitted = avoid == null ? this.admitted : this.admitted.and(key -> !key.equals(avoid));
+        return supplier.get(request).next().map(instances -> {
+            RouteBalancer.Selection<ServiceInstance> selection = balancer.choose(instances, LatencyAwareLoadBalancer::key, admitted);
+            return selection == null ? new EmptyResponse() : new TrackedResponse(selection);
+        });
+    }
+
+    public RouteBalancer balancer() {
+        return balancer;
+    }
+
+    public static String key(ServiceInstance instance) {
+        String id = instance.getInstanceId();
+        return id != null ? id : instance.getHost() + ':' + instance.getPort();
+    }
+}
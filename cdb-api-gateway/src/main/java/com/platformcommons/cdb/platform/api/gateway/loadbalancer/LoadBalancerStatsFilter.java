@@ -0,0 +1,60 @@
+package com.platformcommons.cdb.platform.api.gateway.loadbalancer;
+
+import com.platformcommons.cdb.platform.api.gateway.resilience.HedgingFilter;
+import com.platformcommons.cdb.platform.api.gateway.resilience.ResilienceFilter;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+
+/**
+ * Reports the outcome of each proxied call back to the {@link RouteBalancer} that picked the
+ * instance. Runs right after the gateway's load-balancer filter, so it wraps exactly one routing
+ * attempt (a retry re-runs both): errors (connect failures, response timeouts) and 5xx responses
+ * count as failures, anything else as success with its latency, and a cancelled exchange only
+ * frees the in-flight slot (unless ResilienceFilter abandoned the attempt on its timeout, which
+ * is a failure, or HedgingFilter because the hedge answered first, which is a latency sample). Using doFinally rather than the LoadBalancerLifecycle callbacks makes sure the
+ * slot is also freed when the client goes away mid-request.
+ */
+public class LoadBalancerStatsFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> response = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (!(response instanceof LatencyAwareLoadBalancer.TrackedResponse tracked)) {
+            return chain.filter(exchange);
+        }
+        RouteBalancer.Selection<ServiceInstance> selection = tracked.selection();
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal == SignalType.CANCEL) {
+                if (exchange.getAttribute(ResilienceFilter.ATTEMPT_TIMED_OUT_ATTR) != null) {
+                    selection.complete(false);
+                } else if (exchange.getAttribute(HedgingFilter.OVERTAKEN_ATTR) != null) {
+                    selection.overtaken();
+                } else {
+                    selection.release();
+                }
+            } else if (signal == SignalType.ON_ERROR) {
+                selection.complete(false);
+            } else {
+                HttpStatusCode status = exchange.getResponse().getStatusCode();
+                selection.complete(status == null || !status.is5xxServerError());
+            }
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
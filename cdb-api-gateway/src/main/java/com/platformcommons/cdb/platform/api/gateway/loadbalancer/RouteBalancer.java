@@ -0,0 +1,240 @@
+package com.platformcommons.cdb.platform.api.gateway.loadbalancer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Balancer state for one route: {@link InstanceStats} per instance and power-of-two-choices
+ * selection. Each pick samples two random instances and takes the one with the lower expected
+ * cost (peak-EWMA latency x (in-flight + 1), inflated during slow start), which avoids slow or
+ * busy replicas without the herding of always picking the global minimum and in O(1).
+ * <p>
+ * - Outlier ejection: failure-threshold consecutive failures (connect errors, timeouts, 5xx) take
+ *   an instance out of rotation for base-ejection-time, longer for repeat offenders, but never
+ *   more than max-ejection-percent of a route's instances at once. If every instance is ejected
+ *   the route still picks among them rather than failing.
+ * - Slow start: a readmitted (or newly discovered) instance's weight ramps from 10% to 100% over
+ *   the slow-start window.
+ * Stats of instances that disappear from discovery are dropped on the next pick.
+ * </p>
+ *
+ * Configuration (see LoadBalancingConfig):
+ * - cdb.gateway.load-balancer.decay-time (ms, default 10000)
+ * - cdb.gateway.load-balancer.failure-threshold (default 5)
+ * - cdb.gateway.load-balancer.base-ejection-time (seconds, default 30)
+ * - cdb.gateway.load-balancer.max-ejection-percent (default 50)
+ * - cdb.gateway.load-balancer.slow-start (seconds, default 30)
+ */
+public class RouteBalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteBalancer.class);
+
+    /**
+     * @param defaultLatencyNanos assumed latency of an instance without samples yet
+     */
+    public record Settings(long decayNanos, int failureThreshold, long baseEjectionNanos, int maxEjectionPercent,
+                           long slowStartNanos, double minWeight, long defaultLatencyNanos) {
+
+        public static Settings of(Duration decayTime, int failureThreshold, Duration baseEjectionTime,
+                                  int maxEjectionPercent, Duration slowStart) {
+            return new Settings(Math.max(1, decayTime.toNanos()), failureThreshold, baseEjectionTime.toNanos(),
+                    maxEjectionPercent, slowStart.toNanos(), 0.1, Duration.ofMillis(10).toNanos());
+        }
+
+        public static Settings defaults() {
+            return of(Duration.ofSeconds(10), 5, Duration.ofSeconds(30), 50, Duration.ofSeconds(30));
+        }
+    }
+
+    /**
+     * A picked instance with its in-flight slot taken; exactly one of {@link #complete},
+     * {@link #overtaken} or {@link #release} must follow (later calls are ignored).
+     */
+    public final class Selection<T> {
+        private final T instance;
+        private final String key;
+        private final InstanceStats stats;
+        private final long startNanos;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        Selection(T instance, String key, InstanceStats stats, long startNanos) {
+            this.instance = instance;
+            this.key = key;
+            this.stats = stats;
+            this.startNanos = startNanos;
+        }
+
+        public T instance() {
+            return instance;
+        }
+
+        public void complete(boolean success) {
+            if (done.compareAndSet(false, true)) {
+                long now = System.nanoTime();
+                if (stats.complete(now - startNanos, success, now)) {
+                    maybeEject(key, stats, now);
+                }
+            }
+        }
+
+        /**
+         * Abandoned because a hedged copy of the request answered first: the time so far is a
+         * lower bound of this instance's latency, so it counts as a sample (but not as an outcome).
+         * Otherwise an instance that keeps getting overtaken would never look slow.
+         */
+        public void overtaken() {
+            if (done.compareAndSet(false, true)) {
+                long now = System.nanoTime();
+                stats.overtaken(now - startNanos, now);
+            }
+        }
+
+        public void release() {
+            if (done.compareAndSet(false, true)) {
+                stats.release();
+            }
+        }
+    }
+
+    private final String routeId;
+    private final Settings settings;
+    private final ConcurrentHashMap<String, InstanceStats> stats = new ConcurrentHashMap<>();
+
+    public RouteBalancer(String routeId, Settings settings) {
+        this.routeId = routeId;
+        this.settings = settings;
+    }
+
+    /**
+     * @param candidates current instances of the route
+     * @param keyFn      stable identity of an instance (e.g. instance id or host:port)
+     * @return the pick, or null if there are no candidates
+     */
+    public <T> Selection<T> choose(List<T> candidates, Function<T, String> keyFn) {
+        return choose(candidates, keyFn, key -> true);
+    }
+
+    /**
+     * @param admitted instances (by key) that may take requests apart from ejection, e.g. not
+     *                 behind an open circuit breaker; the others are treated like ejected ones
+     */
+    public <T> Selection<T> choose(List<T> candidates, Function<T, String> keyFn, Predicate<String> admitted) {
+        int n = candidates.size();
+        if (n == 0) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (stats.size() > n) {
+            prune(candidates, keyFn);
+        }
+        T chosen;
+        InstanceStats chosenStats;
+        if (n == 1) {
+            chosen = candidates.get(0);
+            chosenStats = statsFor(keyFn.apply(chosen), now);
+        } else {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int i = random.nextInt(n);
+            int j = random.nextInt(n - 1);
+            if (j >= i) j++;
+            T a = candidates.get(i);
+            T b = candidates.get(j);
+            String ka = keyFn.apply(a);
+            String kb = keyFn.apply(b);
+            InstanceStats sa = statsFor(ka, now);
+            InstanceStats sb = statsFor(kb, now);
+            boolean aOut = sa.isEjected(now) || !admitted.test(ka);
+            boolean bOut = sb.isEjected(now) || !admitted.test(kb);
+            if (aOut && bOut) {
+                return choosePanic(candidates, keyFn, admitted, now);
+            }
+            if (aOut || (!bOut && sb.cost(now) < sa.cost(now))) {
+                chosen = b;
+                chosenStats = sb;
+            } else {
+                chosen = a;
+                chosenStats = sa;
+            }
+        }
+        return select(chosen, keyFn.apply(chosen), chosenStats, now);
+    }
+
+    /**
+     * Both samples were ejected: take the cheapest admitted instance, or the cheapest of all when
+     * everything is ejected.
+     */
+    private <T> Selection<T> choosePanic(List<T> candidates, Function<T, String> keyFn, Predicate<String> admitted,
+                                         long now) {
+        T best = null;
+        InstanceStats bestStats = null;
+        double bestCost = Double.MAX_VALUE;
+        boolean bestEjected = true;
+        for (T candidate : candidates) {
+            String key = keyFn.apply(candidate);
+            InstanceStats s = statsFor(key, now);
+            boolean ejected = s.isEjected(now) || !admitted.test(key);
+            double cost = s.cost(now);
+            if (best == null || (bestEjected && !ejected) || (ejected == bestEjected && cost < bestCost)) {
+                best = candidate;
+                bestStats = s;
+                bestCost = cost;
+                bestEjected = ejected;
+            }
+        }
+        return select(best, keyFn.apply(best), bestStats, now);
+    }
+
+    private <T> Selection<T> select(T instance, String key, InstanceStats s, long now) {
+        s.start();
+        return new Selection<>(instance, key, s, now);
+    }
+
+    private InstanceStats statsFor(String key, long now) {
+        InstanceStats s = stats.get(key);
+        return s != null ? s : stats.computeIfAbsent(key, k -> new InstanceStats(settings, now));
+    }
+
+    private void maybeEject(String key, InstanceStats s, long now) {
+        int total = stats.size();
+        long ejected = stats.values().stream().filter(x -> x.isEjected(now)).count();
+        if ((ejected + 1) * 100 > (long) total * settings.maxEjectionPercent()) {
+            log.warn("Route {}: instance {} failed {} times in a row but max-ejection-percent ({}%) is reached; keeping it",
+                    routeId, key, settings.failureThreshold(), settings.maxEjectionPercent());
+            s.keep();
+            return;
+        }
+        s.eject(now);
+        log.warn("Route {}: ejected instance {} after {} consecutive failures", routeId, key, settings.failureThreshold());
+    }
+
+    private <T> void prune(List<T> candidates, Function<T, String> keyFn) {
+        Set<String> live = new HashSet<>(candidates.size() * 2);
+        for (T candidate : candidates) {
+            live.add(keyFn.apply(candidate));
+        }
+        stats.keySet().retainAll(live);
+    }
+
+    public String routeId() {
+        return routeId;
+    }
+
+    /**
+     * Snapshot view of per-instance stats, for monitoring.
+     */
+    public Map<String, InstanceStats> stats() {
+        return Collections.unmodifiableMap(stats);
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * Latency-aware client-side load balancing for the gateway's {@code lb://} routes: per-route
+ * power-of-two-choices over peak-EWMA latency and in-flight requests, with outlier ejection and
+ * slow start.
+ */
+package com.platformcommons.cdb.platform.api.gateway.loadbalancer;
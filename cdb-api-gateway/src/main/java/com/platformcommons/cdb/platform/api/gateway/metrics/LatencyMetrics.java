@@ -0,0 +1,150 @@
+package com.platformcommons.cdb.platform.api.gateway.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Latency distributions of the gateway's traffic, as Micrometer timers publishing percentiles
+ * (p50, p90, p99 and p99.9 by default) over a rolling window.
+ * <p>
+ * Micrometer keeps a timer's distribution in a ring of HdrHistogram recorders, one per slice of
+ * the window: recording is lock-free, and the oldest slice is reset as the window moves on, so
+ * the published percentiles describe the last window rather than the whole uptime. Timers are
+ * looked up through per-route (and per-upstream) tables indexed by status code, so once a
+ * combination has been seen, recording a sample allocates nothing. Prometheus scrapes them from
+ * {@code /actuator/prometheus}; with percentile-histogram enabled the timers also publish buckets,
+ * which (unlike the precomputed percentiles) can be aggregated across gateway nodes.
+ * </p>
+ * Published:
+ * - {@value #ROUTE_TIMER}: whole requests per route and response status
+ * - {@value #UPSTREAM_TIMER}: each upstream attempt (until its status and headers arrive) per
+ *   route, upstream host:port and status, with {@value #ERROR} and {@value #TIMEOUT} for attempts
+ *   that got no response
+ *
+ * Configuration (see MetricsConfig):
+ * - cdb.gateway.metrics.percentiles (default 0.5,0.9,0.99,0.999)
+ * - cdb.gateway.metrics.window (seconds, default 60)
+ * - cdb.gateway.metrics.window-slices (default 3)
+ * - cdb.gateway.metrics.percentile-histogram (default false)
+ */
+public class LatencyMetrics {
+
+    public static final String ROUTE_TIMER = "cdb.gateway.route.latency";
+    public static final String UPSTREAM_TIMER = "cdb.gateway.upstream.latency";
+
+    /** Status of an attempt that failed without a response (connect error, reset, ...). */
+    public static final int ERROR_STATUS = -1;
+    /** Status of an attempt abandoned on its timeout. */
+    public static final int TIMEOUT_STATUS = -2;
+
+    static final String ERROR = "error";
+    static final String TIMEOUT = "timeout";
+
+    private static final int ERROR_SLOT = 600;
+    private static final int TIMEOUT_SLOT = 601;
+    private static final int OTHER_SLOT = 602;
+    private static final String[] STATUS_TAGS = new String[OTHER_SLOT + 1];
+
+    static {
+        for (int status = 100; status < ERROR_SLOT; status++) {
+            STATUS_TAGS[status] = Integer.toString(status);
+        }
+        STATUS_TAGS[ERROR_SLOT] = ERROR;
+        STATUS_TAGS[TIMEOUT_SLOT] = TIMEOUT;
+        STATUS_TAGS[OTHER_SLOT] = "other";
+    }
+
+    private final MeterRegistry meters;
+    private final double[] percentiles;
+    private final Duration window;
+    private final int windowSlices;
+    private final boolean percentileHistogram;
+
+    private final ConcurrentHashMap<String, StatusTimers> routes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, StatusTimers>> upstreams = new ConcurrentHashMap<>();
+
+    public LatencyMetrics(MeterRegistry meters, double[] percentiles, Duration window, int windowSlices,
+                          boolean percentileHistogram) {
+        this.meters = meters;
+        this.percentiles = percentiles.clone();
+        this.window = window;
+        this.windowSlices = Math.max(1, windowSlices);
+        this.percentileHistogram = percentileHistogram;
+    }
+
+    public void recordRoute(String routeId, int status, long latencyNanos) {
+        StatusTimers timers = routes.get(routeId);
+        if (timers == null) {
+            timers = routes.computeIfAbsent(routeId,
+                    id -> new StatusTimers(tag -> timer(ROUTE_TIMER, Tags.of("route", id, "status", tag))));
+        }
+        timers.record(status, latencyNanos);
+    }
+
+    /**
+     * @param upstream host:port of the instance the attempt went to
+     */
+    public void recordUpstream(String routeId, String upstream, int status, long latencyNanos) {
+        ConcurrentHashMap<String, StatusTimers> byUpstream = upstreams.get(routeId);
+        if (byUpstream == null) {
+            byUpstream = upstreams.computeIfAbsent(routeId, id -> new ConcurrentHashMap<>());
+        }
+        StatusTimers timers = byUpstream.get(upstream);
+        if (timers == null) {
+            timers = byUpstream.computeIfAbsent(upstream, host -> new StatusTimers(
+                    tag -> timer(UPSTREAM_TIMER, Tags.of("route", routeId, "upstream", host, "status", tag))));
+        }
+        timers.record(status, latencyNanos);
+    }
+
+    /**
+     * A timer with this gateway's distribution settings, for latencies measured elsewhere.
+     */
+    public Timer timer(String name, Tags tags) {
+        return Timer.builder(name)
+                .tags(tags)
+                .publishPercentiles(percentiles)
+                .publishPercentileHistogram(percentileHistogram)
+                .distributionStatisticExpiry(window)
+                .distributionStatisticBufferLength(windowSlices)
+                .register(meters);
+    }
+
+    private static int slot(int status) {
+        if (status >= 100 && status < ERROR_SLOT) {
+            return status;
+        }
+        return status == ERROR_STATUS ? ERROR_SLOT : status == TIMEOUT_STATUS ? TIMEOUT_SLOT : OTHER_SLOT;
+    }
+
+    /**
+     * Timers of one route (or route and upstream) by status, created on first use.
+     */
+    private static final class StatusTimers {
+
+        private final AtomicReferenceArray<Timer> timers = new AtomicReferenceArray<>(STATUS_TAGS.length);
+        private final Function<String, Timer> factory;
+
+        StatusTimers(Function<String, Timer> factory) {
+            this.factory = factory;
+        }
+
+        void record(int status, long latencyNanos) {
+            int slot = slot(status);
+            Timer timer = timers.get(slot);
+            if (timer == null) {
+                // A racing registration returns the same meter from the registry
+                timer = factory.apply(STATUS_TAGS[slot]);
+                timers.set(slot, timer);
+            }
+            timer.record(latencyNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
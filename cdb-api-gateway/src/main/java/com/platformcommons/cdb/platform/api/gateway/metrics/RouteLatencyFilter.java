@@ -0,0 +1,57 @@
+package com.platformcommons.cdb.platform.api.gateway.metrics;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Records how long each routed request takes, from the start of the gateway's filters to the
+ * last byte of the response, per route and final status ({@link LatencyMetrics#ROUTE_TIMER}).
+ * Runs ahead of rate limiting, so rejections and cache hits are measured along with proxied
+ * calls (retries and hedges included). A request failing with an error is recorded with the
+ * status the error maps to; one the client abandoned is not recorded.
+ */
+public class RouteLatencyFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = 10;
+
+    private final LatencyMetrics metrics;
+
+    public RouteLatencyFilter(LatencyMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doOnSuccess(done -> {
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    // A response nobody set a status on is sent as 200
+                    record(route, status == null ? HttpStatus.OK.value() : status.value(), start);
+                })
+                .doOnError(e -> record(route, e instanceof ResponseStatusException rse
+                        ? rse.getStatusCode().value() : HttpStatus.INTERNAL_SERVER_ERROR.value(), start));
+    }
+
+    private void record(Route route, int status, long start) {
+        metrics.recordRoute(route.getId(), status, System.nanoTime() - start);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
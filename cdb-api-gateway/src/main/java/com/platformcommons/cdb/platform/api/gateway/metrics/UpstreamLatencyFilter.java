@@ -0,0 +1,67 @@
+package com.platformcommons.cdb.platform.api.gateway.metrics;
+
+import com.platformcommons.cdb.platform.api.gateway.resilience.ResilienceFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.URI;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Records each upstream attempt per route, instance and status
+ * ({@link LatencyMetrics#UPSTREAM_TIMER}). Runs after the load balancer and circuit breaker, so
+ * it sees the chosen instance and only calls that were actually sent, and measures up to the
+ * upstream's status and headers, like the per-attempt timeout. Attempts failing without a
+ * response count as {@code error}, attempts ResilienceFilter abandoned as {@code timeout}; ones
+ * cancelled otherwise (client gone, overtaken by a hedge) are not recorded.
+ */
+public class UpstreamLatencyFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 3;
+
+    private final LatencyMetrics metrics;
+
+    public UpstreamLatencyFilter(LatencyMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        URI url = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        if (route == null || url == null || url.getRawAuthority() == null) {
+            return chain.filter(exchange);
+        }
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            int status;
+            if (signal == SignalType.CANCEL) {
+                if (exchange.getAttribute(ResilienceFilter.ATTEMPT_TIMED_OUT_ATTR) == null) {
+                    return;
+                }
+                status = LatencyMetrics.TIMEOUT_STATUS;
+            } else if (signal == SignalType.ON_ERROR) {
+                status = LatencyMetrics.ERROR_STATUS;
+            } else {
+                HttpStatusCode code = exchange.getResponse().getStatusCode();
+                status = code == null ? HttpStatus.OK.value() : code.value();
+            }
+            metrics.recordUpstream(route.getId(), url.getRawAuthority(), status, System.nanoTime() - start);
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Latency metrics for the gateway: per-route and per-upstream timers with rolling-window
+ * percentiles (LatencyMetrics) and the filters that record them, exported through Micrometer.
+ */
+package com.platformcommons.cdb.platform.api.gateway.metrics;
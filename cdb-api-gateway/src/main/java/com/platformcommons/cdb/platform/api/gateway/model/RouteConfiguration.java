@@ -19,6 +19,6 @@ public class RouteConfiguration {
     private String pathPattern; // e.g., /api/v1/items/**
     private List<String> methods; // GET, POST, etc.
     private List<String> targetInstances; // base URLs of target service instances
-    private int timeoutMs;
-    private int retryCount;
+    private int timeoutMs; // route metadata timeout-ms, enforced by ResilienceFilter
+    private int retryCount; // route metadata retry-count, enforced by ResilienceFilter
 }
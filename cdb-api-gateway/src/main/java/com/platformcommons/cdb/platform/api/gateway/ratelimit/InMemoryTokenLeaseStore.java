@@ -0,0 +1,32 @@
+package com.platformcommons.cdb.platform.api.gateway.ratelimit;
+
+import com.platformcommons.cdb.platform.api.gateway.model.RateLimitRule;
+
+/**
+ * {@link TokenLeaseStore} over an in-process {@link TokenBucketRateLimiter}. Global only for the
+ * nodes sharing this instance, so it is meant for tests, benchmarks and single-node runs of the
+ * distributed mode; production clusters should provide a TokenLeaseStore bean backed by a shared
+ * store.
+ */
+public class InMemoryTokenLeaseStore implements TokenLeaseStore, AutoCloseable {
+
+    private final TokenBucketRateLimiter buckets;
+
+    public InMemoryTokenLeaseStore(TokenBucketRateLimiter buckets) {
+        this.buckets = buckets;
+    }
+
+    public void start() {
+        buckets.start();
+    }
+
+    @Override
+    public long acquire(String key, long tokens, RateLimitRule rule) {
+        return buckets.tryAcquireUpTo(key, tokens, rule);
+    }
+
+    @Override
+    public void close() {
+        buckets.close();
+    }
+}
@@ -0,0 +1,227 @@
+package com.platformcommons.cdb.platform.api.gateway.ratelimit;
+
+import com.platformcommons.cdb.platform.api.gateway.model.RateLimitRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cluster-wide rate limiter: each node leases blocks of tokens from a shared
+ * {@link TokenLeaseStore} and admits requests from its local lease, so the request path makes no
+ * remote call - a check is a map read and a CAS on the lease counter, as in
+ * {@link TokenBucketRateLimiter}.
+ * <p>
+ * - Renewal is early and asynchronous: once a lease drops below half its size, one renewal per
+ *   key is handed to a small worker pool that calls the store. When the store grants less than
+ *   asked (the global budget is spent) the next renewal waits for about half a lease worth of
+ *   global refill.
+ * - A key seen for the first time starts with one lease on credit, so its first requests are not
+ *   refused while the store is asked; the credit is paid back out of the first grants.
+ * - Accuracy: at any moment a node holds at most one lease (plus its credit) of unspent tokens per
+ *   key, so the cluster can exceed the global limit by at most nodes x lease size.
+ * - If the store fails, the key falls back to the per-node limiter until a renewal succeeds
+ *   (retried every second), so an outage degrades to local limits rather than failing open or
+ *   closed.
+ * - RateLimit-Remaining reports the tokens left in this node's lease.
+ * Leases idle for the idle timeout are dropped once their credit is repaid; their unspent tokens
+ * are forfeited, which only ever under-admits.
+ * </p>
+ *
+ * Configuration (see RateLimitingConfig):
+ * - cdb.gateway.security.rate-limiting.mode=distributed
+ * - cdb.gateway.security.rate-limiting.distributed.lease-size (tokens per lease; default 0 = 10% of the limit)
+ * - cdb.gateway.security.rate-limiting.distributed.renew-threads (default 2)
+ * - cdb.gateway.security.rate-limiting.idle-timeout (seconds, default 300)
+ */
+public class LeasedRateLimiter implements RateLimiter, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LeasedRateLimiter.class);
+
+    private static final long STORE_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long TOUCH_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int RENEW_QUEUE_SIZE = 10_000;
+
+    private final TokenLeaseStore store;
+    private final RateLimiter fallback;
+    private final long leaseSize;
+    private final long idleNanos;
+    private final ThreadPoolExecutor renewals;
+    private final ScheduledExecutorService sweeper;
+    private final ConcurrentHashMap<String, Lease> leases = new ConcurrentHashMap<>();
+
+    public LeasedRateLimiter(TokenLeaseStore store, RateLimiter fallback, long leaseSize, Duration idleTimeout,
+                             int renewThreads) {
+        this.store = store;
+        this.fallback = fallback;
+        this.leaseSize = leaseSize;
+        this.idleNanos = idleTimeout.toNanos();
+        this.renewals = new ThreadPoolExecutor(renewThreads, renewThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(RENEW_QUEUE_SIZE), daemon("cdb-rate-limit-lease"));
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(daemon("cdb-rate-limit-lease-sweeper"));
+    }
+
+    /**
+     * Schedules the idle-lease sweep, twice per idle timeout.
+     */
+    public void start() {
+        long period = Math.max(1, TimeUnit.NANOSECONDS.toMillis(idleNanos) / 2);
+        sweeper.scheduleWithFixedDelay(this::sweep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(String key, RateLimitRule rule) {
+        long now = System.nanoTime();
+        Lease lease = leases.get(key);
+        if (lease == null || !lease.hasShape(rule)) {
+            lease = leaseFor(key, rule, now);
+        }
+        lease.touch(now);
+        if (lease.degraded) {
+            renewIfDue(key, lease, now);
+            return fallback.tryAcquire(key, rule);
+        }
+        long left = lease.take();
+        if (left < 0) {
+            renewIfDue(key, lease, now);
+            long retryAfter = Math.max(lease.intervalNanos, lease.nextRenewAt - now);
+            return new RateLimitDecision(false, lease.limit, 0, lease.windowNanos, retryAfter);
+        }
+        if (left < lease.lowWatermark) {
+            renewIfDue(key, lease, now);
+        }
+        return new RateLimitDecision(true, lease.limit, left, lease.windowNanos, 0);
+    }
+
+    public int size() {
+        return leases.size();
+    }
+
+    private Lease leaseFor(String key, RateLimitRule rule, long now) {
+        Lease lease = leases.compute(key, (k, existing) -> existing != null && existing.hasShape(rule)
+                ? existing : new Lease(rule, leaseSize, now));
+        renewIfDue(key, lease, now);
+        return lease;
+    }
+
+    private void renewIfDue(String key, Lease lease, long now) {
+        if (now - lease.nextRenewAt >= 0 && lease.renewing.compareAndSet(false, true)) {
+            try {
+                renewals.execute(() -> renew(key, lease));
+            } catch (RejectedExecutionException e) {
+                lease.renewing.set(false);
+            }
+        }
+    }
+
+    private void renew(String key, Lease lease) {
+        try {
+            long wanted = lease.size + lease.debt;
+            long granted = store.acquire(key, wanted, lease.rule);
+            long repaid = Math.min(granted, lease.debt);
+            lease.debt -= repaid;
+            if (granted > repaid) {
+                lease.available.addAndGet(granted - repaid);
+            }
+            lease.degraded = false;
+            long now = System.nanoTime();
+            lease.nextRenewAt = granted < wanted ? now + lease.intervalNanos * Math.max(1, lease.size / 2) : now;
+        } catch (Exception e) {
+            if (!lease.degraded) {
+                log.warn("Token lease renewal failed for {}: {}; using per-node limits until the store recovers",
+                        key, e.getMessage());
+            }
+            lease.degraded = true;
+            lease.nextRenewAt = System.nanoTime() + STORE_RETRY_NANOS;
+        } finally {
+            lease.renewing.set(false);
+        }
+    }
+
+    void sweep() {
+        try {
+            long now = System.nanoTime();
+            leases.values().removeIf(lease -> now - lease.lastUsed >= idleNanos
+                    && !lease.renewing.get() && lease.debt == 0);
+        } catch (Exception e) {
+            log.warn("Token lease sweep failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+        renewals.shutdownNow();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static final class Lease {
+        final RateLimitRule rule;
+        final long limit;
+        final long windowSeconds;
+        final long windowNanos;
+        final long intervalNanos;
+        final long size;
+        final long lowWatermark;
+        final AtomicLong available;
+        final AtomicBoolean renewing = new AtomicBoolean();
+        volatile long debt; // written only by the thread holding renewing
+        volatile long nextRenewAt;
+        volatile boolean degraded;
+        volatile long lastUsed;
+
+        Lease(RateLimitRule rule, long configuredSize, long now) {
+            this.rule = rule;
+            this.limit = rule.getLimit();
+            this.windowSeconds = rule.getWindowSeconds();
+            this.windowNanos = TimeUnit.SECONDS.toNanos(windowSeconds);
+            this.intervalNanos = Math.max(1, windowNanos / Math.max(1, limit));
+            this.size = configuredSize > 0 ? Math.min(configuredSize, limit) : Math.max(1, limit / 10);
+            this.lowWatermark = (size + 1) / 2;
+            this.available = new AtomicLong(size);
+            this.debt = size;
+            this.nextRenewAt = now;
+            this.lastUsed = now;
+        }
+
+        boolean hasShape(RateLimitRule other) {
+            return limit == other.getLimit() && windowSeconds == other.getWindowSeconds();
+        }
+
+        /** @return tokens left after taking one, or -1 if the lease is empty */
+        long take() {
+            while (true) {
+                long v = available.get();
+                if (v <= 0) {
+                    return -1;
+                }
+                if (available.compareAndSet(v, v - 1)) {
+                    return v - 1;
+                }
+            }
+        }
+
+        void touch(long now) {
+            if (now - lastUsed > TOUCH_NANOS) {
+                lastUsed = now;
+            }
+        }
+    }
+}
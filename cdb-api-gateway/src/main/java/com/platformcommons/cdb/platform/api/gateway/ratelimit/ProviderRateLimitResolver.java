@@ -0,0 +1,107 @@
+package com.platformcommons.cdb.platform.api.gateway.ratelimit;
+
+import com.platformcommons.cdb.platform.api.gateway.model.RateLimitRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps per-provider rate limits ({@code ProviderEnvironment.rateLimit}, requests per second) as
+ * published by provider-registry at {@code /api/provider-environments/rate-limits}.
+ * <p>
+ * Same model as the security library's JWKS and token dictionary resolvers: rules sit behind a
+ * volatile reference that the request path only reads, and a daemon thread re-fetches them every
+ * refresh interval, keeping the previous rules if a fetch fails. The HTTP call therefore never
+ * runs on an event-loop thread.
+ * </p>
+ *
+ * Configuration (see RateLimitingConfig):
+ * - cdb.gateway.security.rate-limiting.provider-limits.uri
+ * - cdb.gateway.security.rate-limiting.provider-limits.refresh-interval (seconds, default 60)
+ * - cdb.gateway.security.rate-limiting.provider-limits.timeout-ms (default 2000)
+ */
+public class ProviderRateLimitResolver implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ProviderRateLimitResolver.class);
+    private static final ParameterizedTypeReference<Map<String, Integer>> LIMITS_TYPE = new ParameterizedTypeReference<>() {
+    };
+
+    private final String limitsUri;
+    private final Duration refreshInterval;
+    private final RestTemplate restTemplate;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Map<String, RateLimitRule> rules = Map.of();
+
+    public ProviderRateLimitResolver(String limitsUri, Duration refreshInterval, long timeoutMs) {
+        this.limitsUri = limitsUri;
+        this.refreshInterval = refreshInterval;
+        SimpleClientHttpRequestFactory rf = new SimpleClientHttpRequestFactory();
+        rf.setConnectTimeout((int) timeoutMs);
+        rf.setReadTimeout((int) timeoutMs);
+        this.restTemplate = new RestTemplate(rf);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cdb-provider-rate-limit-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Schedules the first load right away and background refreshes after it. Loading is not done
+     * inline so gateway startup does not wait on (or fail with) provider-registry; until the first
+     * load completes every provider gets the default limit.
+     */
+    public void start() {
+        long period = refreshInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the provider's rule, or null when it has no limit of its own
+     */
+    public RateLimitRule ruleFor(String providerCode) {
+        return providerCode == null ? null : rules.get(providerCode);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    void refresh() {
+        try {
+            Map<String, Integer> limits = restTemplate.exchange(limitsUri, HttpMethod.GET, null, LIMITS_TYPE).getBody();
+            if (limits != null) {
+                rules = toRules(limits, rules);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to refresh provider rate limits from {}: {}; keeping {} rule(s)",
+                    limitsUri, e.getMessage(), rules.size());
+        }
+    }
+
+    /**
+     * Unchanged rules are carried over as the same instances.
+     */
+    private static Map<String, RateLimitRule> toRules(Map<String, Integer> limits, Map<String, RateLimitRule> previous) {
+        Map<String, RateLimitRule> next = new HashMap<>(limits.size() * 2);
+        limits.forEach((code, limit) -> {
+            if (code == null || limit == null || limit <= 0) return;
+            RateLimitRule old = previous.get(code);
+            next.put(code, old != null && old.getLimit() == limit ? old
+                    : RateLimitRule.builder().key(code).limit(limit).windowSeconds(1).build());
+        });
+        return Map.copyOf(next);
+    }
+}
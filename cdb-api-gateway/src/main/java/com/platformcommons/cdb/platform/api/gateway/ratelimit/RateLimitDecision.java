@@ -0,0 +1,13 @@
+package com.platformcommons.cdb.platform.api.gateway.ratelimit;
+
+/**
+ * Outcome of one rate limit check, with what the RateLimit-* and Retry-After headers report.
+ *
+ * @param allowed          whether the request may proceed
+ * @param limit            bucket capacity (requests per window)
+ * @param remaining        tokens left after this request
+ * @param resetNanos       time until the bucket is full again
+ * @param retryAfterNanos  time until the next token, when refused; 0 when allowed
+ */
+public record RateLimitDecision(boolean allowed, long limit, long remaining, long resetNanos, long retryAfterNanos) {
+}
@@ -0,0 +1,65 @@
+package com.platformcommons.cdb.platform.api.gateway.ratelimit;
+
+import com.platformcommons.cdb.security.auth.CDBContextAuthentication;
+import com.platformcommons.cdb.security.context.CDBContext;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.Principal;
+
+/**
+ * Picks the identity a request is counted against, first match wins:
+ * - the provider code from the verified token (all of a provider's users share its limit),
+ * - the name of any other authenticated principal (e.g. one set by an API-key authenticator
+ *   after validating the key),
+ * - the client IP (the connection's remote address; set server.forward-headers-strategy when the
+ *   gateway sits behind a trusted proxy so that this reflects X-Forwarded-For).
+ * Keys are prefixed by kind so that, say, a user id can never collide with a provider code.
+ * Nothing the client sends unverified (such as a raw API key header) selects the bucket: a fresh
+ * value per request would get a full bucket each time and defeat the per-IP limit on public
+ * paths like login.
+ */
+public class RateLimitKeyResolver {
+
+    /**
+     * @param key          bucket key
+     * @param providerCode provider the request is made for, or null; selects the provider's limit
+     */
+    public record RateLimitKey(String key, String providerCode) {
+    }
+
+    private static final RateLimitKey UNKNOWN = new RateLimitKey("ip:unknown", null);
+
+    /**
+     * @param principal the exchange principal (a {@link CDBContextAuthentication} once the
+     *                  ReactiveAuthFilter has verified the token, or another authenticated
+     *                  principal), or null
+     */
+    public RateLimitKey resolve(ServerWebExchange exchange, Principal principal) {
+        if (principal instanceof CDBContextAuthentication authentication) {
+            CDBContext context = authentication.getContext();
+            CDBContext.ProviderContext provider = context == null ? null : context.getProvider();
+            if (provider != null && provider.getCode() != null) {
+                return new RateLimitKey("provider:" + provider.getCode(), provider.getCode());
+            }
+            CDBContext.UserContext user = context == null ? null : context.getUser();
+            if (user != null && user.getId() != null) {
+                return new RateLimitKey("user:" + user.getId(), null);
+            }
+        } else if (principal instanceof Authentication other && other.isAuthenticated()
+                && !(other instanceof AnonymousAuthenticationToken) && other.getName() != null) {
+            return new RateLimitKey("principal:" + other.getName(), null);
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        InetSocketAddress remote = request.getRemoteAddress();
+        if (remote == null) {
+            return UNKNOWN;
+        }
+        InetAddress address = remote.getAddress();
+        return new RateLimitKey("ip:" + (address != null ? address.getHostAddress() : remote.getHostString()), null);
+    }
+}
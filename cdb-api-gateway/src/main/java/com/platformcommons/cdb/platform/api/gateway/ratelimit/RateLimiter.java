@@ -0,0 +1,17 @@
+package com.platformcommons.cdb.platform.api.gateway.ratelimit;
+
+import com.platformcommons.cdb.platform.api.gateway.model.RateLimitRule;
+
+/**
+ * Admission check used by RateLimitingFilter. Implementations are called on event-loop threads
+ * and must not block: {@link TokenBucketRateLimiter} limits per gateway node,
+ * {@link LeasedRateLimiter} across all nodes sharing a {@link TokenLeaseStore}.
+ */
+public interface RateLimiter {
+
+    /**
+     * Takes one token from {@code key}'s budget, shaped by {@code rule} (limit requests per
+     * windowSeconds).
+     */
+    RateLimitDecision tryAcquire(String key, RateLimitRule rule);
+}
@@ -0,0 +1,124 @@
+package com.platformcommons.cdb.platform.api.gateway.ratelimit;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Token bucket of {@code capacity} tokens refilled at {@code capacity} per window, kept as a single
+ * long so that refill and take are one compare-and-set.
+ * <p>
+ * The state is the "theoretical arrival time" (TAT) form of the bucket: instead of a token count
+ * plus a last-refill timestamp, it stores the instant at which the bucket will be full again.
+ * Taking a token pushes that instant one emission interval (window / capacity) into the future;
+ * a take is refused when it would push it more than one window ahead of now. Tokens left are
+ * {@code (window - (tat - now)) / interval}, so refill needs no separate step and no lock, and a
+ * bucket whose TAT is in the past is full, i.e. indistinguishable from a new one.
+ * </p>
+ */
+public final class TokenBucket {
+
+    private static final VarHandle TAT;
+
+    static {
+        try {
+            TAT = MethodHandles.lookup().findVarHandle(TokenBucket.class, "tat", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long capacity;
+    private final long intervalNanos;
+    private final long windowNanos;
+
+    @SuppressWarnings("unused") // accessed through TAT
+    private volatile long tat;
+
+    /**
+     * @param capacity    tokens per window, also the burst size; at least 1
+     * @param windowNanos refill window
+     * @param now         current {@link System#nanoTime()}; the bucket starts full
+     */
+    public TokenBucket(long capacity, long windowNanos, long now) {
+        if (capacity < 1 || windowNanos < 1) {
+            throw new IllegalArgumentException("capacity and window must be positive");
+        }
+        this.capacity = capacity;
+        this.intervalNanos = Math.max(1, windowNanos / capacity);
+        this.windowNanos = intervalNanos * capacity;
+        this.tat = now;
+    }
+
+    /**
+     * Takes one token.
+     *
+     * @param now current {@link System#nanoTime()}
+     * @return tokens left (&ge; 0) if one was taken, otherwise minus the nanoseconds until one
+     *         will be available (&lt; 0)
+     */
+    public long tryAcquire(long now) {
+        while (true) {
+            long current = (long) TAT.getVolatile(this);
+            long next = (current - now > 0 ? current : now) + intervalNanos;
+            long ahead = next - now;
+            if (ahead > windowNanos) {
+                return -(ahead - windowNanos);
+            }
+            if (TAT.compareAndSet(this, current, next)) {
+                return (windowNanos - ahead) / intervalNanos;
+            }
+        }
+    }
+
+    /**
+     * Takes as many tokens as are available, up to {@code permits}.
+     *
+     * @param now current {@link System#nanoTime()}
+     * @return tokens taken, 0 if the bucket is empty
+     */
+    public long tryAcquireUpTo(long permits, long now) {
+        while (true) {
+            long current = (long) TAT.getVolatile(this);
+            long base = current - now > 0 ? current : now;
+            long available = (windowNanos - (base - now)) / intervalNanos;
+            if (available <= 0 || permits <= 0) {
+                return 0;
+            }
+            long granted = Math.min(permits, available);
+            if (TAT.compareAndSet(this, current, base + granted * intervalNanos)) {
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * @return nanoseconds until the bucket is full again (0 if it is full)
+     */
+    public long nanosUntilFull(long now) {
+        long ahead = (long) TAT.getVolatile(this) - now;
+        return ahead > 0 ? ahead : 0;
+    }
+
+    /**
+     * @return true if the bucket has been full for at least {@code idleNanos}
+     */
+    public boolean isIdle(long now, long idleNanos) {
+        return now - (long) TAT.getVolatile(this) >= idleNanos;
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    public long windowNanos() {
+        return windowNanos;
+    }
+
+    public long intervalNanos() {
+        return intervalNanos;
+    }
+
+    boolean hasShape(long capacity, long windowNanos) {
+        return this.capacity == capacity && this.intervalNanos == Math.max(1, windowNanos / capacity);
+    }
+}
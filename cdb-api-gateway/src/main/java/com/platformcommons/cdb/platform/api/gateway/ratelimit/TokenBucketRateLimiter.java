@@ -0,0 +1,117 @@
+package com.platformcommons.cdb.platform.api.gateway.ratelimit;
+
+import com.platformcommons.cdb.platform.api.gateway.model.RateLimitRule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-key {@link TokenBucket}s in a ConcurrentHashMap. A check is one map read and one CAS on the
+ * key's bucket; no locks are taken and nothing blocks, so it is safe on Netty event-loop threads.
+ * <p>
+ * Buckets that have been full for the idle timeout are dropped by a daemon sweeper; since a full
+ * bucket carries no state, dropping it is lossless (a request racing the removal may spend one
+ * token from the dropped bucket). If the map grows past max-keys, e.g. under a spray of client
+ * IPs, the sweep drops every full bucket regardless of idle time. A key whose rule changes (a
+ * provider's limit was edited) gets a fresh bucket with the new shape.
+ * </p>
+ *
+ * Configuration (see RateLimitingConfig):
+ * - cdb.gateway.security.rate-limiting.idle-timeout (seconds, default 300)
+ * - cdb.gateway.security.rate-limiting.max-keys (default 100000)
+ */
+public class TokenBucketRateLimiter implements RateLimiter, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenBucketRateLimiter.class);
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final long idleNanos;
+    private final int maxKeys;
+    private final ScheduledExecutorService sweeper;
+
+    public TokenBucketRateLimiter(Duration idleTimeout, int maxKeys) {
+        this.idleNanos = idleTimeout.toNanos();
+        this.maxKeys = maxKeys;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cdb-rate-limit-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Schedules the idle-bucket sweep, twice per idle timeout.
+     */
+    public void start() {
+        long period = Math.max(1, TimeUnit.NANOSECONDS.toMillis(idleNanos) / 2);
+        sweeper.scheduleWithFixedDelay(this::sweep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(String key, RateLimitRule rule) {
+        return tryAcquire(key, rule.getLimit(), TimeUnit.SECONDS.toNanos(rule.getWindowSeconds()), System.nanoTime());
+    }
+
+    RateLimitDecision tryAcquire(String key, long limit, long windowNanos, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null || !bucket.hasShape(limit, windowNanos)) {
+            bucket = bucketFor(key, limit, windowNanos, now);
+        }
+        long result = bucket.tryAcquire(now);
+        if (result >= 0) {
+            return new RateLimitDecision(true, limit, result, bucket.nanosUntilFull(now), 0);
+        }
+        return new RateLimitDecision(false, limit, 0, bucket.nanosUntilFull(now), -result);
+    }
+
+    /**
+     * Takes up to {@code permits} tokens at once from {@code key}'s bucket; used by
+     * {@link InMemoryTokenLeaseStore} to hand out leases.
+     *
+     * @return tokens taken, 0 if the bucket is empty
+     */
+    public long tryAcquireUpTo(String key, long permits, RateLimitRule rule) {
+        long windowNanos = TimeUnit.SECONDS.toNanos(rule.getWindowSeconds());
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null || !bucket.hasShape(rule.getLimit(), windowNanos)) {
+            bucket = bucketFor(key, rule.getLimit(), windowNanos, now);
+        }
+        return bucket.tryAcquireUpTo(permits, now);
+    }
+
+    private TokenBucket bucketFor(String key, long limit, long windowNanos, long now) {
+        return buckets.compute(key, (k, existing) -> existing != null && existing.hasShape(limit, windowNanos)
+                ? existing : new TokenBucket(limit, windowNanos, now));
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    void sweep() {
+        try {
+            long now = System.nanoTime();
+            long idle = buckets.size() > maxKeys ? 0 : idleNanos;
+            Iterator<TokenBucket> it = buckets.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().isIdle(now, idle)) {
+                    it.remove();
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Rate limit bucket sweep failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+    }
+}
@@ -0,0 +1,24 @@
+package com.platformcommons.cdb.platform.api.gateway.ratelimit;
+
+import com.platformcommons.cdb.platform.api.gateway.model.RateLimitRule;
+
+/**
+ * Shared, cluster-wide token budget that gateway nodes lease blocks of tokens from
+ * ({@link LeasedRateLimiter}). Each key has one global bucket shaped by its rule; a lease takes up
+ * to the requested number of tokens from it atomically.
+ * <p>
+ * Only called from LeasedRateLimiter's renewal threads, never on the request path, so
+ * implementations may block on network I/O (e.g. a Redis script or a database row update).
+ * Failures should be thrown; the limiter then falls back to per-node limits for the key.
+ * </p>
+ */
+public interface TokenLeaseStore {
+
+    /**
+     * @param key    bucket key, as produced by RateLimitKeyResolver
+     * @param tokens tokens wanted
+     * @param rule   global limit for the key (limit requests per windowSeconds, across all nodes)
+     * @return tokens granted, between 0 and {@code tokens}
+     */
+    long acquire(String key, long tokens, RateLimitRule rule);
+}
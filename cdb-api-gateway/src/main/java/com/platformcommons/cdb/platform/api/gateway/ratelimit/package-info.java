@@ -0,0 +1,5 @@
+/**
+ * Gateway rate limiting: lock-free token buckets, request key resolution and per-provider limits
+ * from provider-registry. Applied by the RateLimitingFilter.
+ */
+package com.platformcommons.cdb.platform.api.gateway.ratelimit;
@@ -0,0 +1,15 @@
+package com.platformcommons.cdb.platform.api.gateway.resilience;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * A call refused by an open circuit breaker; answered with 503 unless ResilienceFilter retries
+ * it on another instance.
+ */
+public class CallNotPermittedException extends ResponseStatusException {
+
+    public CallNotPermittedException(String breaker) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Circuit breaker " + breaker + " is open");
+    }
+}
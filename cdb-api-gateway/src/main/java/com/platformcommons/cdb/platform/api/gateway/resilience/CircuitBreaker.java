@@ -0,0 +1,199 @@
+package com.platformcommons.cdb.platform.api.gateway.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circuit breaker for one upstream instance, over a count-based sliding window of recent calls.
+ * <p>
+ * - CLOSED: calls pass; once the window holds minimum-calls results and either the failure rate
+ *   or the slow-call rate reaches its threshold, the breaker opens.
+ * - OPEN: calls are refused without touching the instance until open-duration has passed.
+ * - HALF_OPEN: half-open-calls probe calls are let through; their failure and slow-call rates
+ *   decide between closing and opening again.
+ * Transitions and window updates are short critical sections on the breaker's monitor; the state
+ * itself is also published in a volatile field so monitoring and load-balancer checks do not
+ * lock.
+ * </p>
+ */
+public final class CircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    /**
+     * @param failureRateThreshold  percentage of failed calls that opens the breaker
+     * @param slowCallRateThreshold percentage of calls slower than slowCallNanos that opens it
+     */
+    public record Settings(int windowSize, int minimumCalls, int failureRateThreshold, int slowCallRateThreshold,
+                           long slowCallNanos, long openNanos, int halfOpenCalls) {
+
+        public static Settings of(int windowSize, int minimumCalls, int failureRateThreshold, int slowCallRateThreshold,
+                                  Duration slowCallDuration, Duration openDuration, int halfOpenCalls) {
+            int window = Math.max(1, windowSize);
+            return new Settings(window, Math.max(1, Math.min(minimumCalls, window)), failureRateThreshold,
+                    slowCallRateThreshold, slowCallDuration.toNanos(), openDuration.toNanos(),
+                    Math.max(1, Math.min(halfOpenCalls, window)));
+        }
+
+        public static Settings defaults() {
+            return of(50, 20, 50, 80, Duration.ofSeconds(5), Duration.ofSeconds(30), 5);
+        }
+    }
+
+    /**
+     * Point-in-time view for metrics and the actuator endpoint; rates are percentages of the
+     * calls in the window, or -1 while there are fewer than minimum-calls.
+     */
+    public record Snapshot(State state, float failureRate, float slowCallRate, int bufferedCalls,
+                           long notPermittedCalls, long openedCount) {
+    }
+
+    private final String name;
+    private final Settings settings;
+
+    // Ring buffer of outcomes, guarded by this
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+    private int probesLeft;
+    private volatile long openUntil;
+
+    private volatile State state = State.CLOSED;
+    private final LongAdder notPermitted = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+
+    public CircuitBreaker(String name, Settings settings) {
+        this.name = name;
+        this.settings = settings;
+        this.failed = new boolean[settings.windowSize()];
+        this.slow = new boolean[settings.windowSize()];
+    }
+
+    /**
+     * Asks to make a call. Every permitted call must be followed by {@link #onResult} or
+     * {@link #release}.
+     *
+     * @return false if the breaker is open (or out of half-open probes)
+     */
+    public boolean tryAcquire(long now) {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN && now - openUntil >= 0) {
+                transition(State.HALF_OPEN, now);
+            }
+            if (state == State.CLOSED) {
+                return true;
+            }
+            if (state == State.HALF_OPEN && probesLeft > 0) {
+                probesLeft--;
+                return true;
+            }
+        }
+        notPermitted.increment();
+        return false;
+    }
+
+    /**
+     * @return whether {@link #tryAcquire} could currently succeed, without taking a probe slot
+     */
+    public boolean isCallPermitted(long now) {
+        State current = state;
+        return current == State.CLOSED || current == State.HALF_OPEN || now - openUntil >= 0;
+    }
+
+    /**
+     * Records the outcome of a permitted call.
+     */
+    public void onResult(boolean failure, long durationNanos, long now) {
+        boolean slowCall = durationNanos >= settings.slowCallNanos();
+        synchronized (this) {
+            if (state == State.OPEN) {
+                return; // started before the breaker opened
+            }
+            record(failure, slowCall);
+            if (state == State.CLOSED) {
+                if (calls >= settings.minimumCalls() && overThreshold()) {
+                    transition(State.OPEN, now);
+                }
+            } else if (calls >= settings.halfOpenCalls()) {
+                transition(overThreshold() ? State.OPEN : State.CLOSED, now);
+            }
+        }
+    }
+
+    /**
+     * Gives back a permitted call that was abandoned (e.g. the client went away) without an
+     * outcome.
+     */
+    public void release() {
+        if (state == State.HALF_OPEN) {
+            synchronized (this) {
+                if (state == State.HALF_OPEN && probesLeft + calls < settings.halfOpenCalls()) {
+                    probesLeft++;
+                }
+            }
+        }
+    }
+
+    public State state() {
+        return state;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public synchronized Snapshot snapshot() {
+        boolean enough = calls >= (state == State.HALF_OPEN ? settings.halfOpenCalls() : settings.minimumCalls());
+        float failureRate = enough ? 100f * failures / calls : -1;
+        float slowCallRate = enough ? 100f * slowCalls / calls : -1;
+        return new Snapshot(state, failureRate, slowCallRate, calls, notPermitted.sum(), opened.sum());
+    }
+
+    private void record(boolean failure, boolean slowCall) {
+        int size = failed.length;
+        if (calls == size) {
+            if (failed[next]) failures--;
+            if (slow[next]) slowCalls--;
+        } else {
+            calls++;
+        }
+        failed[next] = failure;
+        slow[next] = slowCall;
+        if (failure) failures++;
+        if (slowCall) slowCalls++;
+        next = (next + 1) % size;
+    }
+
+    private boolean overThreshold() {
+        return failures * 100L >= (long) settings.failureRateThreshold() * calls
+                || slowCalls * 100L >= (long) settings.slowCallRateThreshold() * calls;
+    }
+
+    private void transition(State to, long now) {
+        State from = state;
+        if (to == State.OPEN) {
+            log.warn("Circuit breaker {} {} -> OPEN ({} of {} calls failed, {} slow)", name, from, failures, calls, slowCalls);
+            openUntil = now + settings.openNanos();
+            opened.increment();
+        } else {
+            log.info("Circuit breaker {} {} -> {}", name, from, to);
+        }
+        probesLeft = to == State.HALF_OPEN ? settings.halfOpenCalls() : 0;
+        next = 0;
+        calls = 0;
+        failures = 0;
+        slowCalls = 0;
+        state = to;
+    }
+}
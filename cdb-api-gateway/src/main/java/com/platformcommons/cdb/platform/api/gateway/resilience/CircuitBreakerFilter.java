@@ -0,0 +1,85 @@
+package com.platformcommons.cdb.platform.api.gateway.resilience;
+
+import com.platformcommons.cdb.platform.api.gateway.loadbalancer.LatencyAwareLoadBalancer;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.URI;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Guards each upstream instance with its {@link CircuitBreaker}. Runs after the load balancer
+ * has picked the instance (or, for plain-URL routes, on the route's host and port), refuses the
+ * attempt with {@link CallNotPermittedException} while the breaker is open, and records the
+ * outcome otherwise: errors, attempts abandoned on timeout and 5xx responses count as failures,
+ * and the duration feeds the slow-call rate. A cancelled attempt that did not time out (client
+ * gone) gives its permit back.
+ */
+public class CircuitBreakerFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 2;
+
+    private final CircuitBreakerRegistry registry;
+
+    public CircuitBreakerFilter(CircuitBreakerRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        CircuitBreaker breaker = breakerFor(exchange);
+        if (breaker == null) {
+            return chain.filter(exchange);
+        }
+        long start = System.nanoTime();
+        if (!breaker.tryAcquire(start)) {
+            return Mono.error(new CallNotPermittedException(breaker.name()));
+        }
+        return chain.filter(exchange).doFinally(signal -> {
+            long now = System.nanoTime();
+            if (signal == SignalType.CANCEL) {
+                if (exchange.getAttribute(ResilienceFilter.ATTEMPT_TIMED_OUT_ATTR) != null) {
+                    breaker.onResult(true, now - start, now);
+                } else {
+                    breaker.release();
+                }
+            } else if (signal == SignalType.ON_ERROR) {
+                breaker.onResult(true, now - start, now);
+            } else {
+                HttpStatusCode status = exchange.getResponse().getStatusCode();
+                breaker.onResult(status != null && status.is5xxServerError(), now - start, now);
+            }
+        });
+    }
+
+    private CircuitBreaker breakerFor(ServerWebExchange exchange) {
+        Response<ServiceInstance> picked = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (picked != null && picked.hasServer()) {
+            ServiceInstance instance = picked.getServer();
+            return registry.breaker(instance.getServiceId(), LatencyAwareLoadBalancer.key(instance));
+        }
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        URI url = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        if (route == null || url == null || url.getHost() == null) {
+            return null;
+        }
+        return registry.breaker(route.getId(), url.getHost() + ':' + url.getPort());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
@@ -0,0 +1,121 @@
+package com.platformcommons.cdb.platform.api.gateway.resilience;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The gateway's circuit breakers, one per upstream instance (keyed by service and instance), and
+ * retry budgets, one per route. Each breaker and budget is published to Micrometer when first
+ * used:
+ * - {@value #STATE_GAUGE} (0 closed, 1 half-open, 2 open), {@value #FAILURE_RATE_GAUGE},
+ *   {@value #SLOW_CALL_RATE_GAUGE} and {@value #NOT_PERMITTED_COUNTER}, tagged service and
+ *   instance
+ * - {@value #RETRIES_COUNTER}, tagged route and outcome (granted or refused)
+ */
+public class CircuitBreakerRegistry {
+
+    public static final String STATE_GAUGE = "cdb.gateway.circuit-breaker.state";
+    public static final String FAILURE_RATE_GAUGE = "cdb.gateway.circuit-breaker.failure-rate";
+    public static final String SLOW_CALL_RATE_GAUGE = "cdb.gateway.circuit-breaker.slow-call-rate";
+    public static final String NOT_PERMITTED_COUNTER = "cdb.gateway.circuit-breaker.not-permitted";
+    public static final String RETRIES_COUNTER = "cdb.gateway.retries";
+
+    private final CircuitBreaker.Settings breakerSettings;
+    private final double retryRatio;
+    private final int minRetriesPerSecond;
+    private final int retryWindowSeconds;
+    private final MeterRegistry meters; // may be null
+
+    // service -> instance -> breaker; nested so lookups on the request path build no keys
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, CircuitBreaker>> breakers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, RetryBudget> budgets = new ConcurrentHashMap<>();
+
+    public CircuitBreakerRegistry(CircuitBreaker.Settings breakerSettings, double retryRatio, int minRetriesPerSecond,
+                                  int retryWindowSeconds, MeterRegistry meters) {
+        this.breakerSettings = breakerSettings;
+        this.retryRatio = retryRatio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+        this.retryWindowSeconds = retryWindowSeconds;
+        this.meters = meters;
+    }
+
+    /**
+     * @param serviceId service (or route, for plain URLs) the instance belongs to
+     * @param instance  instance id or host:port
+     */
+    public CircuitBreaker breaker(String serviceId, String instance) {
+        ConcurrentHashMap<String, CircuitBreaker> service = breakers.get(serviceId);
+        if (service == null) {
+            service = breakers.computeIfAbsent(serviceId, id -> new ConcurrentHashMap<>());
+        }
+        CircuitBreaker breaker = service.get(instance);
+        return breaker != null ? breaker : service.computeIfAbsent(instance, i -> register(serviceId, i));
+    }
+
+    /**
+     * @return false only if the instance's breaker exists and is open, for the load balancer to
+     * steer around it
+     */
+    public boolean isCallPermitted(String serviceId, String instance, long now) {
+        ConcurrentHashMap<String, CircuitBreaker> service = breakers.get(serviceId);
+        CircuitBreaker breaker = service == null ? null : service.get(instance);
+        return breaker == null || breaker.isCallPermitted(now);
+    }
+
+    public RetryBudget retryBudget(String routeId) {
+        RetryBudget budget = budgets.get(routeId);
+        return budget != null ? budget : budgets.computeIfAbsent(routeId, this::register);
+    }
+
+    /**
+     * @return all breakers by name ({@code service/instance}), sorted
+     */
+    public Map<String, CircuitBreaker> breakers() {
+        Map<String, CircuitBreaker> all = new TreeMap<>();
+        breakers.values().forEach(service -> service.values().forEach(b -> all.put(b.name(), b)));
+        return all;
+    }
+
+    public Map<String, RetryBudget> retryBudgets() {
+        return Collections.unmodifiableMap(budgets);
+    }
+
+    private CircuitBreaker register(String serviceId, String instance) {
+        CircuitBreaker breaker = new CircuitBreaker(serviceId + '/' + instance, breakerSettings);
+        if (meters != null) {
+            Tags tags = Tags.of("service", serviceId, "instance", instance);
+            Gauge.builder(STATE_GAUGE, breaker, b -> b.state().ordinal())
+                    .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+                    .tags(tags).register(meters);
+            Gauge.builder(FAILURE_RATE_GAUGE, breaker, b -> b.snapshot().failureRate())
+                    .description("Percentage of failed calls in the breaker window (-1 until enough calls)")
+                    .tags(tags).register(meters);
+            Gauge.builder(SLOW_CALL_RATE_GAUGE, breaker, b -> b.snapshot().slowCallRate())
+                    .description("Percentage of slow calls in the breaker window (-1 until enough calls)")
+                    .tags(tags).register(meters);
+            FunctionCounter.builder(NOT_PERMITTED_COUNTER, breaker, b -> b.snapshot().notPermittedCalls())
+                    .description("Calls refused by an open circuit breaker")
+                    .tags(tags).register(meters);
+        }
+        return breaker;
+    }
+
+    private RetryBudget register(String routeId) {
+        RetryBudget budget = new RetryBudget(retryRatio, minRetriesPerSecond, retryWindowSeconds);
+        if (meters != null) {
+            FunctionCounter.builder(RETRIES_COUNTER, budget, RetryBudget::grantedRetries)
+                    .description("Retries of failed upstream attempts, by whether the retry budget allowed them")
+                    .tags("route", routeId, "outcome", "granted").register(meters);
+            FunctionCounter.builder(RETRIES_COUNTER, budget, RetryBudget::refusedRetries)
+                    .tags("route", routeId, "outcome", "refused").register(meters);
+        }
+        return budget;
+    }
+}
@@ -0,0 +1,38 @@
+package com.platformcommons.cdb.platform.api.gateway.resilience;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@code /actuator/circuitbreakers}: state and window rates of every instance breaker, and the
+ * retries granted and refused by each route's retry budget, as seen by this gateway node.
+ */
+@Endpoint(id = "circuitbreakers")
+public class CircuitBreakersEndpoint {
+
+    private final CircuitBreakerRegistry registry;
+
+    public CircuitBreakersEndpoint(CircuitBreakerRegistry registry) {
+        this.registry = registry;
+    }
+
+    public record RetryBudgetSnapshot(long grantedRetries, long refusedRetries) {
+    }
+
+    @ReadOperation
+    public Map<String, Object> circuitBreakers() {
+        Map<String, CircuitBreaker.Snapshot> breakers = new LinkedHashMap<>();
+        registry.breakers().forEach((name, breaker) -> breakers.put(name, breaker.snapshot()));
+        Map<String, RetryBudgetSnapshot> budgets = new TreeMap<>();
+        registry.retryBudgets().forEach((route, budget) ->
+                budgets.put(route, new RetryBudgetSnapshot(budget.grantedRetries(), budget.refusedRetries())));
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("circuitBreakers", breakers);
+        body.put("retryBudgets", budgets);
+        return body;
+    }
+}
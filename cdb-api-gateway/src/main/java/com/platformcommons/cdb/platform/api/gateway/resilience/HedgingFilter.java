@@ -0,0 +1,452 @@
+package com.platformcommons.cdb.platform.api.gateway.resilience;
+
+import com.platformcommons.cdb.platform.api.gateway.filter.DetachedExchange;
+import com.platformcommons.cdb.platform.api.gateway.loadbalancer.LatencyAwareLoadBalancer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.netty.Connection;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Hedged requests for latency-sensitive read routes. A route opts in with the metadata key
+ * {@value #HEDGE_METADATA}{@code : true} (and may set its own {@value #PERCENTILE_METADATA}, read
+ * once per route when the routes are loaded; an invalid value is logged and the default used).
+ * <p>
+ * When the first attempt has not received its upstream status and headers within the route's
+ * recent percentile latency (p95 by default), a second attempt is sent, to another instance where
+ * there is one. Whichever responds first is used and the other is cancelled, so a GC pause or a
+ * slow node on one replica no longer shows up in the route's tail latency. Hedging applies to the
+ * same requests as retries (GET, HEAD and OPTIONS without a body, see
+ * {@link ResilienceFilter#isReplayable}), and each hedge is taken from a per-route budget (a
+ * {@link RetryBudget}) so hedges stay a bounded fraction of the route's traffic even when the
+ * whole service slows down.
+ * </p>
+ * <p>
+ * The attempts run on {@link DetachedExchange}s, so each has its own routing state; the winner's
+ * attributes (among them the upstream connection) and response status and headers are then
+ * adopted by the exchange, and ResponseWriteFilter streams its body. The filter runs just before
+ * the load balancer, so each attempt picks its instance and goes through CircuitBreakerFilter on
+ * its own; a cancelled loser counts as neither success nor failure there, while the load balancer
+ * takes its elapsed time as a latency sample (see {@link #OVERTAKEN_ATTR}).
+ * </p>
+ * Published per route: {@value #HEDGES_COUNTER} (outcome sent, refused by the budget, or won by
+ * the hedge) and {@value #DELAY_GAUGE} (current hedge delay, in milliseconds).
+ *
+ * Configuration (see ResilienceConfig):
+ * - cdb.gateway.resilience.hedging.percentile (default 95)
+ * - cdb.gateway.resilience.hedging.initial-delay-ms (until a route has 100 samples, default 100)
+ * - cdb.gateway.resilience.hedging.min-delay-ms (default 5)
+ * - cdb.gateway.resilience.hedging.max-ratio (hedges per request, default 0.1)
+ * - cdb.gateway.resilience.hedging.min-per-second (default 1)
+ * - cdb.gateway.resilience.hedging.window (seconds, for the latency samples and the budget, default 10)
+ */
+public class HedgingFilter implements GlobalFilter, Ordered, ApplicationListener<RefreshRoutesResultEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(HedgingFilter.class);
+
+    public static final int ORDER = ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+
+    public static final String HEDGE_METADATA = "hedge";
+    public static final String PERCENTILE_METADATA = "hedge-percentile";
+
+    /** Set on an attempt cancelled because the other one answered first. */
+    public static final String OVERTAKEN_ATTR = HedgingFilter.class.getName() + ".overtaken";
+
+    public static final String HEDGES_COUNTER = "cdb.gateway.hedges";
+    public static final String DELAY_GAUGE = "cdb.gateway.hedge.delay";
+
+    private static final int MIN_SAMPLES = 100;
+
+    private final double defaultPercentile;
+    private final long initialDelayNanos;
+    private final long minDelayNanos;
+    private final double maxRatio;
+    private final int minPerSecond;
+    private final int windowSeconds;
+    private final MeterRegistry meters; // may be null
+    private final ConcurrentHashMap<String, RouteHedging> routes = new ConcurrentHashMap<>();
+
+    public HedgingFilter(double defaultPercentile, Duration initialDelay, Duration minDelay, double maxRatio,
+                         int minPerSecond, int windowSeconds, MeterRegistry meters) {
+        this.defaultPercentile = defaultPercentile;
+        this.initialDelayNanos = initialDelay.toNanos();
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxRatio = maxRatio;
+        this.minPerSecond = minPerSecond;
+        this.windowSeconds = Math.max(1, windowSeconds);
+        this.meters = meters;
+    }
+
+    @Override
+    public void onApplicationEvent(RefreshRoutesResultEvent event) {
+        if (event.isSuccess() && event.getSource() instanceof RouteLocator locator) {
+            locator.getRoutes()
+                    .filter(route -> isEnabled(route.getMetadata().get(HEDGE_METADATA)))
+                    .subscribe(this::hedgingFor);
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route == null || !isEnabled(route.getMetadata().get(HEDGE_METADATA))
+                || !ResilienceFilter.isReplayable(exchange.getRequest())) {
+            return chain.filter(exchange);
+        }
+        RouteHedging hedging = hedgingFor(route);
+        long now = System.nanoTime();
+        hedging.budget.onRequest(now);
+        return Mono.create(sink -> new Hedge(exchange, chain, hedging, sink).start(hedging.delayNanos(now)));
+    }
+
+    private static boolean isEnabled(Object value) {
+        return value != null && Boolean.parseBoolean(value.toString().trim());
+    }
+
+    private RouteHedging hedgingFor(Route route) {
+        RouteHedging hedging = routes.get(route.getId());
+        if (hedging != null && hedging.route == route) {
+            return hedging;
+        }
+        double percentile = percentile(route);
+        if (hedging == null) {
+            return routes.computeIfAbsent(route.getId(), id -> register(new RouteHedging(route, percentile, null)));
+        }
+        // Routes are rebuilt on refresh: keep the samples and budget, re-read the metadata
+        RouteHedging refreshed = new RouteHedging(route, percentile, hedging);
+        routes.put(route.getId(), refreshed);
+        return refreshed;
+    }
+
+    private double percentile(Route route) {
+        Object value = route.getMetadata().get(PERCENTILE_METADATA);
+        if (value == null) {
+            return defaultPercentile;
+        }
+        try {
+            double percentile = Double.parseDouble(value.toString().trim());
+            if (percentile > 0 && percentile <= 100) {
+                return percentile;
+            }
+        } catch (NumberFormatException e) {
+            // logged below
+        }
+        log.warn("Route {}: invalid {} '{}', using {}", route.getId(), PERCENTILE_METADATA, value, defaultPercentile);
+        return defaultPercentile;
+    }
+
+    private RouteHedging register(RouteHedging hedging) {
+        if (meters != null) {
+            String routeId = hedging.route.getId();
+            FunctionCounter.builder(HEDGES_COUNTER, hedging.budget, RetryBudget::grantedRetries)
+                    .description("Hedged upstream attempts, by whether the hedge budget allowed them and which won")
+                    .tags("route", routeId, "outcome", "sent").register(meters);
+            FunctionCounter.builder(HEDGES_COUNTER, hedging.budget, RetryBudget::refusedRetries)
+                    .tags("route", routeId, "outcome", "refused").register(meters);
+            FunctionCounter.builder(HEDGES_COUNTER, hedging.won, LongAdder::sum)
+                    .tags("route", routeId, "outcome", "won").register(meters);
+            // Looked up by id, so the gauge follows the route across refreshes
+            Gauge.builder(DELAY_GAUGE, routes, all -> {
+                        RouteHedging current = all.get(routeId);
+                        return current == null ? Double.NaN
+                                : current.delayNanos(System.nanoTime()) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+                    })
+                    .description("Delay after which a request on the route is hedged, in milliseconds")
+                    .tags("route", routeId).register(meters);
+        }
+        return hedging;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * Per-route samples, budget and settings.
+     */
+    private final class RouteHedging {
+
+        final Route route;
+        final double percentile;
+        final LatencyHistogram latencies;
+        final RetryBudget budget;
+        final LongAdder won;
+
+        RouteHedging(Route route, double percentile, RouteHedging previous) {
+            this.route = route;
+            this.percentile = percentile;
+            this.latencies = previous != null ? previous.latencies
+                    : new LatencyHistogram(TimeUnit.SECONDS.toNanos(windowSeconds), MIN_SAMPLES, System.nanoTime());
+            this.budget = previous != null ? previous.budget : new RetryBudget(maxRatio, minPerSecond, windowSeconds);
+            this.won = previous != null ? previous.won : new LongAdder();
+        }
+
+        long delayNanos(long now) {
+            long observed = latencies.percentile(percentile, now);
+            return observed < 0 ? initialDelayNanos : Math.max(minDelayNanos, observed);
+        }
+    }
+
+    /**
+     * One hedged request: up to two attempts racing for the response.
+     */
+    private static final class Hedge {
+
+        private final ServerWebExchange exchange;
+        private final GatewayFilterChain chain;
+        private final RouteHedging hedging;
+        private final MonoSink<Void> sink;
+        private final DetachedExchange[] attempts = new DetachedExchange[2];
+        private final long[] started = new long[2];
+        private final Disposable.Swap[] subscriptions = {Disposables.swap(), Disposables.swap()};
+        private final Disposable.Swap timer = Disposables.swap();
+
+        // Guarded by this
+        private int running;
+        private int winner = -1;
+        private boolean failed;
+
+        Hedge(ServerWebExchange exchange, GatewayFilterChain chain, RouteHedging hedging, MonoSink<Void> sink) {
+            this.exchange = exchange;
+            this.chain = chain;
+            this.hedging = hedging;
+            this.sink = sink;
+        }
+
+        void start(long delayNanos) {
+            sink.onCancel(this::cancel);
+            launch(0);
+            timer.update(Mono.delay(Duration.ofNanos(delayNanos)).subscribe(tick -> hedge()));
+        }
+
+        private void hedge() {
+            synchronized (this) {
+                if (winner >= 0 || failed || running == 0) {
+                    return;
+                }
+            }
+            if (!hedging.budget.tryRetry(System.nanoTime())) {
+                return;
+            }
+            launch(1);
+        }
+
+        private void launch(int i) {
+            ServerHttpRequest request = ResilienceFilter.withoutBody(exchange.getRequest());
+            DetachedExchange attempt = new DetachedExchange(exchange, request,
+                    new AttemptResponse(exchange.getResponse(), () -> claim(i)));
+            if (i == 1 && attempts[0] != null) {
+                Response<ServiceInstance> first = attempts[0].getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+                if (first != null && first.hasServer()) {
+                    attempt.getAttributes().put(LatencyAwareLoadBalancer.AVOID_INSTANCE_ATTR,
+                            LatencyAwareLoadBalancer.key(first.getServer()));
+                }
+            }
+            synchronized (this) {
+                if (winner >= 0 || failed) {
+                    return;
+                }
+                attempts[i] = attempt;
+                running++;
+            }
+            started[i] = System.nanoTime();
+            subscriptions[i].update(chain.filter(attempt).subscribe(null, e -> onError(i, e), () -> onComplete(i)));
+        }
+
+        private void onComplete(int i) {
+            if (claim(i)) {
+                sink.success();
+            } else {
+                // Lost the race after all: nobody will read this response
+                Connection connection = (Connection) attempts[i].getAttributes().remove(CLIENT_RESPONSE_CONN_ATTR);
+                if (connection != null) {
+                    connection.dispose();
+                }
+            }
+        }
+
+        private void onError(int i, Throwable e) {
+            synchronized (this) {
+                running--;
+                if ((winner >= 0 && winner != i) || failed) {
+                    return; // a lost attempt, already cancelled
+                }
+                if (winner < 0 && running > 0) {
+                    return; // the other attempt may still answer
+                }
+                // Nobody left to answer, or the winner failed while writing its response
+                failed = true;
+            }
+            timer.dispose();
+            sink.error(e);
+        }
+
+        /**
+         * Makes attempt {@code i} the winner if there is none yet.
+         *
+         * @return whether {@code i} is the winner
+         */
+        private boolean claim(int i) {
+            int other = 1 - i;
+            DetachedExchange loser;
+            synchronized (this) {
+                if (winner >= 0 || failed) {
+                    return winner == i;
+                }
+                winner = i;
+                loser = attempts[other];
+            }
+            long now = System.nanoTime();
+            timer.dispose();
+            if (loser != null) {
+                loser.getAttributes().put(OVERTAKEN_ATTR, Boolean.TRUE);
+            }
+            subscriptions[other].dispose();
+            hedging.latencies.record(now - started[i], now);
+            if (i == 1) {
+                hedging.won.increment();
+                // The first attempt took at least this long; leaving it out would drag the percentile down
+                hedging.latencies.record(now - started[0], now);
+            }
+            adopt(attempts[i]);
+            return true;
+        }
+
+        private void adopt(DetachedExchange attempt) {
+            exchange.getAttributes().putAll(attempt.getAttributes());
+            exchange.getAttributes().remove(LatencyAwareLoadBalancer.AVOID_INSTANCE_ATTR);
+            AttemptResponse from = (AttemptResponse) attempt.getResponse();
+            ServerHttpResponse to = exchange.getResponse();
+            if (from.status != null) {
+                to.setStatusCode(from.status);
+            }
+            to.getHeaders().addAll(from.headers);
+            from.cookies.values().forEach(cookies -> cookies.forEach(to::addCookie));
+        }
+
+        private void cancel() {
+            // Tell the per-attempt filters whether this is a timeout (a failure) or the client leaving
+            boolean timedOut = exchange.getAttribute(ResilienceFilter.ATTEMPT_TIMED_OUT_ATTR) != null;
+            timer.dispose();
+            for (int i = 0; i < attempts.length; i++) {
+                DetachedExchange attempt;
+                synchronized (this) {
+                    attempt = attempts[i];
+                }
+                if (attempt != null && timedOut) {
+                    attempt.getAttributes().put(ResilienceFilter.ATTEMPT_TIMED_OUT_ATTR, Boolean.TRUE);
+                }
+                subscriptions[i].dispose();
+            }
+        }
+    }
+
+    /**
+     * Response of one attempt: status, headers and cookies are kept locally until the attempt
+     * wins. A body written by the chain itself (rather than proxied) claims the win on the spot.
+     */
+    private static final class AttemptResponse extends ServerHttpResponseDecorator {
+
+        private final Supplier<Boolean> claim;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final MultiValueMap<String, ResponseCookie> cookies = new LinkedMultiValueMap<>();
+        private HttpStatusCode status;
+
+        AttemptResponse(ServerHttpResponse delegate, Supplier<Boolean> claim) {
+            super(delegate);
+            this.claim = claim;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return claim.get() ? super.writeWith(body) : Flux.from(body).take(0).then();
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return claim.get() ? super.writeAndFlushWith(body) : Flux.from(body).take(0).then();
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return claim.get() ? super.setComplete() : Mono.empty();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public boolean setStatusCode(HttpStatusCode status) {
+            this.status = status;
+            return true;
+        }
+
+        @Override
+        @Deprecated
+        public boolean setRawStatusCode(Integer value) {
+            this.status = value == null ? null : HttpStatusCode.valueOf(value);
+            return true;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public MultiValueMap<String, ResponseCookie> getCookies() {
+            return cookies;
+        }
+
+        @Override
+        public void addCookie(ResponseCookie cookie) {
+            cookies.add(cookie.getName(), cookie);
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.platformcommons.cdb.platform.api.gateway.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Recent latency distribution of one route, for deriving percentile-based delays.
+ * <p>
+ * Latencies are counted in log-linear buckets (four per power of two of microseconds, so a
+ * reported percentile is at most 25% above the true value) over two rotating windows: the
+ * current one and the one before it, so the distribution follows the route's behaviour over the
+ * last one to two windows. Recording is a single atomic increment; percentiles are recomputed at
+ * most every {@value #RECOMPUTE_MILLIS} ms and served from a cached value in between. A record
+ * racing with a window rotation may land in the outgoing window, which is harmless here.
+ * </p>
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+    private static final long RECOMPUTE_MILLIS = 100;
+    private static final long RECOMPUTE_NANOS = TimeUnit.MILLISECONDS.toNanos(RECOMPUTE_MILLIS);
+
+    private final long windowNanos;
+    private final int minSamples;
+
+    private volatile AtomicLongArray current = new AtomicLongArray(BUCKETS);
+    private volatile AtomicLongArray previous = new AtomicLongArray(BUCKETS);
+    private final AtomicLong windowStart;
+
+    private volatile double cachedPercentile = Double.NaN;
+    private volatile long cachedNanos = -1;
+    private volatile long cachedAt;
+
+    /**
+     * @param windowNanos length of one window
+     * @param minSamples  samples needed across both windows before percentiles are reported
+     */
+    public LatencyHistogram(long windowNanos, int minSamples, long now) {
+        this.windowNanos = windowNanos;
+        this.minSamples = Math.max(1, minSamples);
+        this.windowStart = new AtomicLong(now);
+        this.cachedAt = now - RECOMPUTE_NANOS;
+    }
+
+    public void record(long latencyNanos, long now) {
+        rotate(now);
+        current.incrementAndGet(bucket(TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+    }
+
+    /**
+     * @param percentile e.g. 95
+     * @return the latency (nanoseconds, upper bound of its bucket) that the given percentage of
+     * recent samples did not exceed, or -1 while there are fewer than minSamples
+     */
+    public long percentile(double percentile, long now) {
+        if (percentile == cachedPercentile && now - cachedAt < RECOMPUTE_NANOS) {
+            return cachedNanos;
+        }
+        rotate(now);
+        AtomicLongArray a = current;
+        AtomicLongArray b = previous;
+        long total = 0;
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = a.get(i) + b.get(i);
+            total += counts[i];
+        }
+        long result = -1;
+        if (total >= minSamples) {
+            long rank = (long) Math.ceil(total * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    result = TimeUnit.MICROSECONDS.toNanos(upperBound(i));
+                    break;
+                }
+            }
+        }
+        cachedNanos = result;
+        cachedPercentile = percentile;
+        cachedAt = now;
+        return result;
+    }
+
+    private void rotate(long now) {
+        long start = windowStart.get();
+        if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+            // Skipping an idle window entirely drops both, as neither is recent any more
+            previous = now - start >= 2 * windowNanos ? new AtomicLongArray(BUCKETS) : current;
+            current = new AtomicLongArray(BUCKETS);
+        }
+    }
+
+    static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) Math.max(0, micros);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket + 1;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub + 1) << (exponent - SUB_BUCKET_BITS);
+    }
+}
@@ -0,0 +1,255 @@
+package com.platformcommons.cdb.platform.api.gateway.resilience;
+
+import com.platformcommons.cdb.platform.api.gateway.model.RouteConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Enforces each route's {@link RouteConfiguration#getTimeoutMs() timeout} and
+ * {@link RouteConfiguration#getRetryCount() retry count}, read from the route metadata keys
+ * {@value #TIMEOUT_METADATA} and {@value #RETRY_METADATA} (defaults below) once per route when
+ * the routes are loaded; an invalid value is logged and the default used.
+ * <p>
+ * - Timeout: an attempt whose upstream status and headers have not arrived within the timeout is
+ *   abandoned; without a retry the client gets 504. The body is written afterwards (by
+ *   ResponseWriteFilter, outside this filter), so a response that is already streaming is not
+ *   cut off.
+ * - Retries: only for GET, HEAD and OPTIONS requests without a body, and only before anything was
+ *   sent to the client; after I/O errors (connection refused or reset), timeouts, open circuit
+ *   breakers, and 502, 503 or 504 from upstream. Each retry is taken from the route's
+ *   {@link RetryBudget}, so retries stay a bounded fraction of traffic when an upstream is down.
+ * The filter runs just before the request URL is resolved, so every attempt goes through the
+ * load balancer again (and usually lands on another instance) and through CircuitBreakerFilter.
+ * WebSocket upgrades and forward: routes are passed through untouched.
+ * </p>
+ *
+ * Configuration (see ResilienceConfig):
+ * - cdb.gateway.resilience.timeout-ms (default 30000; 0 for none)
+ * - cdb.gateway.resilience.retry-count (default 1)
+ * - cdb.gateway.resilience.retry-budget.ratio (default 0.2)
+ * - cdb.gateway.resilience.retry-budget.min-per-second (default 10)
+ * - cdb.gateway.resilience.retry-budget.window (seconds, default 10)
+ */
+public class ResilienceFilter implements GlobalFilter, Ordered, ApplicationListener<RefreshRoutesResultEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(ResilienceFilter.class);
+
+    public static final int ORDER = RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER - 1;
+
+    public static final String TIMEOUT_METADATA = "timeout-ms";
+    public static final String RETRY_METADATA = "retry-count";
+
+    /**
+     * Exchange attribute set when an attempt is abandoned on its timeout, so the per-attempt
+     * filters that see the cancellation count it as a failure rather than a client going away.
+     */
+    public static final String ATTEMPT_TIMED_OUT_ATTR = ResilienceFilter.class.getName() + ".attemptTimedOut";
+
+    private static final Set<HttpMethod> RETRYABLE_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+
+    private final CircuitBreakerRegistry registry;
+    private final int defaultTimeoutMs;
+    private final int defaultRetryCount;
+    private final ConcurrentHashMap<String, Resolved> configurations = new ConcurrentHashMap<>();
+
+    private record Resolved(Route route, RouteConfiguration configuration) {
+    }
+
+    public ResilienceFilter(CircuitBreakerRegistry registry, int defaultTimeoutMs, int defaultRetryCount) {
+        this.registry = registry;
+        this.defaultTimeoutMs = defaultTimeoutMs;
+        this.defaultRetryCount = defaultRetryCount;
+    }
+
+    @Override
+    public void onApplicationEvent(RefreshRoutesResultEvent event) {
+        if (event.isSuccess() && event.getSource() instanceof RouteLocator routes) {
+            routes.getRoutes().subscribe(this::configurationFor);
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        ServerHttpRequest request = exchange.getRequest();
+        if (route == null || "forward".equals(route.getUri().getScheme())
+                || "websocket".equalsIgnoreCase(request.getHeaders().getUpgrade())) {
+            return chain.filter(exchange);
+        }
+        RouteConfiguration configuration = configurationFor(route);
+        RetryBudget budget = registry.retryBudget(route.getId());
+        budget.onRequest(System.nanoTime());
+        int retries = isReplayable(request) ? configuration.getRetryCount() : 0;
+        if (retries <= 0) {
+            return attempt(exchange, chain, configuration.getTimeoutMs(), budget, 0, null);
+        }
+        // The routing filter adds upstream headers to the response, so a retry starts over from these
+        HttpHeaders initialHeaders = new HttpHeaders();
+        initialHeaders.putAll(exchange.getResponse().getHeaders());
+        // The reactive request body Flux can only be subscribed once; there is nothing to send anyway
+        ServerWebExchange replayable = exchange.mutate().request(withoutBody(request)).build();
+        return attempt(replayable, chain, configuration.getTimeoutMs(), budget, retries, initialHeaders);
+    }
+
+    /**
+     * A request that may be sent again: idempotent and without a body.
+     */
+    public static boolean isReplayable(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        return RETRYABLE_METHODS.contains(request.getMethod())
+                && headers.getContentLength() <= 0 && !headers.containsKey(HttpHeaders.TRANSFER_ENCODING);
+    }
+
+    /**
+     * The request with an empty body, for routing a {@link #isReplayable replayable} request more
+     * than once.
+     */
+    public static ServerHttpRequest withoutBody(ServerHttpRequest request) {
+        return new ServerHttpRequestDecorator(request) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.empty();
+            }
+        };
+    }
+
+    private Mono<Void> attempt(ServerWebExchange exchange, GatewayFilterChain chain, int timeoutMs,
+                               RetryBudget budget, int retriesLeft, HttpHeaders initialHeaders) {
+        exchange.getAttributes().remove(ATTEMPT_TIMED_OUT_ATTR);
+        Mono<Void> result = chain.filter(exchange);
+        if (timeoutMs > 0) {
+            Mono<Long> timeout = Mono.delay(Duration.ofMillis(timeoutMs))
+                    .doOnNext(tick -> exchange.getAttributes().put(ATTEMPT_TIMED_OUT_ATTR, Boolean.TRUE));
+            result = result.timeout(timeout, Mono.error(() -> new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT,
+                    "Upstream did not respond within " + timeoutMs + " ms")));
+        }
+        if (retriesLeft <= 0) {
+            return result;
+        }
+        return result
+                .then(Mono.<Void>defer(() -> {
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    if (isRetryable(status) && !exchange.getResponse().isCommitted() && budget.tryRetry(System.nanoTime())) {
+                        discardUpstreamResponse(exchange);
+                        return Mono.error(new RetryableStatusException(status));
+                    }
+                    return Mono.empty();
+                }))
+                .onErrorResume(e -> {
+                    boolean retry = e instanceof RetryableStatusException
+                            || (isRetryable(e) && !exchange.getResponse().isCommitted() && budget.tryRetry(System.nanoTime()));
+                    if (!retry) {
+                        return Mono.error(e);
+                    }
+                    return Mono.defer(() -> {
+                        ServerWebExchangeUtils.reset(exchange);
+                        ServerHttpResponse response = exchange.getResponse();
+                        response.setStatusCode(null);
+                        response.getHeaders().clear();
+                        response.getHeaders().putAll(initialHeaders);
+                        return attempt(exchange, chain, timeoutMs, budget, retriesLeft - 1, initialHeaders);
+                    });
+                });
+    }
+
+    private static boolean isRetryable(HttpStatusCode status) {
+        if (status == null) {
+            return false;
+        }
+        int code = status.value();
+        return code == HttpStatus.BAD_GATEWAY.value() || code == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || code == HttpStatus.GATEWAY_TIMEOUT.value();
+    }
+
+    /**
+     * Drops the upstream response whose body would otherwise be written to the client.
+     */
+    private static void discardUpstreamResponse(ServerWebExchange exchange) {
+        Connection connection = (Connection) exchange.getAttributes().remove(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+        if (connection != null) {
+            connection.dispose();
+        }
+    }
+
+    private static boolean isRetryable(Throwable e) {
+        if (e instanceof CallNotPermittedException) {
+            return true;
+        }
+        if (e instanceof ResponseStatusException status) {
+            return status.getStatusCode().value() == HttpStatus.GATEWAY_TIMEOUT.value();
+        }
+        return e instanceof IOException || e.getCause() instanceof IOException;
+    }
+
+    private RouteConfiguration configurationFor(Route route) {
+        Resolved resolved = configurations.get(route.getId());
+        if (resolved == null || resolved.route() != route) {
+            // Routes are rebuilt on refresh, so a different instance means possibly new metadata
+            resolved = new Resolved(route, RouteConfiguration.builder()
+                    .id(route.getId())
+                    .timeoutMs(intMetadata(route, TIMEOUT_METADATA, defaultTimeoutMs))
+                    .retryCount(intMetadata(route, RETRY_METADATA, defaultRetryCount))
+                    .build());
+            configurations.put(route.getId(), resolved);
+        }
+        return resolved.configuration();
+    }
+
+    private static int intMetadata(Route route, String key, int defaultValue) {
+        Object value = route.getMetadata().get(key);
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            log.warn("Route {}: invalid {} '{}', using {}", route.getId(), key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * Upstream answered with a retryable status and the retry was granted; the response was
+     * dropped before reaching the client.
+     */
+    private static final class RetryableStatusException extends RuntimeException {
+        RetryableStatusException(HttpStatusCode status) {
+            super("Upstream answered " + status.value(), null, false, false);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.platformcommons.cdb.platform.api.gateway.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the retries of one route at a percentage of its live traffic, so that when an upstream
+ * fails, retries add at most that fraction of extra load instead of multiplying it.
+ * <p>
+ * Over a sliding window of one-second buckets, a retry is allowed while
+ * {@code retries < ratio * requests + min-per-second * window}; the fixed allowance keeps
+ * retries possible on routes with little traffic. Buckets are reused as time moves on, and a
+ * count racing with a bucket reset may be lost, which only makes the budget marginally more
+ * generous or strict for that second.
+ * </p>
+ */
+public final class RetryBudget {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double ratio;
+    private final long reserve;
+    private final int window;
+    private final AtomicLongArray epochs;
+    private final LongAdder[] requests;
+    private final LongAdder[] retries;
+    private final LongAdder granted = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+
+    /**
+     * @param ratio              retries allowed per request, e.g. 0.2 for 20%
+     * @param minRetriesPerSecond retries allowed regardless of traffic
+     * @param windowSeconds      length of the sliding window
+     */
+    public RetryBudget(double ratio, int minRetriesPerSecond, int windowSeconds) {
+        this.ratio = ratio;
+        this.window = Math.max(1, windowSeconds);
+        this.reserve = (long) minRetriesPerSecond * window;
+        this.epochs = new AtomicLongArray(window);
+        this.requests = new LongAdder[window];
+        this.retries = new LongAdder[window];
+        for (int i = 0; i < window; i++) {
+            epochs.set(i, Long.MIN_VALUE);
+            requests[i] = new LongAdder();
+            retries[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Counts a first attempt.
+     */
+    public void onRequest(long now) {
+        requests[bucket(now / SECOND)].increment();
+    }
+
+    /**
+     * Takes one retry from the budget.
+     *
+     * @return false if the route has used up its retries for the window
+     */
+    public boolean tryRetry(long now) {
+        long second = now / SECOND;
+        int current = bucket(second);
+        long requestSum = 0;
+        long retrySum = 0;
+        for (int i = 0; i < window; i++) {
+            if (second - epochs.get(i) < window) {
+                requestSum += requests[i].sum();
+                retrySum += retries[i].sum();
+            }
+        }
+        if (retrySum >= ratio * requestSum + reserve) {
+            refused.increment();
+            return false;
+        }
+        retries[current].increment();
+        granted.increment();
+        return true;
+    }
+
+    public long grantedRetries() {
+        return granted.sum();
+    }
+
+    public long refusedRetries() {
+        return refused.sum();
+    }
+
+    private int bucket(long second) {
+        int i = (int) Math.floorMod(second, (long) window);
+        long epoch = epochs.get(i);
+        if (epoch != second && epochs.compareAndSet(i, epoch, second)) {
+            requests[i].reset();
+            retries[i].reset();
+        }
+        return i;
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * Upstream resilience for the gateway: per-route timeouts and budgeted retries
+ * (ResilienceFilter), per-instance circuit breakers (CircuitBreakerFilter), hedged reads
+ * (HedgingFilter) and their metrics and actuator endpoint.
+ */
+package com.platformcommons.cdb.platform.api.gateway.resilience;
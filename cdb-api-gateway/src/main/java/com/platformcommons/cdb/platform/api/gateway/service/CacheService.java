@@ -1,45 +1,199 @@
 package com.platformcommons.cdb.platform.api.gateway.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.platformcommons.cdb.platform.api.gateway.cache.CachedBody;
+import com.platformcommons.cdb.platform.api.gateway.cache.CachedResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
-import java.time.Instant;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.Locale;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Simple in-memory cache service placeholder for gateway responses.
+ * Local response cache for the gateway, shared by all routes using the ResponseCache filter.
  * <p>
- * This is not suitable for production multi-node deployments. Replace with a
- * distributed cache (e.g., Redis) and proper cache invalidation strategies.
+ * - Bounded by total bytes (body plus headers, see {@link CachedResponse#weight()}) rather than
+ *   entry count, with Caffeine's W-TinyLFU policy: a new entry is only admitted over the
+ *   eviction victim if it is estimated to be used more often, so one-off scans cannot flush the
+ *   hot set.
+ * - Bodies are stored gzip-compressed when that makes them smaller (text-like content types
+ *   above a minimum size), on the heap or, with storage=direct, off heap where they add no GC
+ *   work; the weight counts the stored bytes either way, so max-bytes bounds off-heap use too.
+ * - Entries expire at the end of their stale-while-revalidate window; Caffeine removes them
+ *   during normal maintenance, not only when read.
+ * - Single-flight: the first miss (or stale hit) for a key leads a {@link Flight} and goes
+ *   upstream; concurrent misses for the key wait on it instead of calling upstream too.
+ * This is per gateway node; it is not a shared cache.
  * </p>
+ *
+ * Configuration:
+ * - cdb.gateway.cache.max-bytes (default 67108864, i.e. 64 MiB)
+ * - cdb.gateway.cache.max-entry-bytes (default 1048576; larger responses are not cached)
+ * - cdb.gateway.cache.compression (gzip or none, default gzip)
+ * - cdb.gateway.cache.compression-min-bytes (default 1024)
+ * - cdb.gateway.cache.storage (heap or direct, default heap)
  */
 @Service
 public class CacheService {
 
-    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    private final Cache<String, CachedResponse> cache;
+    private final ConcurrentHashMap<String, Sinks.One<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final int maxEntryBytes;
+    private final boolean compress;
+    private final int compressionMinBytes;
+    private final CachedBody.Storage storage;
+    private final AtomicLong directBytes = new AtomicLong();
 
-    public void put(String key, String payload, long ttlSeconds) {
-        cache.put(key, new CacheEntry(payload, Instant.now().plusSeconds(ttlSeconds)));
+    public CacheService(@Value("${cdb.gateway.cache.max-bytes:67108864}") long maxBytes,
+                        @Value("${cdb.gateway.cache.max-entry-bytes:1048576}") int maxEntryBytes,
+                        @Value("${cdb.gateway.cache.compression:gzip}") String compression,
+                        @Value("${cdb.gateway.cache.compression-min-bytes:1024}") int compressionMinBytes,
+                        @Value("${cdb.gateway.cache.storage:heap}") String storage) {
+        this.maxEntryBytes = maxEntryBytes;
+        this.compress = CachedBody.GZIP.equalsIgnoreCase(compression);
+        this.compressionMinBytes = compressionMinBytes;
+        this.storage = CachedBody.Storage.valueOf(storage.trim().toUpperCase(Locale.ROOT));
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedResponse value) -> key.length() * 2 + value.weight())
+                .expireAfter(new StaleExpiry())
+                .removalListener((String key, CachedResponse value, RemovalCause cause) -> {
+                    if (value != null && value.body().isDirect()) {
+                        directBytes.addAndGet(-value.body().storedLength());
+                    }
+                })
+                .recordStats()
+                .build();
     }
 
-    public Optional<String> get(String key) {
-        CacheEntry entry = cache.get(key);
-        if (entry == null) return Optional.empty();
-        if (Instant.now().isAfter(entry.expiresAt())) {
-            cache.remove(key);
-            return Optional.empty();
+    /**
+     * Converts a captured identity body to its stored form. Compressing is CPU work proportional
+     * to the body size; see {@link #compresses(int)}.
+     */
+    public CachedBody encode(byte[] body, MediaType contentType) {
+        return CachedBody.of(body, contentType, compress, compressionMinBytes, storage);
+    }
+
+    /**
+     * @return true if {@link #encode} would try to compress a body of {@code length} bytes
+     */
+    public boolean compresses(int length) {
+        return compress && length >= compressionMinBytes;
+    }
+
+    /**
+     * @return the entry (fresh or stale), or null
+     */
+    public CachedResponse get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(String key, CachedResponse response) {
+        if (response.body().length() <= maxEntryBytes) {
+            if (response.body().isDirect()) {
+                directBytes.addAndGet(response.body().storedLength());
+            }
+            cache.put(key, response);
         }
-        return Optional.ofNullable(entry.payload());
     }
 
     public void evict(String key) {
-        cache.remove(key);
+        cache.invalidate(key);
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
     }
 
-    private record CacheEntry(String payload, Instant expiresAt) {
-        @Override public boolean equals(Object o) { return this == o; }
-        @Override public int hashCode() { return Objects.hash(expiresAt); }
+    public int maxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    /**
+     * A claim on the upstream call for one key. The leader must finish it with
+     * {@link #complete}; followers wait on {@link #result()}.
+     */
+    public record Flight(Sinks.One<CachedResponse> sink, boolean leader) {
+
+        /**
+         * @return the leader's response, or empty if it produced nothing cacheable
+         */
+        public Mono<CachedResponse> result() {
+            return sink.asMono();
+        }
+    }
+
+    /**
+     * Joins the upstream call in flight for {@code key}, or becomes its leader if there is none.
+     */
+    public Flight join(String key) {
+        Sinks.One<CachedResponse> mine = Sinks.one();
+        Sinks.One<CachedResponse> running = inFlight.putIfAbsent(key, mine);
+        return running == null ? new Flight(mine, true) : new Flight(running, false);
+    }
+
+    /**
+     * Ends a leader's flight: stores the response (if any) and hands it to the waiting followers,
+     * or releases them empty-handed when {@code response} is null. Calling it again with null
+     * (e.g. from a doFinally after a normal completion) is a no-op.
+     */
+    public void complete(String key, Flight flight, CachedResponse response) {
+        if (response != null) {
+            put(key, response);
+        }
+        inFlight.remove(key, flight.sink());
+        if (response != null) {
+            flight.sink().tryEmitValue(response);
+        } else {
+            flight.sink().tryEmitEmpty();
+        }
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * @return the total weight of the cached entries (bounded by max-bytes)
+     */
+    public long weightedBytes() {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    /**
+     * @return the bytes of cached bodies held off heap (counted in {@link #weightedBytes()} too);
+     * the JVM frees them once evicted entries are no longer being served
+     */
+    public long directBytes() {
+        return directBytes.get();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static final class StaleExpiry implements Expiry<String, CachedResponse> {
+        @Override
+        public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+            return Math.max(0, value.staleUntilNanos() - System.nanoTime());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResponse value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResponse value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
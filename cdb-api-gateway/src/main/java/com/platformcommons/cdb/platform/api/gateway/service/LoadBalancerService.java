@@ -1,29 +1,37 @@
 package com.platformcommons.cdb.platform.api.gateway.service;
 
+import com.platformcommons.cdb.platform.api.gateway.loadbalancer.RouteBalancer;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
- * Simple client-side load balancer using round-robin strategy.
- * Replace with service discovery or external LB integration as needed.
+ * Client-side load balancer for callers that route by explicit instance URLs (the {@code lb://}
+ * gateway routes go through LatencyAwareLoadBalancer instead). Keeps one {@link RouteBalancer}
+ * per route, so a slow instance of one route does not affect picks for another.
  */
 @Service
 public class LoadBalancerService {
 
-    private final AtomicInteger counter = new AtomicInteger(0);
+    private final Map<String, RouteBalancer> balancers = new ConcurrentHashMap<>();
 
     /**
-     * Selects an instance from the provided list using round-robin.
+     * Selects an instance of a route by power-of-two-choices over latency and load. The caller
+     * must report the outcome through {@link RouteBalancer.Selection#complete} (or
+     * {@link RouteBalancer.Selection#release} if the call was abandoned).
+     *
+     * @param routeId   route the instances belong to
      * @param instances list of target instance base URLs
-     * @return selected instance URL or null if input list is empty
+     * @return the selection, or null if the list is empty
      */
-    public String chooseInstance(List<String> instances) {
+    public RouteBalancer.Selection<String> chooseInstance(String routeId, List<String> instances) {
         if (instances == null || instances.isEmpty()) {
             return null;
         }
-        int idx = Math.abs(counter.getAndIncrement() % instances.size());
-        return instances.get(idx);
+        return balancers.computeIfAbsent(routeId, id -> new RouteBalancer(id, RouteBalancer.Settings.defaults()))
+                .choose(instances, Function.identity());
     }
 }
@@ -1,41 +1,77 @@
 package com.platformcommons.cdb.platform.api.gateway.service;
 
+import com.platformcommons.cdb.platform.api.gateway.metrics.LatencyMetrics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
-import java.time.Instant;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Minimal monitoring/metrics collection service.
+ * Named counters and timings for gateway code outside the filter chain, exported through
+ * Micrometer.
  * <p>
- * For production use, integrate with Micrometer and a metrics backend
- * (Prometheus, Cloud Monitoring, etc.).
+ * Counters are striped {@link LongAdder}s published as function counters, so hot counters do not
+ * contend on a shared map entry; timings go to timers with the gateway's percentile and
+ * rolling-window settings (see {@link LatencyMetrics}), which carry the count and total time as
+ * well. Once a name has been used, incrementing or timing under it allocates nothing.
  * </p>
  */
 @Service
 public class MonitoringService {
 
-    private final Map<String, Long> counters = new ConcurrentHashMap<>();
+    private final MeterRegistry meters;
+    private final LatencyMetrics latencyMetrics;
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public MonitoringService(ObjectProvider<MeterRegistry> meterRegistry, LatencyMetrics latencyMetrics) {
+        this.meters = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+        this.latencyMetrics = latencyMetrics;
+    }
 
     public void increment(String metric) {
-        counters.merge(metric, 1L, Long::sum);
+        LongAdder counter = counters.get(metric);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(metric, name -> {
+                LongAdder adder = new LongAdder();
+                FunctionCounter.builder(name, adder, LongAdder::sum).register(meters);
+                return adder;
+            });
+        }
+        counter.increment();
     }
 
     public long counter(String metric) {
-        return counters.getOrDefault(metric, 0L);
+        LongAdder counter = counters.get(metric);
+        return counter == null ? 0 : counter.sum();
     }
 
+    /**
+     * Runs the task and records its duration under the given timer name.
+     *
+     * @return the duration in milliseconds
+     */
     public long time(String metric, Runnable runnable) {
-        Instant start = Instant.now();
+        long start = System.nanoTime();
+        long elapsed;
         try {
             runnable.run();
         } finally {
-            long ms = Duration.between(start, Instant.now()).toMillis();
-            counters.merge(metric + ".count", 1L, Long::sum);
-            counters.merge(metric + ".totalMs", ms, Long::sum);
+            elapsed = System.nanoTime() - start;
+            timer(metric).record(elapsed, TimeUnit.NANOSECONDS);
         }
-        return Duration.between(start, Instant.now()).toMillis();
+        return TimeUnit.NANOSECONDS.toMillis(elapsed);
+    }
+
+    private Timer timer(String metric) {
+        Timer timer = timers.get(metric);
+        return timer != null ? timer : timers.computeIfAbsent(metric, name -> latencyMetrics.timer(name, Tags.empty()));
     }
 }
@@ -0,0 +1,180 @@
+package com.platformcommons.cdb.platform.api.gateway.ratelimit;
+
+import com.platformcommons.cdb.platform.api.gateway.model.RateLimitRule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against {@link InMemoryTokenLeaseStore} with hour-long windows, so the global buckets do
+ * not noticeably refill while a test runs.
+ */
+class LeasedRateLimiterTest {
+
+    private static final int WINDOW_SECONDS = 3600;
+    private static final long LEASE_SIZE = 10;
+
+    private final List<AutoCloseable> closeables = new ArrayList<>();
+
+    @AfterEach
+    void close() throws Exception {
+        for (AutoCloseable closeable : closeables) {
+            closeable.close();
+        }
+    }
+
+    @Test
+    void admitsTheFirstLeaseOnCreditWhileTheStoreIsAsked() throws Exception {
+        CountDownLatch storeAnswers = new CountDownLatch(1);
+        InMemoryTokenLeaseStore backing = store();
+        LeasedRateLimiter limiter = limiter((key, tokens, rule) -> {
+            await(storeAnswers);
+            return backing.acquire(key, tokens, rule);
+        });
+        RateLimitRule rule = rule(1000);
+
+        for (int i = 0; i < LEASE_SIZE; i++) {
+            assertThat(limiter.tryAcquire("k", rule).allowed()).isTrue();
+        }
+        RateLimitDecision refused = limiter.tryAcquire("k", rule);
+        assertThat(refused.allowed()).isFalse();
+        assertThat(refused.retryAfterNanos()).isPositive();
+
+        storeAnswers.countDown();
+        assertThat(admitUntil(limiter, "k", rule, 2 * LEASE_SIZE)).isEqualTo(2 * LEASE_SIZE);
+    }
+
+    @Test
+    void renewsTheLeaseFromTheStoreAndRepaysTheCredit() {
+        AtomicLong granted = new AtomicLong();
+        InMemoryTokenLeaseStore backing = store();
+        LeasedRateLimiter limiter = limiter((key, tokens, rule) -> {
+            long n = backing.acquire(key, tokens, rule);
+            granted.addAndGet(n);
+            return n;
+        });
+        RateLimitRule rule = rule(1000);
+
+        long admitted = admitUntil(limiter, "k", rule, 100);
+
+        assertThat(admitted).isEqualTo(100);
+        // Everything admitted was paid for in the store, give or take one lease in flight
+        assertThat(granted.get() - admitted).isBetween(-LEASE_SIZE, 2 * LEASE_SIZE);
+    }
+
+    @Test
+    void clusterStaysWithinOneLeasePerNodeOfTheGlobalLimit() {
+        InMemoryTokenLeaseStore shared = store();
+        int nodes = 3;
+        List<LeasedRateLimiter> limiters = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            limiters.add(limiter(shared));
+        }
+        long limit = 200;
+        RateLimitRule rule = rule(limit);
+
+        long admitted = 0;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1500);
+        while (System.nanoTime() - deadline < 0) {
+            boolean any = false;
+            for (LeasedRateLimiter limiter : limiters) {
+                if (limiter.tryAcquire("k", rule).allowed()) {
+                    admitted++;
+                    any = true;
+                }
+            }
+            if (!any) {
+                sleep(1);
+            }
+        }
+
+        assertThat(admitted).isLessThanOrEqualTo(limit + nodes * LEASE_SIZE);
+        // Partial grants near exhaustion may strand up to a lease and a half per node
+        assertThat(admitted).isGreaterThanOrEqualTo(limit - nodes * (LEASE_SIZE + LEASE_SIZE / 2));
+    }
+
+    @Test
+    void fallsBackToPerNodeLimitsWhenTheStoreFails() {
+        CountDownLatch failed = new CountDownLatch(1);
+        TokenBucketRateLimiter fallback = new TokenBucketRateLimiter(Duration.ofMinutes(5), 1000);
+        closeables.add(fallback);
+        LeasedRateLimiter limiter = new LeasedRateLimiter((key, tokens, rule) -> {
+            failed.countDown();
+            throw new IllegalStateException("store down");
+        }, fallback, 1, Duration.ofMinutes(5), 1);
+        closeables.add(limiter);
+        RateLimitRule rule = rule(5);
+
+        assertThat(limiter.tryAcquire("k", rule).allowed()).isTrue(); // the credit
+        await(failed);
+        sleep(100);
+
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (limiter.tryAcquire("k", rule).allowed()) {
+                allowed++;
+            }
+        }
+        assertThat(allowed).isEqualTo(5);
+    }
+
+    private InMemoryTokenLeaseStore store() {
+        InMemoryTokenLeaseStore store = new InMemoryTokenLeaseStore(new TokenBucketRateLimiter(Duration.ofMinutes(5), 1000));
+        closeables.add(store);
+        return store;
+    }
+
+    private LeasedRateLimiter limiter(TokenLeaseStore store) {
+        TokenBucketRateLimiter fallback = new TokenBucketRateLimiter(Duration.ofMinutes(5), 1000);
+        LeasedRateLimiter limiter = new LeasedRateLimiter(store, fallback, LEASE_SIZE, Duration.ofMinutes(5), 2);
+        closeables.add(fallback);
+        closeables.add(limiter);
+        return limiter;
+    }
+
+    private static RateLimitRule rule(long limit) {
+        return RateLimitRule.builder().key("k").limit(limit).windowSeconds(WINDOW_SECONDS).build();
+    }
+
+    /**
+     * Keeps asking until {@code target} requests were admitted or five seconds have passed.
+     */
+    private static long admitUntil(LeasedRateLimiter limiter, String key, RateLimitRule rule, long target) {
+        long admitted = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (admitted < target && System.nanoTime() - deadline < 0) {
+            if (limiter.tryAcquire(key, rule).allowed()) {
+                admitted++;
+            } else {
+                sleep(1);
+            }
+        }
+        return admitted;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
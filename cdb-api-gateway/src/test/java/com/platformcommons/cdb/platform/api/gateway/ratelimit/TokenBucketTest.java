@@ -0,0 +1,117 @@
+package com.platformcommons.cdb.platform.api.gateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketTest {
+
+    private static final long WINDOW = TimeUnit.SECONDS.toNanos(1);
+    private static final long T0 = 1_000_000_000L;
+
+    @Test
+    void startsFullAndCountsDownToEmpty() {
+        TokenBucket bucket = new TokenBucket(10, WINDOW, T0);
+
+        for (long left = 9; left >= 0; left--) {
+            assertThat(bucket.tryAcquire(T0)).isEqualTo(left);
+        }
+        // Empty: the next token is one emission interval away
+        assertThat(bucket.tryAcquire(T0)).isEqualTo(-bucket.intervalNanos());
+        assertThat(bucket.nanosUntilFull(T0)).isEqualTo(WINDOW);
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        TokenBucket bucket = new TokenBucket(10, WINDOW, T0);
+        drain(bucket, T0);
+        long interval = bucket.intervalNanos();
+
+        assertThat(bucket.tryAcquire(T0 + interval - 1)).isEqualTo(-1);
+        assertThat(bucket.tryAcquire(T0 + interval)).isZero();
+        assertThat(bucket.tryAcquire(T0 + interval)).isNegative();
+        assertThat(bucket.tryAcquire(T0 + 3 * interval)).isEqualTo(1);
+    }
+
+    @Test
+    void neverHoldsMoreThanCapacityAfterIdling() {
+        TokenBucket bucket = new TokenBucket(5, WINDOW, T0);
+        long later = T0 + 100 * WINDOW;
+
+        assertThat(bucket.isIdle(later, 99 * WINDOW)).isTrue();
+        assertThat(drain(bucket, later)).isEqualTo(5);
+        assertThat(bucket.isIdle(later, 0)).isFalse();
+    }
+
+    @Test
+    void roundsTheWindowDownToWholeIntervals() {
+        TokenBucket bucket = new TokenBucket(3, 10, T0);
+
+        assertThat(bucket.intervalNanos()).isEqualTo(3);
+        assertThat(bucket.windowNanos()).isEqualTo(9);
+        assertThat(drain(bucket, T0)).isEqualTo(3);
+    }
+
+    @Test
+    void acquireUpToGrantsWhatIsAvailable() {
+        TokenBucket bucket = new TokenBucket(10, WINDOW, T0);
+
+        assertThat(bucket.tryAcquireUpTo(4, T0)).isEqualTo(4);
+        assertThat(bucket.tryAcquireUpTo(15, T0)).isEqualTo(6);
+        assertThat(bucket.tryAcquireUpTo(1, T0)).isZero();
+        assertThat(bucket.tryAcquireUpTo(15, T0 + 2 * bucket.intervalNanos())).isEqualTo(2);
+        assertThat(bucket.tryAcquireUpTo(0, T0 + WINDOW)).isZero();
+    }
+
+    @Test
+    void concurrentTakesNeverOverdraw() throws Exception {
+        TokenBucket bucket = new TokenBucket(1000, WINDOW, T0);
+        AtomicLong granted = new AtomicLong();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                pool.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < 500; i++) {
+                        if (bucket.tryAcquire(T0) >= 0) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            pool.shutdown();
+            assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        }
+        assertThat(granted.get()).isEqualTo(1000);
+    }
+
+    @Test
+    void rejectsEmptyShapes() {
+        assertThatThrownBy(() -> new TokenBucket(0, WINDOW, T0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucket(1, 0, T0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static long drain(TokenBucket bucket, long now) {
+        long taken = 0;
+        while (bucket.tryAcquire(now) >= 0) {
+            taken++;
+        }
+        return taken;
+    }
+}
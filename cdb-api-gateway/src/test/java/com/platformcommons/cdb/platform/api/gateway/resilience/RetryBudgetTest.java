@@ -0,0 +1,67 @@
+package com.platformcommons.cdb.platform.api.gateway.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryBudgetTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long T0 = 1_000 * SECOND;
+
+    @Test
+    void reserveAllowsRetriesWithoutTraffic() {
+        RetryBudget budget = new RetryBudget(0.2, 2, 10);
+
+        assertThat(retries(budget, T0, 30)).isEqualTo(20);
+        assertThat(budget.grantedRetries()).isEqualTo(20);
+        assertThat(budget.refusedRetries()).isEqualTo(10);
+    }
+
+    @Test
+    void retriesScaleWithRequests() {
+        RetryBudget budget = new RetryBudget(0.2, 0, 10);
+        for (int i = 0; i < 100; i++) {
+            budget.onRequest(T0);
+        }
+
+        assertThat(retries(budget, T0, 50)).isEqualTo(20);
+    }
+
+    @Test
+    void countsOnlyTheSlidingWindow() {
+        RetryBudget budget = new RetryBudget(0, 1, 10);
+        assertThat(retries(budget, T0, 20)).isEqualTo(10);
+
+        // Still inside the window of the retries above
+        assertThat(retries(budget, T0 + 9 * SECOND, 1)).isZero();
+        // Their second has left the window
+        assertThat(retries(budget, T0 + 10 * SECOND, 20)).isEqualTo(10);
+    }
+
+    @Test
+    void reusedBucketsStartFromZero() {
+        RetryBudget budget = new RetryBudget(0.5, 0, 2);
+        for (int i = 0; i < 10; i++) {
+            budget.onRequest(T0);
+        }
+        assertThat(retries(budget, T0, 10)).isEqualTo(5);
+
+        // Same bucket slot two seconds later: the old requests no longer count
+        budget.onRequest(T0 + 2 * SECOND);
+        budget.onRequest(T0 + 2 * SECOND);
+        assertThat(retries(budget, T0 + 2 * SECOND, 10)).isEqualTo(1);
+    }
+
+    private static int retries(RetryBudget budget, long now, int attempts) {
+        int granted = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (budget.tryRetry(now)) {
+                granted++;
+            }
+        }
+        return granted;
+    }
+}
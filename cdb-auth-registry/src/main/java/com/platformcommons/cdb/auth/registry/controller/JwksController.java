@@ -10,7 +10,8 @@ import java.util.Map;
 
 /**
  * Exposes the JWKS (JSON Web Key Set) endpoint for asymmetric JWT verification.
- * When RS256 is configured in JwtTokenService, this endpoint returns the public key in JWKS format.
+ * Returns the kid-tagged public key(s) configured in JwtTokenService (RS256, ES256 or EdDSA,
+ * plus a previous key during a migration) in JWKS format.
  * Location: /.well-known/jwks.json (also mapped to /jwks.json for convenience)
  */
 @RestController
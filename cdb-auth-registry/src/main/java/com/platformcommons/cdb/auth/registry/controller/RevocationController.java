@@ -0,0 +1,33 @@
+package com.platformcommons.cdb.auth.registry.controller;
+
+import com.platformcommons.cdb.auth.registry.service.TokenRevocationService;
+import com.platformcommons.cdb.security.auth.RevocationFeed;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Incremental revocation feed polled by RevocationFeedPoller in every service using AuthFilter.
+ * Returns revocations after {@code since} (ordered by sequence) whose tokens are still unexpired.
+ * Location: /api/v1/auth/revocations?since=N&limit=M (unauthenticated on this service only, via
+ * cdb.security.public-paths; the gateway does not route it)
+ */
+@RestController
+@RequestMapping("/api/v1/auth/revocations")
+public class RevocationController {
+
+    private final TokenRevocationService tokenRevocationService;
+
+    public RevocationController(TokenRevocationService tokenRevocationService) {
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<RevocationFeed> changesSince(@RequestParam(defaultValue = "0") long since,
+                                                       @RequestParam(defaultValue = "1000") int limit) {
+        return ResponseEntity.ok(tokenRevocationService.changesSince(since, limit));
+    }
+}
@@ -0,0 +1,31 @@
+package com.platformcommons.cdb.auth.registry.controller;
+
+import com.platformcommons.cdb.auth.registry.service.TokenDictionaryService;
+import com.platformcommons.cdb.security.jwt.TokenDictionary;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Role/authority id dictionary fetched by TokenDictionaryResolver in every service that accepts
+ * compact v2 access tokens.
+ * Location: /api/v1/auth/token-dictionary (unauthenticated on this service only, via
+ * cdb.security.public-paths; the gateway does not route it)
+ */
+@RestController
+@RequestMapping("/api/v1/auth/token-dictionary")
+public class TokenDictionaryController {
+
+    private final TokenDictionaryService tokenDictionaryService;
+
+    public TokenDictionaryController(TokenDictionaryService tokenDictionaryService) {
+        this.tokenDictionaryService = tokenDictionaryService;
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<TokenDictionary> dictionary() {
+        return ResponseEntity.ok(tokenDictionaryService.dictionary());
+    }
+}
@@ -0,0 +1,14 @@
+package com.platformcommons.cdb.auth.registry.repository;
+
+import com.platformcommons.cdb.auth.registry.model.RevokedToken;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+    List<RevokedToken> findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(Long since, Instant now, Pageable pageable);
+    boolean existsByJti(String jti);
+    void deleteByExpiresAtBefore(Instant expiry);
+}
@@ -33,12 +33,13 @@ public interface AuthenticationService {
     /**
      * Extract username from JWT token
      * @param token the JWT token
-     * @return username from token
+     * @return username from token, or null if the token is missing, invalid or expired
      */
     String getEmailFromToken(String token);
     
     /**
-     * Logout user and invalidate tokens
+     * Logout user and invalidate tokens. The access token's jti is revoked and published on
+     * the revocation feed, so every AuthFilter rejects it within one poll interval.
      * @param token the JWT token to invalidate
      */
     void logout(String token);
@@ -0,0 +1,17 @@
+package com.platformcommons.cdb.auth.registry.service;
+
+import com.platformcommons.cdb.security.jwt.TokenDictionary;
+
+/**
+ * Token Dictionary Service
+ *
+ * Publishes the role and authority master ids used by compact v2 access tokens, so every
+ * service can expand a token's id arrays back into codes.
+ */
+public interface TokenDictionaryService {
+
+    /**
+     * @return all role and authority ids with their codes
+     */
+    TokenDictionary dictionary();
+}
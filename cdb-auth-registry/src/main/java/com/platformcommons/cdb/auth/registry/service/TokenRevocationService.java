@@ -0,0 +1,27 @@
+package com.platformcommons.cdb.auth.registry.service;
+
+import com.platformcommons.cdb.security.auth.RevocationFeed;
+
+/**
+ * Token Revocation Service
+ *
+ * Records revoked access tokens by jti and publishes them as an incremental feed that
+ * every service's AuthFilter polls into its local revocation list.
+ */
+public interface TokenRevocationService {
+
+    /**
+     * Revoke an access token. Invalid or expired tokens, and tokens without a jti, are ignored.
+     * @param token the raw JWT
+     * @return true if a new revocation was recorded
+     */
+    boolean revoke(String token);
+
+    /**
+     * Revocations recorded after the given sequence whose tokens have not yet expired.
+     * @param since last sequence the caller has seen (0 for everything)
+     * @param limit maximum number of entries to return
+     * @return the next page of the feed
+     */
+    RevocationFeed changesSince(long since, int limit);
+}
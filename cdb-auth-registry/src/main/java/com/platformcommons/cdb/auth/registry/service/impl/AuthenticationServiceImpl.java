@@ -12,7 +12,10 @@ import com.platformcommons.cdb.auth.registry.repository.RoleMasterRepository;
 import com.platformcommons.cdb.auth.registry.repository.UserProviderMappingRepository;
 import com.platformcommons.cdb.auth.registry.repository.UserRepository;
 import com.platformcommons.cdb.auth.registry.service.AuthenticationService;
+import com.platformcommons.cdb.auth.registry.service.TokenRevocationService;
+import com.platformcommons.cdb.security.jwt.CompactClaims;
 import com.platformcommons.cdb.security.jwt.JwtTokenService;
+import com.platformcommons.cdb.security.jwt.JwtVerification;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -37,6 +40,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     private final RoleMasterRepository roleMasterRepository;
     private final AuthorityMasterRepository authorityMasterRepository;
     private final JwtTokenService jwtTokenService;
+    private final TokenRevocationService tokenRevocationService;
 
     private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(12);
     private final Map<String, TokenMeta> refreshTokens = new ConcurrentHashMap<>();
@@ -48,16 +52,25 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     @Value("${cdb.auth.jwt.refresh-ttl:864000}")
     private Long refreshTtl;
 
+    /**
+     * v1: nested ctx claim with role/authority codes; v2: compact claims with dictionary ids
+     * (see CompactClaims). Switch to v2 once every service has cdb.security.jwt.dictionary.uri.
+     */
+    @Value("${cdb.auth.jwt.token-format:v1}")
+    private String tokenFormat;
+
     public AuthenticationServiceImpl(UserRepository userRepository,
                                      UserProviderMappingRepository userProviderMappingRepository,
                                      RoleMasterRepository roleMasterRepository,
                                      AuthorityMasterRepository authorityMasterRepository,
-                                     JwtTokenService jwtTokenService) {
+                                     JwtTokenService jwtTokenService,
+                                     TokenRevocationService tokenRevocationService) {
         this.userRepository = userRepository;
         this.userProviderMappingRepository = userProviderMappingRepository;
         this.roleMasterRepository = roleMasterRepository;
         this.authorityMasterRepository = authorityMasterRepository;
         this.jwtTokenService = jwtTokenService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Override
@@ -74,8 +87,13 @@ public class AuthenticationServiceImpl implements AuthenticationService {
             throw new IllegalArgumentException("Invalid credentials");
         }
         // issue JWT access token
-        Map<String, Object> ctx = userContext(user);
-        String access = generateJwtTokenWithContext(email, user.getId(), ctx);
+        String access;
+        if (isCompactFormat()) {
+            access = jwtTokenService.generateCompact(email, accessTtl, CompactClaims.claims(email, user.getId(),
+                    user.getEmail(), null, null, null, null));
+        } else {
+            access = generateJwtTokenWithContext(email, user.getId(), userContext(user));
+        }
 
         return TokenResponse.builder()
                 .accessToken(access)
@@ -101,17 +119,13 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 
     @Override
     public String getEmailFromToken(String token) {
-        try {
-            return jwtTokenService.getSubject(token);
-        } catch (Exception e) {
-            return null;
-        }
+        return jwtTokenService.verify(token).subject();
     }
 
     @Override
     public void logout(String token) {
-        // For JWT, we'd typically add to a blacklist or use short expiry
-        // For now, just remove any associated refresh tokens
+        // Revoke the access token by jti; services pick it up from the revocation feed
+        tokenRevocationService.revoke(token);
         String username = getEmailFromToken(token);
         if (username != null) {
             refreshTokens.entrySet().removeIf(entry ->
@@ -129,10 +143,11 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         if (token != null && token.toLowerCase(Locale.ROOT).startsWith("bearer ")) {
             token = token.substring(7);
         }
-        if (token == null || !validateToken(token)) {
+        JwtVerification verification = jwtTokenService.verify(token);
+        if (!verification.isValid()) {
             throw new IllegalArgumentException("Invalid or missing access token");
         }
-        String username = getEmailFromToken(token);
+        String username = verification.subject();
         if (username == null) {
             throw new IllegalArgumentException("Invalid token subject");
         }
@@ -143,6 +158,10 @@ public class AuthenticationServiceImpl implements AuthenticationService {
                 .findByUserIdAndProviderCodeAndStatus(user.getId(), request.getProviderCode(), UserProviderMapping.MappingStatus.ACTIVE)
                 .orElseThrow(() -> new IllegalArgumentException("No active mapping for provider code"));
 
+        if (isCompactFormat()) {
+            return compactExecutiveContextToken(user, mapping);
+        }
+
         // Resolve role codes and authority codes from master tables. Unknown codes are ignored for minimal implementation.
         List<String> roleCodes = new ArrayList<>();
         List<String> authorityCodes =new ArrayList<>();
@@ -177,6 +196,38 @@ public class AuthenticationServiceImpl implements AuthenticationService {
                 .build();
     }
 
+    /**
+     * v2 executive context token: role and authority master ids instead of codes, no nested
+     * user context.
+     */
+    private TokenResponse compactExecutiveContextToken(User user, UserProviderMapping mapping) {
+        Set<Long> roleIds = new HashSet<>();
+        Set<Long> authorityIds = new HashSet<>();
+        if (mapping.getRoles() != null) {
+            for (RoleMaster roleMaster : mapping.getRoles()) {
+                roleIds.add(roleMaster.getId());
+                if (roleMaster.getAuthorities() != null) {
+                    for (AuthorityMaster authorityMaster : roleMaster.getAuthorities()) {
+                        authorityIds.add(authorityMaster.getId());
+                    }
+                }
+            }
+        }
+        String subject = user.getUsername();
+        String contextToken = jwtTokenService.generateCompact(subject, accessTtl, CompactClaims.claims(subject,
+                user.getId(), user.getEmail(), mapping.getProviderId(), mapping.getProviderCode(),
+                roleIds, authorityIds));
+        return TokenResponse.builder()
+                .accessToken(contextToken)
+                .tokenType("Bearer")
+                .expiresIn(accessTtl)
+                .build();
+    }
+
+    private boolean isCompactFormat() {
+        return "v2".equalsIgnoreCase(tokenFormat);
+    }
+
     private String generateJwtTokenWithContext(String email, Long userId,
                                                Map<String, Object> contextClaims) {
         Map<String, Object> extra = null;
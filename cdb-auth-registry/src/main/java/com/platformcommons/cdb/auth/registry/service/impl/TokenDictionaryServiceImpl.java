@@ -0,0 +1,79 @@
+package com.platformcommons.cdb.auth.registry.service.impl;
+
+import com.platformcommons.cdb.auth.registry.model.AuthorityMaster;
+import com.platformcommons.cdb.auth.registry.model.RoleMaster;
+import com.platformcommons.cdb.auth.registry.repository.AuthorityMasterRepository;
+import com.platformcommons.cdb.auth.registry.repository.RoleMasterRepository;
+import com.platformcommons.cdb.auth.registry.service.TokenDictionaryService;
+import com.platformcommons.cdb.security.jwt.TokenDictionary;
+import com.platformcommons.cdb.security.jwt.TokenDictionarySource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the token dictionary from role_master and authority_master. The last snapshot is kept
+ * in memory and also backs this service's own JwtTokenService, so verifying a v2 token here
+ * needs no query; it is reloaded on the first miss after min-refetch-interval, which is how
+ * roles and authorities created since the last load become visible.
+ */
+@Service
+public class TokenDictionaryServiceImpl implements TokenDictionaryService, TokenDictionarySource {
+
+    private final RoleMasterRepository roleMasterRepository;
+    private final AuthorityMasterRepository authorityMasterRepository;
+    private final long minRefetchNanos;
+
+    private volatile TokenDictionary snapshot;
+    private volatile long loadedAt;
+
+    public TokenDictionaryServiceImpl(RoleMasterRepository roleMasterRepository,
+                                      AuthorityMasterRepository authorityMasterRepository,
+                                      @Value("${cdb.security.jwt.dictionary.min-refetch-interval:30}") long minRefetchSeconds) {
+        this.roleMasterRepository = roleMasterRepository;
+        this.authorityMasterRepository = authorityMasterRepository;
+        this.minRefetchNanos = minRefetchSeconds * 1_000_000_000L;
+    }
+
+    @Override
+    public TokenDictionary dictionary() {
+        return load();
+    }
+
+    @Override
+    public TokenDictionary current() {
+        TokenDictionary current = snapshot;
+        return current != null ? current : loadOnce();
+    }
+
+    @Override
+    public synchronized TokenDictionary refreshForUnknownIds() {
+        TokenDictionary current = snapshot;
+        if (current != null && System.nanoTime() - loadedAt < minRefetchNanos) {
+            return current;
+        }
+        return load();
+    }
+
+    private synchronized TokenDictionary loadOnce() {
+        TokenDictionary current = snapshot;
+        return current != null ? current : load();
+    }
+
+    private TokenDictionary load() {
+        Map<Long, String> roles = new HashMap<>();
+        for (RoleMaster role : roleMasterRepository.findAll()) {
+            roles.put(role.getId(), role.getCode());
+        }
+        Map<Long, String> authorities = new HashMap<>();
+        for (AuthorityMaster authority : authorityMasterRepository.findAll()) {
+            authorities.put(authority.getId(), authority.getCode());
+        }
+        TokenDictionary loaded = new TokenDictionary(roles, authorities);
+        snapshot = loaded;
+        loadedAt = System.nanoTime();
+        return loaded;
+    }
+}
@@ -0,0 +1,92 @@
+package com.platformcommons.cdb.auth.registry.service.impl;
+
+import com.platformcommons.cdb.auth.registry.model.RevokedToken;
+import com.platformcommons.cdb.auth.registry.repository.RevokedTokenRepository;
+import com.platformcommons.cdb.auth.registry.service.TokenRevocationService;
+import com.platformcommons.cdb.security.auth.RevocationFeed;
+import com.platformcommons.cdb.security.auth.TokenRevocationList;
+import com.platformcommons.cdb.security.jwt.JwtTokenService;
+import com.platformcommons.cdb.security.jwt.JwtVerification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Persists revocations in revoked_tokens and serves them as a since-sequence feed. The sequence
+ * is the IDENTITY id, which commits out of order, so pollers re-read a window behind their last
+ * sequence (RevocationFeedPoller's overlap) rather than trusting {@code id > since} alone.
+ * Revocations also go straight into this service's own TokenRevocationList (when present),
+ * so auth-registry rejects a revoked token immediately instead of on its next poll.
+ */
+@Service
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+
+    static final int MAX_PAGE_SIZE = 5000;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final JwtTokenService jwtTokenService;
+    private final ObjectProvider<TokenRevocationList> localRevocationList;
+
+    public TokenRevocationServiceImpl(RevokedTokenRepository revokedTokenRepository,
+                                      JwtTokenService jwtTokenService,
+                                      ObjectProvider<TokenRevocationList> localRevocationList) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.jwtTokenService = jwtTokenService;
+        this.localRevocationList = localRevocationList;
+    }
+
+    @Override
+    @Transactional
+    public boolean revoke(String token) {
+        JwtVerification verification = jwtTokenService.verify(token);
+        String jti = verification.jwtId();
+        if (!verification.isValid() || jti == null || verification.expiresAt() == null) {
+            return false;
+        }
+        Instant now = Instant.now();
+        // Expired rows can no longer be replayed; logout is rare enough to purge inline
+        revokedTokenRepository.deleteByExpiresAtBefore(now);
+        if (revokedTokenRepository.existsByJti(jti)) {
+            return false;
+        }
+        revokedTokenRepository.save(RevokedToken.builder()
+                .jti(jti)
+                .userId(userId(verification))
+                .expiresAt(verification.expiresAt())
+                .revokedAt(now)
+                .build());
+        TokenRevocationList local = localRevocationList.getIfAvailable();
+        if (local != null) {
+            local.revoke(jti, verification.expiresAt().toEpochMilli());
+        }
+        return true;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public RevocationFeed changesSince(long since, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<RevokedToken> rows = revokedTokenRepository.findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(
+                Math.max(since, 0L), Instant.now(), PageRequest.of(0, pageSize));
+        long sequence = rows.isEmpty() ? Math.max(since, 0L) : rows.get(rows.size() - 1).getId();
+        List<RevocationFeed.Entry> entries = rows.stream()
+                .map(r -> new RevocationFeed.Entry(r.getId(), r.getJti(), r.getExpiresAt().getEpochSecond()))
+                .toList();
+        return new RevocationFeed(sequence, entries);
+    }
+
+    /**
+     * User id from the mapped context (v1 ctx or v2 uid), else the legacy userId claim.
+     */
+    private static Long userId(JwtVerification verification) {
+        if (verification.context() != null && verification.context().getUser() != null
+                && verification.context().getUser().getId() != null) {
+            return verification.context().getUser().getId();
+        }
+        return verification.claims().get("userId", Long.class);
+    }
+}
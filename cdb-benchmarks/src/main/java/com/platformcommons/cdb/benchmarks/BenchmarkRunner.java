@@ -0,0 +1,27 @@
+package com.platformcommons.cdb.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * IDE entry point: runs the benchmarks matching the first argument (default: all)
+ * with the GC profiler attached, so allocation rate is reported next to throughput.
+ * From the command line prefer {@code java -jar target/benchmarks.jar -prof gc}.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "com.platformcommons.cdb.benchmarks.*";
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,110 @@
+package com.platformcommons.cdb.benchmarks.gateway;
+
+import com.platformcommons.cdb.platform.api.gateway.filter.BodySizeLimitFilter;
+import com.platformcommons.cdb.platform.api.gateway.filter.RateLimitingFilter;
+import com.platformcommons.cdb.platform.api.gateway.filter.RequestTransformationFilter;
+import com.platformcommons.cdb.platform.api.gateway.filter.ResponseTransformationFilter;
+import com.platformcommons.cdb.platform.api.gateway.model.RateLimitRule;
+import com.platformcommons.cdb.platform.api.gateway.ratelimit.RateLimitKeyResolver;
+import com.platformcommons.cdb.platform.api.gateway.ratelimit.TokenBucketRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of each gateway GlobalFilter. Each invocation subscribes the filter to a fresh
+ * mock exchange with a terminal chain that commits the response (so before-commit hooks run),
+ * the same work a routed request does minus the proxying. Exchanges are built in an
+ * invocation-level setup because MockServerWebExchange creates its own codec configurer, which
+ * costs far more than any filter; {@code baseline} is the commit alone, to subtract from the
+ * other scores. {@code correlationId} toggles whether the request already carries an
+ * X-Correlation-Id header (the cheap path) or one has to be generated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GatewayFiltersBenchmark {
+
+    private static final GatewayFilterChain COMMIT = exchange -> exchange.getResponse().setComplete();
+
+    @Param({"true", "false"})
+    public boolean correlationId;
+
+    /** Limit high enough that the benchmark never gets refused; see RateLimiterBenchmark for the limiter itself. */
+    private final RateLimitingFilter rateLimiting = new RateLimitingFilter(
+            new TokenBucketRateLimiter(Duration.ofMinutes(5), 100_000), new RateLimitKeyResolver(), null,
+            RateLimitRule.builder().key("default").limit(Long.MAX_VALUE / 4).windowSeconds(1).build());
+    private final BodySizeLimitFilter bodySizeLimit = new BodySizeLimitFilter(10L << 20, 100L << 20);
+    private final RequestTransformationFilter requestTransformation = new RequestTransformationFilter();
+    private final ResponseTransformationFilter responseTransformation = new ResponseTransformationFilter();
+
+    private ServerWebExchange exchange;
+
+    @Setup(Level.Invocation)
+    public void newExchange() {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/v1/providers/7/environments")
+                .header("Authorization", "Bearer x");
+        if (correlationId) {
+            request.header(RequestTransformationFilter.CORRELATION_ID, "3f2b8c1e-5d4a-4e7b-9c0d-1a2b3c4d5e6f");
+        }
+        exchange = MockServerWebExchange.from(request);
+    }
+
+    @Benchmark
+    public ServerWebExchange baseline() {
+        COMMIT.filter(exchange).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public ServerWebExchange rateLimiting() {
+        rateLimiting.filter(exchange, COMMIT).block();
+        return exchange;
+    }
+
+    /** Both limits on: the request (no Content-Length) and response are wrapped for counting. */
+    @Benchmark
+    public ServerWebExchange bodySizeLimit() {
+        bodySizeLimit.filter(exchange, COMMIT).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public ServerWebExchange requestTransformation() {
+        requestTransformation.filter(exchange, COMMIT).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public ServerWebExchange responseTransformation() {
+        responseTransformation.filter(exchange, COMMIT).block();
+        return exchange;
+    }
+
+    /** All three in gateway order, as one routed request sees them. */
+    @Benchmark
+    public ServerWebExchange chain() {
+        rateLimiting.filter(exchange, e1 -> requestTransformation.filter(e1,
+                e2 -> responseTransformation.filter(e2, COMMIT))).block();
+        return exchange;
+    }
+}
@@ -0,0 +1,71 @@
+package com.platformcommons.cdb.benchmarks.gateway;
+
+import com.platformcommons.cdb.platform.api.gateway.metrics.LatencyMetrics;
+import com.platformcommons.cdb.platform.api.gateway.service.MonitoringService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of recording a latency sample into the per-upstream percentile timers and of bumping a
+ * MonitoringService counter, single-threaded and with four threads on the same route and counter.
+ * Run with {@code -prof gc} to check that recording does not allocate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LatencyMetricsBenchmark {
+
+    private LatencyMetrics metrics;
+    private MonitoringService monitoring;
+
+    @Setup
+    public void setUp() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        metrics = new LatencyMetrics(registry, new double[]{0.5, 0.9, 0.99, 0.999}, Duration.ofMinutes(1), 3, false);
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("meterRegistry", registry);
+        monitoring = new MonitoringService(beans.getBeanProvider(MeterRegistry.class), metrics);
+    }
+
+    @Benchmark
+    public void recordUpstream() {
+        record();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordUpstreamContended() {
+        record();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void counterContended() {
+        monitoring.increment("bench.requests");
+    }
+
+    private void record() {
+        // 1-50 ms
+        metrics.recordUpstream("bench", "10.0.0.1:8080", 200,
+                ThreadLocalRandom.current().nextLong(1_000_000, 50_000_000));
+    }
+}
@@ -0,0 +1,64 @@
+package com.platformcommons.cdb.benchmarks.gateway;
+
+import com.platformcommons.cdb.platform.api.gateway.loadbalancer.RouteBalancer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cost of one power-of-two-choices pick plus its completion (the balancer's share of a proxied
+ * request), for a route with {@code instances} replicas, single-threaded and with four threads
+ * sharing the route.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadBalancerBenchmark {
+
+    @Param({"3", "10", "100"})
+    public int instances;
+
+    private RouteBalancer balancer;
+    private List<String> urls;
+
+    @Setup
+    public void setUp() {
+        balancer = new RouteBalancer("bench", RouteBalancer.Settings.defaults());
+        urls = new ArrayList<>(instances);
+        for (int i = 0; i < instances; i++) {
+            urls.add("http://10.0.0." + i + ":8080");
+        }
+    }
+
+    @Benchmark
+    public String chooseAndComplete() {
+        RouteBalancer.Selection<String> selection = balancer.choose(urls, Function.identity());
+        selection.complete(true);
+        return selection.instance();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String chooseAndCompleteContended() {
+        RouteBalancer.Selection<String> selection = balancer.choose(urls, Function.identity());
+        selection.complete(true);
+        return selection.instance();
+    }
+}
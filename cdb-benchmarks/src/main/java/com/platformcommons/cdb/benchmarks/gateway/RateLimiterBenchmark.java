@@ -0,0 +1,98 @@
+package com.platformcommons.cdb.benchmarks.gateway;
+
+import com.platformcommons.cdb.platform.api.gateway.model.RateLimitRule;
+import com.platformcommons.cdb.platform.api.gateway.ratelimit.InMemoryTokenLeaseStore;
+import com.platformcommons.cdb.platform.api.gateway.ratelimit.LeasedRateLimiter;
+import com.platformcommons.cdb.platform.api.gateway.ratelimit.RateLimitDecision;
+import com.platformcommons.cdb.platform.api.gateway.ratelimit.RateLimiter;
+import com.platformcommons.cdb.platform.api.gateway.ratelimit.TokenBucketRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket checks as done once per request by RateLimitingFilter. {@code keys} is the number of
+ * distinct identities in play (1 = every thread hammers the same bucket, the worst case for CAS
+ * contention); {@code limit} is requests per second, so 100 is refused almost always after the
+ * first burst and the huge value is always admitted. The {@code contended} variant runs four
+ * threads against the same limiter. {@code mode} is the per-node TokenBucketRateLimiter or the
+ * cluster-wide LeasedRateLimiter over an in-memory lease store; the latter should cost the same
+ * on the request path since renewals run on its own threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "10000"})
+    public int keys;
+
+    @Param({"100", "1000000000"})
+    public long limit;
+
+    @Param({"local", "leased"})
+    public String mode;
+
+    private RateLimiter limiter;
+    private AutoCloseable[] closeables;
+    private RateLimitRule rule;
+    private String[] keyNames;
+
+    @Setup
+    public void setUp() {
+        TokenBucketRateLimiter local = new TokenBucketRateLimiter(Duration.ofMinutes(5), 100_000);
+        if ("leased".equals(mode)) {
+            InMemoryTokenLeaseStore store = new InMemoryTokenLeaseStore(new TokenBucketRateLimiter(Duration.ofMinutes(5), 100_000));
+            LeasedRateLimiter leased = new LeasedRateLimiter(store, local, 0, Duration.ofMinutes(5), 2);
+            limiter = leased;
+            closeables = new AutoCloseable[]{leased, store, local};
+        } else {
+            limiter = local;
+            closeables = new AutoCloseable[]{local};
+        }
+        rule = RateLimitRule.builder().key("bench").limit(limit).windowSeconds(1).build();
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "provider:P" + i;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        for (AutoCloseable c : closeables) {
+            c.close();
+        }
+    }
+
+    private String nextKey() {
+        return keys == 1 ? keyNames[0] : keyNames[ThreadLocalRandom.current().nextInt(keys)];
+    }
+
+    @Benchmark
+    public RateLimitDecision tryAcquire() {
+        return limiter.tryAcquire(nextKey(), rule);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public RateLimitDecision tryAcquireContended() {
+        return limiter.tryAcquire(nextKey(), rule);
+    }
+}
@@ -0,0 +1,82 @@
+package com.platformcommons.cdb.benchmarks.gateway;
+
+import com.platformcommons.cdb.platform.api.gateway.resilience.CircuitBreaker;
+import com.platformcommons.cdb.platform.api.gateway.resilience.CircuitBreakerRegistry;
+import com.platformcommons.cdb.platform.api.gateway.resilience.LatencyHistogram;
+import com.platformcommons.cdb.platform.api.gateway.resilience.RetryBudget;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-attempt overhead of the resilience filters: looking up an instance's circuit breaker,
+ * acquiring a permit and recording the outcome, counting a request against the route's retry
+ * budget, and recording a latency sample and reading the hedge delay. Single-threaded and with
+ * four threads sharing one breaker (the contended case for its window).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResilienceBenchmark {
+
+    private CircuitBreakerRegistry registry;
+    private RetryBudget budget;
+    private LatencyHistogram latencies;
+
+    @Setup
+    public void setUp() {
+        registry = new CircuitBreakerRegistry(CircuitBreaker.Settings.defaults(), 0.2, 10, 10, null);
+        budget = registry.retryBudget("bench");
+        latencies = new LatencyHistogram(TimeUnit.SECONDS.toNanos(10), 100, System.nanoTime());
+    }
+
+    @Benchmark
+    public boolean breakerCall() {
+        return call();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean breakerCallContended() {
+        return call();
+    }
+
+    @Benchmark
+    public boolean retryBudget() {
+        long now = System.nanoTime();
+        budget.onRequest(now);
+        return budget.tryRetry(now);
+    }
+
+    @Benchmark
+    public long hedgeDelay() {
+        long now = System.nanoTime();
+        // 1-50 ms
+        latencies.record(ThreadLocalRandom.current().nextLong(1_000_000, 50_000_000), now);
+        return latencies.percentile(95, now);
+    }
+
+    private boolean call() {
+        CircuitBreaker breaker = registry.breaker("bench", "10.0.0.1:8080");
+        long start = System.nanoTime();
+        boolean permitted = breaker.tryAcquire(start);
+        if (permitted) {
+            breaker.onResult(false, System.nanoTime() - start, System.nanoTime());
+        }
+        return permitted;
+    }
+}
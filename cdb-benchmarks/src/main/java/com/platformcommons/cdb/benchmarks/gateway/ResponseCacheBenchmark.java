@@ -0,0 +1,127 @@
+package com.platformcommons.cdb.benchmarks.gateway;
+
+import com.platformcommons.cdb.platform.api.gateway.cache.CacheKeys;
+import com.platformcommons.cdb.platform.api.gateway.filter.ResponseCacheGatewayFilterFactory;
+import com.platformcommons.cdb.platform.api.gateway.service.CacheService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response cache on the discovery route: {@code hit} serves a cached body of {@code bodyBytes}
+ * from memory, {@code miss} routes to a terminal chain that writes the same body through the
+ * capturing response (entries are evicted first, so every call is a leader miss), and
+ * {@code key} is the cache key derivation alone (including the request's lazy path and query
+ * parsing, which routing would otherwise pay for). The body is a JSON page of API summaries;
+ * {@code storage} and {@code acceptEncoding} select where the gzip-compressed entry lives and
+ * whether the client takes it as stored or has it decompressed on the way out. As in GatewayFiltersBenchmark, exchanges are
+ * built in an invocation-level setup; {@code baseline} is the upstream write without the filter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseCacheBenchmark {
+
+    private static final String PATH = "/api/v1/api-registry/discovery/apis";
+
+    @Param({"1024", "65536"})
+    public int bodyBytes;
+
+    @Param({"heap", "direct"})
+    public String storage;
+
+    @Param({"gzip", "identity"})
+    public String acceptEncoding;
+
+    private CacheService cache;
+    private final ResponseCacheGatewayFilterFactory.Config config = new ResponseCacheGatewayFilterFactory.Config();
+    private GatewayFilter filter;
+    private GatewayFilterChain upstream;
+    private ServerWebExchange exchange;
+
+    @Setup
+    public void setUp() {
+        cache = new CacheService(64L << 20, 1 << 20, "gzip", 1024, storage);
+        config.setTtl(Duration.ofHours(1));
+        filter = new ResponseCacheGatewayFilterFactory(cache).apply(config);
+        byte[] body = jsonPage(bodyBytes);
+        upstream = exchange -> {
+            exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            DataBuffer buffer = exchange.getResponse().bufferFactory().wrap(body);
+            return exchange.getResponse().writeWith(Mono.just(buffer));
+        };
+    }
+
+    @Setup(Level.Invocation)
+    public void newExchange() {
+        exchange = MockServerWebExchange.from(MockServerHttpRequest.get(PATH)
+                .queryParam("page", "0").queryParam("size", "20")
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding));
+    }
+
+    @Benchmark
+    public ServerWebExchange baseline() {
+        upstream.filter(exchange).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public ServerWebExchange hit() {
+        filter.filter(exchange, upstream).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public ServerWebExchange miss() {
+        cache.evictAll();
+        filter.filter(exchange, upstream).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public String key() {
+        return CacheKeys.of(exchange.getRequest(), config.getVaryHeaders());
+    }
+
+    private static byte[] jsonPage(int size) {
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder(size + 256).append("{\"content\":[");
+        for (int i = 0; json.length() < size - 2; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"id\":").append(random.nextInt(1_000_000))
+                    .append(",\"code\":\"API-").append(Long.toHexString(random.nextLong()))
+                    .append("\",\"name\":\"Provider API ").append(i)
+                    .append("\",\"version\":\"v").append(1 + random.nextInt(3))
+                    .append("\",\"status\":\"PUBLISHED\"}");
+        }
+        json.append("]}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Benchmarks for the API gateway's reactive GlobalFilters, driven with mock exchanges.
+ */
+package com.platformcommons.cdb.benchmarks.gateway;
@@ -0,0 +1,4 @@
+/**
+ * JMH micro-benchmarks for CDB platform hot paths. Run via the shaded benchmarks.jar.
+ */
+package com.platformcommons.cdb.benchmarks;
@@ -0,0 +1,90 @@
+package com.platformcommons.cdb.benchmarks.security;
+
+import com.platformcommons.cdb.security.auth.VerifiedTokenCache;
+import com.platformcommons.cdb.security.filter.AuthFilter;
+import com.platformcommons.cdb.security.filter.AuthFilterMetrics;
+import com.platformcommons.cdb.security.filter.PublicPathMatcher;
+import com.platformcommons.cdb.security.jwt.JwtTokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full {@link AuthFilter} pass (public-path check, bearer extraction, verification,
+ * context mapping, SecurityContext population) against mock servlet objects. The metrics
+ * parameter shows the cost of the per-phase timers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AuthFilterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean tokenCache;
+
+    @Param({"true", "false"})
+    public boolean metrics;
+
+    private AuthFilter authFilter;
+    private String bearer;
+
+    @Setup
+    public void setup() {
+        JwtTokenService jwtTokenService = SecurityFixtures.jwtTokenService();
+        authFilter = new AuthFilter(jwtTokenService, tokenCache ? new VerifiedTokenCache(10_000) : null,
+                PublicPathMatcher.defaults(), null, null,
+                metrics ? new AuthFilterMetrics(new SimpleMeterRegistry(), "bench") : null);
+        bearer = "Bearer " + jwtTokenService.generate(SecurityFixtures.SUBJECT, SecurityFixtures.USER_ID,
+                SecurityFixtures.ACCESS_TTL, SecurityFixtures.executiveContextClaims(5, 40));
+    }
+
+    @Benchmark
+    public int protectedPath() throws ServletException, IOException {
+        return run("/api/v1/api-registry/apis/123", bearer);
+    }
+
+    @Benchmark
+    public int publicPath() throws ServletException, IOException {
+        return run("/api/v1/api-registry/discovery/search", null);
+    }
+
+    @Benchmark
+    public int missingToken() throws ServletException, IOException {
+        return run("/api/v1/providers/7", null);
+    }
+
+    private int run(String uri, String authorization) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (authorization != null) {
+            request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            authFilter.doFilter(request, response, new MockFilterChain());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response.getStatus();
+    }
+}
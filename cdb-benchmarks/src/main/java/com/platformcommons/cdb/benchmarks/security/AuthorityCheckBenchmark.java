@@ -0,0 +1,78 @@
+package com.platformcommons.cdb.benchmarks.security;
+
+import com.platformcommons.cdb.security.context.AuthorityDictionary;
+import com.platformcommons.cdb.security.context.AuthoritySet;
+import com.platformcommons.cdb.security.context.CDBContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Permission checks against a context holding {@code authorityCount} authorities: the bitset
+ * path used by {@code @RequiresAuthority} versus scanning the authority list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthorityCheckBenchmark {
+
+    @Param({"8", "64", "256"})
+    public int authorityCount;
+
+    private CDBContext context;
+    private String lastCode;
+    private List<String> requiredCodes;
+    private AuthoritySet required;
+
+    @Setup
+    public void setup() {
+        List<String> authorities = new ArrayList<>();
+        for (int i = 0; i < authorityCount; i++) {
+            authorities.add("AUTH.PROVIDER.PERMISSION_" + i);
+        }
+        context = CDBContext.builder().roles(List.of("ROLE.EXECUTIVE")).authorities(authorities).build();
+        context.getAuthoritySet();
+        lastCode = new String(authorities.get(authorityCount - 1));
+        requiredCodes = List.of("AUTH.MISSING.A", "AUTH.MISSING.B", new String(lastCode));
+        required = AuthorityDictionary.authorities().setOf(requiredCodes);
+    }
+
+    @Benchmark
+    public boolean bitsetContains() {
+        return context.hasAuthority(lastCode);
+    }
+
+    @Benchmark
+    public boolean listContains() {
+        return context.getAuthorities().contains(lastCode);
+    }
+
+    @Benchmark
+    public boolean bitsetAnyOf() {
+        return context.hasAnyAuthority(required);
+    }
+
+    @Benchmark
+    public boolean listAnyOf() {
+        List<String> held = context.getAuthorities();
+        for (String code : requiredCodes) {
+            if (held.contains(code)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,59 @@
+package com.platformcommons.cdb.benchmarks.security;
+
+import com.platformcommons.cdb.security.context.CDBContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction cost of {@link CDBContext} via its builder, as done per verified token.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CDBContextBenchmark {
+
+    @Param({"10", "100"})
+    public int authorityCount;
+
+    private List<String> roles;
+    private List<String> authorities;
+    private Map<String, Object> extras;
+
+    @Setup
+    public void setup() {
+        roles = List.of("PROVIDER_ADMIN", "API_PUBLISHER");
+        authorities = new ArrayList<>();
+        for (int i = 0; i < authorityCount; i++) {
+            authorities.add("API_REGISTRY.AUTHORITY_" + i);
+        }
+        extras = Map.of("roles", roles, "authorities", authorities);
+    }
+
+    @Benchmark
+    public CDBContext build() {
+        return CDBContext.builder()
+                .user(new CDBContext.UserContext(SecurityFixtures.USER_ID, SecurityFixtures.SUBJECT))
+                .provider(new CDBContext.ProviderContext(7L, "PROVIDER_BENCH"))
+                .roles(roles)
+                .authorities(authorities)
+                .extras(extras)
+                .build();
+    }
+}
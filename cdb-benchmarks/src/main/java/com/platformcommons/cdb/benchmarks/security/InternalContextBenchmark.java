@@ -0,0 +1,70 @@
+package com.platformcommons.cdb.benchmarks.security;
+
+import com.platformcommons.cdb.security.auth.BearerTokenVerifier;
+import com.platformcommons.cdb.security.auth.InternalContextCodec;
+import com.platformcommons.cdb.security.auth.VerifiedTokenCache;
+import com.platformcommons.cdb.security.jwt.JwtTokenService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating a service-to-service hop: full JWT verification (RS256 signature plus
+ * ctx mapping, no cache) versus decoding the HMAC-signed internal context header carrying the
+ * same executive context. Encoded sizes of both are printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InternalContextBenchmark {
+
+    private BearerTokenVerifier verifier;
+    private InternalContextCodec codec;
+    private VerifiedTokenCache.VerifiedToken verified;
+    private String token;
+    private String header;
+
+    @Setup
+    public void setup() {
+        JwtTokenService jwtTokenService = SecurityFixtures.jwtTokenService();
+        verifier = new BearerTokenVerifier(jwtTokenService, null, null);
+        byte[] secret = new byte[32];
+        Arrays.fill(secret, (byte) 7);
+        codec = new InternalContextCodec(secret, Duration.ofMinutes(5));
+        token = jwtTokenService.generate(SecurityFixtures.SUBJECT, SecurityFixtures.USER_ID,
+                SecurityFixtures.ACCESS_TTL, SecurityFixtures.executiveContextClaims(5, 40));
+        verified = verifier.verify(token);
+        header = codec.encode(verified);
+        System.out.println("# jwt size: " + token.length() + " bytes, internal context header: "
+                + header.length() + " bytes");
+    }
+
+    @Benchmark
+    public VerifiedTokenCache.VerifiedToken verifyJwt() {
+        return verifier.verify(token);
+    }
+
+    @Benchmark
+    public VerifiedTokenCache.VerifiedToken decodeHeader() {
+        return codec.decode(header);
+    }
+
+    @Benchmark
+    public String encodeHeader() {
+        return codec.encode(verified);
+    }
+}
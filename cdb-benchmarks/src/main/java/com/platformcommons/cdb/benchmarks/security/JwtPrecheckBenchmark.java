@@ -0,0 +1,78 @@
+package com.platformcommons.cdb.benchmarks.security;
+
+import com.platformcommons.cdb.security.jwt.JwtTokenService;
+import com.platformcommons.cdb.security.jwt.JwtVerification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning away bad tokens in {@link JwtTokenService#verify(String)} with and without the
+ * pre-verification stage: a long-expired token, one with an unknown kid, and a valid token (where
+ * the precheck is pure overhead on top of the signature check).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtPrecheckBenchmark {
+
+    @Param({"true", "false"})
+    public boolean precheck;
+
+    private JwtTokenService jwtTokenService;
+    private String validToken;
+    private String expiredToken;
+    private String unknownKidToken;
+
+    @Setup
+    public void setup() {
+        String privateKey = SecurityFixtures.readClasspath("cdb-jwt-keys/private.pem");
+        String publicKey = SecurityFixtures.readClasspath("cdb-jwt-keys/public.pem");
+        jwtTokenService = JwtTokenService.builder()
+                .privateKeyPem(privateKey)
+                .publicKeyPem(publicKey)
+                .keyId("bench-kid")
+                .precheckEnabled(precheck)
+                .build();
+        JwtTokenService otherIssuer = JwtTokenService.builder()
+                .privateKeyPem(privateKey)
+                .publicKeyPem(publicKey)
+                .keyId("retired-kid")
+                .build();
+        var claims = SecurityFixtures.executiveContextClaims(5, 40);
+        validToken = jwtTokenService.generate(SecurityFixtures.SUBJECT, SecurityFixtures.USER_ID,
+                SecurityFixtures.ACCESS_TTL, claims);
+        expiredToken = jwtTokenService.generate(SecurityFixtures.SUBJECT, SecurityFixtures.USER_ID,
+                -SecurityFixtures.ACCESS_TTL, claims);
+        unknownKidToken = otherIssuer.generate(SecurityFixtures.SUBJECT, SecurityFixtures.USER_ID,
+                SecurityFixtures.ACCESS_TTL, claims);
+    }
+
+    @Benchmark
+    public JwtVerification expired() {
+        return jwtTokenService.verify(expiredToken);
+    }
+
+    @Benchmark
+    public JwtVerification unknownKid() {
+        return jwtTokenService.verify(unknownKidToken);
+    }
+
+    @Benchmark
+    public JwtVerification valid() {
+        return jwtTokenService.verify(validToken);
+    }
+}
@@ -0,0 +1,80 @@
+package com.platformcommons.cdb.benchmarks.security;
+
+import com.platformcommons.cdb.security.jwt.JwtTokenService;
+import com.platformcommons.cdb.security.jwt.JwtVerification;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign/verify cost of {@link JwtTokenService}.
+ * {@code validateThenParse} is the pre-verify() double-verification path kept as a reference point
+ * for {@code verifyOnce}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtTokenServiceBenchmark {
+
+    @Param({"2", "10"})
+    public int roleCount;
+
+    @Param({"10", "100"})
+    public int authorityCount;
+
+    private JwtTokenService jwtTokenService;
+    private Map<String, Object> extraClaims;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtTokenService = SecurityFixtures.jwtTokenService();
+        extraClaims = SecurityFixtures.executiveContextClaims(roleCount, authorityCount);
+        token = jwtTokenService.generate(SecurityFixtures.SUBJECT, SecurityFixtures.USER_ID,
+                SecurityFixtures.ACCESS_TTL, extraClaims);
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtTokenService.generate(SecurityFixtures.SUBJECT, SecurityFixtures.USER_ID,
+                SecurityFixtures.ACCESS_TTL, extraClaims);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return jwtTokenService.validate(token);
+    }
+
+    @Benchmark
+    public Claims parseClaims() {
+        return jwtTokenService.parseClaims(token);
+    }
+
+    @Benchmark
+    public Claims validateThenParse() {
+        if (!jwtTokenService.validate(token)) {
+            return null;
+        }
+        return jwtTokenService.parseClaims(token);
+    }
+
+    @Benchmark
+    public JwtVerification verifyOnce() {
+        return jwtTokenService.verify(token);
+    }
+}
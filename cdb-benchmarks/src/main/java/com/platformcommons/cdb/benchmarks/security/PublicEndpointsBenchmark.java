@@ -0,0 +1,42 @@
+package com.platformcommons.cdb.benchmarks.security;
+
+import com.platformcommons.cdb.security.filter.PublicEndpoints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Public-path matching as done once per request by AuthFilter. Paths cover exact public
+ * endpoints, prefix matches, and protected paths that must scan every pattern.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PublicEndpointsBenchmark {
+
+    @Param({
+            "/api/v1/auth/login",
+            "/api/v1/api-registry/discovery/search",
+            "/swagger-ui/index.html",
+            "/api/v1/providers/7/environments",
+            "/api/v1/api-registry/apis/123/versions"
+    })
+    public String path;
+
+    @Benchmark
+    public boolean isPublicPath() {
+        return PublicEndpoints.isPublicPath(path);
+    }
+}
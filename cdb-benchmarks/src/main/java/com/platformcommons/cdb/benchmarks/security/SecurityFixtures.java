@@ -0,0 +1,77 @@
+package com.platformcommons.cdb.benchmarks.security;
+
+import com.platformcommons.cdb.security.jwt.JwtTokenService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared inputs for the security benchmarks: the development key pair bundled in
+ * cdb-security-lib and a token shaped like the executive context token issued by auth-registry.
+ */
+final class SecurityFixtures {
+
+    static final String SUBJECT = "executive@platformcommons.org";
+    static final long USER_ID = 42L;
+    static final long ACCESS_TTL = 86400L;
+
+    private SecurityFixtures() {
+    }
+
+    static JwtTokenService jwtTokenService() {
+        return new JwtTokenService(readClasspath("cdb-jwt-keys/private.pem"),
+                readClasspath("cdb-jwt-keys/public.pem"), "bench-kid");
+    }
+
+    /**
+     * Mirrors the claims built by AuthenticationServiceImpl.issueExecutiveContextToken.
+     */
+    static Map<String, Object> executiveContextClaims(int roleCount, int authorityCount) {
+        Map<String, Object> userCtx = new HashMap<>();
+        userCtx.put("id", USER_ID);
+        userCtx.put("login", SUBJECT);
+        userCtx.put("username", SUBJECT);
+        Map<String, Object> userWrapper = new HashMap<>();
+        userWrapper.put("user", userCtx);
+
+        Map<String, Object> providerCtx = new HashMap<>();
+        providerCtx.put("id", 7L);
+        providerCtx.put("code", "PROVIDER_BENCH");
+
+        List<String> roles = new ArrayList<>();
+        for (int i = 0; i < roleCount; i++) {
+            roles.add("ROLE_CODE_" + i);
+        }
+        List<String> authorities = new ArrayList<>();
+        for (int i = 0; i < authorityCount; i++) {
+            authorities.add("API_REGISTRY.AUTHORITY_" + i);
+        }
+
+        Map<String, Object> ctx = new HashMap<>();
+        ctx.put("user", userWrapper);
+        ctx.put("provider", providerCtx);
+        ctx.put("roles", roles);
+        ctx.put("authorities", authorities);
+
+        Map<String, Object> extra = new HashMap<>();
+        extra.put("ctx", ctx);
+        return extra;
+    }
+
+    static String readClasspath(String path) {
+        try (InputStream in = SecurityFixtures.class.getClassLoader().getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing classpath resource " + path);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
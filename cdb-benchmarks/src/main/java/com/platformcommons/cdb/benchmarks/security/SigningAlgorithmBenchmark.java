@@ -0,0 +1,85 @@
+package com.platformcommons.cdb.benchmarks.security;
+
+import com.platformcommons.cdb.security.jwt.JwtAlgorithm;
+import com.platformcommons.cdb.security.jwt.JwtTokenService;
+import com.platformcommons.cdb.security.jwt.JwtVerification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign/verify throughput per {@link JwtAlgorithm} for an executive-context-sized token.
+ * The encoded token size for each algorithm is printed once per trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SigningAlgorithmBenchmark {
+
+    @Param({"RS256", "ES256", "EDDSA"})
+    public JwtAlgorithm algorithm;
+
+    private JwtTokenService jwtTokenService;
+    private Map<String, Object> extraClaims;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyPair keyPair = generateKeyPair(algorithm);
+        jwtTokenService = JwtTokenService.builder()
+                .algorithm(algorithm)
+                .privateKeyPem(pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()))
+                .publicKeyPem(pem("PUBLIC KEY", keyPair.getPublic().getEncoded()))
+                .keyId("bench-" + algorithm.getJwsName())
+                .build();
+        extraClaims = SecurityFixtures.executiveContextClaims(5, 40);
+        token = jwtTokenService.generate(SecurityFixtures.SUBJECT, SecurityFixtures.USER_ID,
+                SecurityFixtures.ACCESS_TTL, extraClaims);
+        System.out.println("# token size [" + algorithm.getJwsName() + "]: " + token.length() + " bytes");
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtTokenService.generate(SecurityFixtures.SUBJECT, SecurityFixtures.USER_ID,
+                SecurityFixtures.ACCESS_TTL, extraClaims);
+    }
+
+    @Benchmark
+    public JwtVerification verify() {
+        return jwtTokenService.verify(token);
+    }
+
+    private static KeyPair generateKeyPair(JwtAlgorithm algorithm) throws Exception {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance(algorithm.getKeyFactoryAlgorithm());
+        switch (algorithm) {
+            case RS256 -> kpg.initialize(2048);
+            case ES256 -> kpg.initialize(new ECGenParameterSpec("secp256r1"));
+            case EDDSA -> kpg.initialize(255);
+        }
+        return kpg.generateKeyPair();
+    }
+
+    private static String pem(String type, byte[] der) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder().encodeToString(der)
+                + "\n-----END " + type + "-----\n";
+    }
+}
@@ -0,0 +1,113 @@
+package com.platformcommons.cdb.benchmarks.security;
+
+import com.platformcommons.cdb.security.context.CDBContext;
+import com.platformcommons.cdb.security.jwt.CompactClaims;
+import com.platformcommons.cdb.security.jwt.JwtTokenService;
+import com.platformcommons.cdb.security.jwt.JwtVerification;
+import com.platformcommons.cdb.security.jwt.TokenDictionary;
+import com.platformcommons.cdb.security.jwt.TokenDictionarySource;
+import io.jsonwebtoken.jackson.io.JacksonDeserializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * v1 (nested ctx with codes) versus compact v2 (short claims with dictionary ids) access tokens
+ * carrying the same context. {@code parseClaims} is the payload decode plus context mapping
+ * alone; {@code verify} adds the signature check. The Authorization header size of each token is
+ * printed during setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenFormatBenchmark {
+
+    @Param({"v1", "v2"})
+    public String format;
+
+    @Param({"10", "100"})
+    public int authorityCount;
+
+    private static final int ROLE_COUNT = 5;
+
+    private JwtTokenService jwtTokenService;
+    private TokenDictionarySource dictionary;
+    private JacksonDeserializer<Map<String, ?>> claimsDeserializer;
+    private String token;
+    private String payloadJson;
+
+    @Setup
+    public void setup() {
+        Map<Long, String> roles = new HashMap<>();
+        List<Long> roleIds = new ArrayList<>();
+        for (int i = 0; i < ROLE_COUNT; i++) {
+            roles.put(100L + i, "ROLE_CODE_" + i);
+            roleIds.add(100L + i);
+        }
+        Map<Long, String> authorities = new HashMap<>();
+        List<Long> authorityIds = new ArrayList<>();
+        for (int i = 0; i < authorityCount; i++) {
+            authorities.put(1000L + i, "API_REGISTRY.AUTHORITY_" + i);
+            authorityIds.add(1000L + i);
+        }
+        TokenDictionary published = new TokenDictionary(roles, authorities);
+        dictionary = () -> published;
+        jwtTokenService = JwtTokenService.builder()
+                .privateKeyPem(SecurityFixtures.readClasspath("cdb-jwt-keys/private.pem"))
+                .publicKeyPem(SecurityFixtures.readClasspath("cdb-jwt-keys/public.pem"))
+                .keyId("bench-kid")
+                .tokenDictionary(dictionary)
+                .build();
+        claimsDeserializer = new JacksonDeserializer<>(Map.of(JwtTokenService.CONTEXT_CLAIM, CDBContext.class,
+                CompactClaims.ROLES, long[].class, CompactClaims.AUTHORITIES, long[].class));
+        if ("v2".equals(format)) {
+            token = jwtTokenService.generateCompact(SecurityFixtures.SUBJECT, SecurityFixtures.ACCESS_TTL,
+                    CompactClaims.claims(SecurityFixtures.SUBJECT, SecurityFixtures.USER_ID, SecurityFixtures.SUBJECT,
+                            7L, "PROVIDER_BENCH", roleIds, authorityIds));
+        } else {
+            token = jwtTokenService.generate(SecurityFixtures.SUBJECT, SecurityFixtures.USER_ID,
+                    SecurityFixtures.ACCESS_TTL, SecurityFixtures.executiveContextClaims(ROLE_COUNT, authorityCount));
+        }
+        payloadJson = new String(Base64.getUrlDecoder().decode(token.split("\\.")[1]), StandardCharsets.UTF_8);
+        CDBContext context = parseClaims();
+        if (context.getAuthorities().size() != authorityCount || context.getRoles().size() != ROLE_COUNT) {
+            throw new IllegalStateException("Token did not map to the expected context");
+        }
+        System.out.printf("%n%s token, %d authorities: Authorization header %d bytes (payload JSON %d bytes)%n",
+                format, authorityCount, "Bearer ".length() + token.length(), payloadJson.length());
+    }
+
+    @Benchmark
+    public CDBContext parseClaims() {
+        Map<String, ?> claims = claimsDeserializer.deserialize(new StringReader(payloadJson));
+        if (CompactClaims.isCompact(claims)) {
+            return CompactClaims.toContext(claims, (String) claims.get("sub"), dictionary);
+        }
+        return (CDBContext) claims.get(JwtTokenService.CONTEXT_CLAIM);
+    }
+
+    @Benchmark
+    public JwtVerification verify() {
+        return jwtTokenService.verify(token);
+    }
+}
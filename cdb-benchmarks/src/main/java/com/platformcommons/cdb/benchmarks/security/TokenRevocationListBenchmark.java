@@ -0,0 +1,59 @@
+package com.platformcommons.cdb.benchmarks.security;
+
+import com.platformcommons.cdb.security.auth.TokenRevocationList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request revocation check in AuthFilter. {@code notRevoked} is the common case and should
+ * be answered by the Bloom filter alone; {@code revoked} also goes to the exact set.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenRevocationListBenchmark {
+
+    @Param({"0", "1000", "100000"})
+    public int revokedCount;
+
+    private TokenRevocationList revocationList;
+    private String liveJti;
+    private String revokedJti;
+
+    @Setup
+    public void setup() {
+        revocationList = new TokenRevocationList(100_000);
+        long exp = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+        for (int i = 0; i < revokedCount; i++) {
+            revocationList.revoke(UUID.randomUUID().toString(), exp);
+        }
+        revokedJti = UUID.randomUUID().toString();
+        revocationList.revoke(revokedJti, exp);
+        liveJti = UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public boolean notRevoked() {
+        return revocationList.isRevoked(liveJti);
+    }
+
+    @Benchmark
+    public boolean revoked() {
+        return revocationList.isRevoked(revokedJti);
+    }
+}
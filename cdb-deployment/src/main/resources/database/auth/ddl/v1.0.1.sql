@@ -0,0 +1,25 @@
+USE cdb_auth_registry_db;
+
+-- ============================================================================
+-- revoked_tokens (extends BaseEntity)
+-- Revoked access tokens by jti; id is the sequence of the /api/v1/auth/revocations feed.
+-- Rows are purged once expires_at has passed.
+-- ----------------------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+                                              id BIGINT NOT NULL AUTO_INCREMENT,
+                                              jti VARCHAR(64) NOT NULL,
+    user_id BIGINT NULL,
+    expires_at TIMESTAMP(6) NOT NULL,
+    revoked_at TIMESTAMP(6) NOT NULL,
+    -- audit columns
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    created_by BIGINT DEFAULT 0,
+    updated_by BIGINT DEFAULT 0,
+    created_by_provider BIGINT DEFAULT 0,
+    updated_by_provider BIGINT DEFAULT 0,
+    is_active BOOLEAN NOT NULL DEFAULT 1,
+    CONSTRAINT pk_revoked_tokens PRIMARY KEY (id),
+    CONSTRAINT uk_revoked_tokens_jti UNIQUE (jti),
+    INDEX idx_revoked_tokens_expires_at (expires_at)
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
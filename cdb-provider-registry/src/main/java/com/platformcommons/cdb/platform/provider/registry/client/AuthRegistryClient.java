@@ -1,5 +1,6 @@
 package com.platformcommons.cdb.platform.provider.registry.client;
 
+import com.platformcommons.cdb.security.auth.InternalContextCodec;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -48,11 +49,19 @@ public class AuthRegistryClient {
 
     public record UserProviderMappingRequest(Long userId, Long providerId, String providerCode, String role) {}
     
-    public void mapUserToProvider(Long userId, Long providerId, String providerCode, String role,String token) {
+    /**
+     * @param internalContext signed internal context header from the current request; when present,
+     *                        auth-registry checks it with one HMAC instead of re-verifying the token
+     */
+    public void mapUserToProvider(Long userId, Long providerId, String providerCode, String role, String token,
+                                  String internalContext) {
         String url = authBaseUrl + "/api/v1/user-provider-mappings";
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setBearerAuth(token);
+        if (internalContext != null) {
+            headers.set(InternalContextCodec.HEADER, internalContext);
+        }
         UserProviderMappingRequest req = new UserProviderMappingRequest(userId, providerId, providerCode, role);
         HttpEntity<UserProviderMappingRequest> entity = new HttpEntity<>(req, headers);
         restTemplate.postForObject(url, entity, Void.class);
@@ -7,6 +7,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/provider-environments")
@@ -22,6 +23,16 @@ public class ProviderEnvironmentController {
         return ResponseEntity.ok(service.create(request));
     }
 
+    /**
+     * Provider code to requests-per-second limit, polled by the API gateway's rate limiter.
+     * Unauthenticated on this service only (cdb.security.public-paths); the gateway does not
+     * route it, as it lists every provider code.
+     */
+    @GetMapping("/rate-limits")
+    public ResponseEntity<Map<String, Integer>> rateLimits() {
+        return ResponseEntity.ok(service.rateLimitsByProviderCode());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProviderEnvironmentDto> getById(@PathVariable Long id) {
         return service.findById(id)
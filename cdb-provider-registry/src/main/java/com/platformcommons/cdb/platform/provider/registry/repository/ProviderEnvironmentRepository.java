@@ -2,9 +2,17 @@ package com.platformcommons.cdb.platform.provider.registry.repository;
 
 import com.platformcommons.cdb.platform.provider.registry.model.ProviderEnvironment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import java.util.List;
 
 public interface ProviderEnvironmentRepository extends JpaRepository<ProviderEnvironment, Long> {
     List<ProviderEnvironment> findByProviderId(Long providerId);
+
+    /**
+     * Rows of (provider code, environment type, rate limit) for every environment with a limit set.
+     */
+    @Query("select p.code, e.environmentType, e.rateLimit from ProviderEnvironment e, Provider p " +
+            "where p.id = e.providerId and e.rateLimit is not null")
+    List<Object[]> findRateLimits();
 }
 
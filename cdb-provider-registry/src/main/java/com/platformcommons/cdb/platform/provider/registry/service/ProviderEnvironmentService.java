@@ -9,7 +9,9 @@ import com.platformcommons.cdb.security.auth.CDBSecurityUtil;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -40,6 +42,27 @@ public class ProviderEnvironmentService {
         return repository.findByProviderId(providerId).stream().map(mapper::toDto).toList();
     }
 
+    /**
+     * Requests-per-second limit per provider code, as enforced by the gateway's rate limiter. The
+     * PRODUCTION environment's limit wins over SANDBOX, since tokens do not say which environment
+     * a call is for.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Integer> rateLimitsByProviderCode() {
+        Map<String, Integer> limits = new HashMap<>();
+        for (Object[] row : repository.findRateLimits()) {
+            String code = (String) row[0];
+            Integer limit = (Integer) row[2];
+            if (code == null || limit == null || limit <= 0) continue;
+            if (row[1] == ProviderEnvironment.EnvironmentType.PRODUCTION) {
+                limits.put(code, limit);
+            } else {
+                limits.putIfAbsent(code, limit);
+            }
+        }
+        return limits;
+    }
+
     public Optional<ProviderEnvironmentDto> update(Long id, ProviderEnvironmentRequest request) {
 
         return repository.findById(id).map(existing -> {
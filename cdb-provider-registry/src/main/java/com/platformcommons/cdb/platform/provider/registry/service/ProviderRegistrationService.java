@@ -200,7 +200,8 @@ public class ProviderRegistrationService {
         
         provider = providerRepository.save(provider);
         authRegistryClient.mapUserToProvider(cdbSecurityUtil.getCurrentUserId(),
-                provider.getId(), provider.getCode(), "ADMIN",cdbSecurityUtil.getCurrentAccessToken());
+                provider.getId(), provider.getCode(), "ADMIN",cdbSecurityUtil.getCurrentAccessToken(),
+                cdbSecurityUtil.getCurrentInternalContext());
 
         return providerMapper.toResponse(provider);
     }
@@ -0,0 +1,67 @@
+package com.platformcommons.cdb.security.auth;
+
+import com.platformcommons.cdb.security.context.CDBContext;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide pool of {@link GrantedAuthority} instances, one per distinct role/authority code.
+ * Role and authority codes come from a small, slowly changing RBAC catalogue, so the same few
+ * objects are reused across requests instead of allocating a new SimpleGrantedAuthority (and a
+ * "ROLE_" string) per entry per request. The pool is capped; codes beyond the cap are still
+ * served, just not pooled.
+ */
+public final class AuthorityInterner {
+
+    private static final int MAX_ENTRIES = 4096;
+
+    private static final ConcurrentHashMap<String, GrantedAuthority> ROLES = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, GrantedAuthority> AUTHORITIES = new ConcurrentHashMap<>();
+
+    private AuthorityInterner() {
+    }
+
+    /**
+     * @return the shared {@code ROLE_<code>} authority
+     */
+    public static GrantedAuthority role(String code) {
+        GrantedAuthority a = ROLES.get(code);
+        if (a != null) return a;
+        a = new SimpleGrantedAuthority("ROLE_" + code);
+        if (ROLES.size() >= MAX_ENTRIES) return a;
+        GrantedAuthority existing = ROLES.putIfAbsent(code, a);
+        return existing != null ? existing : a;
+    }
+
+    /**
+     * @return the shared authority for this code
+     */
+    public static GrantedAuthority authority(String code) {
+        GrantedAuthority a = AUTHORITIES.get(code);
+        if (a != null) return a;
+        a = new SimpleGrantedAuthority(code);
+        if (AUTHORITIES.size() >= MAX_ENTRIES) return a;
+        GrantedAuthority existing = AUTHORITIES.putIfAbsent(code, a);
+        return existing != null ? existing : a;
+    }
+
+    /**
+     * Granted authorities for a context: {@code ROLE_}-prefixed roles followed by plain authorities.
+     */
+    public static List<GrantedAuthority> grantedAuthorities(CDBContext context) {
+        List<String> roles = context.getRoles();
+        List<String> authorities = context.getAuthorities();
+        GrantedAuthority[] granted = new GrantedAuthority[roles.size() + authorities.size()];
+        int i = 0;
+        for (String r : roles) {
+            granted[i++] = role(r);
+        }
+        for (String a : authorities) {
+            granted[i++] = authority(a);
+        }
+        return List.of(granted);
+    }
+}
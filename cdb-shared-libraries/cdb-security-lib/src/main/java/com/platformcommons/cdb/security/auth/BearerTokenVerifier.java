@@ -0,0 +1,91 @@
+package com.platformcommons.cdb.security.auth;
+
+import com.platformcommons.cdb.security.context.CDBContext;
+import com.platformcommons.cdb.security.jwt.JwtTokenService;
+import com.platformcommons.cdb.security.jwt.JwtVerification;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+
+/**
+ * Bearer-token checks shared by the servlet AuthFilter and the reactive ReactiveAuthFilter:
+ * verified-token cache lookup, signature verification with ctx/authority mapping, and the
+ * revocation check. Split into steps so a non-blocking caller can answer cache hits inline and
+ * move only {@link #verify(String)} (the signature check) off the event loop.
+ */
+public class BearerTokenVerifier {
+
+    private final JwtTokenService jwtTokenService;
+    private final VerifiedTokenCache tokenCache; // may be null when caching is disabled
+    private final TokenRevocationList revocationList; // may be null when revocation is disabled
+
+    public BearerTokenVerifier(JwtTokenService jwtTokenService, VerifiedTokenCache tokenCache,
+                               TokenRevocationList revocationList) {
+        this.jwtTokenService = jwtTokenService;
+        this.tokenCache = tokenCache;
+        this.revocationList = revocationList;
+    }
+
+    /**
+     * @return the cached verification for this token, or null on a miss (or without a cache)
+     */
+    public VerifiedTokenCache.VerifiedToken cached(String token) {
+        return tokenCache == null ? null : tokenCache.get(token);
+    }
+
+    /**
+     * Verifies the token signature and caches the result; the ctx claim arrives already mapped
+     * to a {@link CDBContext}. CPU-bound, so reactive callers should run it on a worker scheduler.
+     *
+     * @return the verified token, or null if the token is invalid or expired
+     */
+    public VerifiedTokenCache.VerifiedToken verify(String token) {
+        JwtVerification verification = checkSignature(token);
+        return verification.isValid() ? toVerified(token, verification) : null;
+    }
+
+    /**
+     * The signature step of {@link #verify(String)} alone, for callers that time the steps
+     * separately or need the failure reason.
+     */
+    public JwtVerification checkSignature(String token) {
+        return jwtTokenService.verify(token);
+    }
+
+    /**
+     * The mapping step of {@link #verify(String)}: builds the verified token from a valid
+     * verification and caches it.
+     */
+    public VerifiedTokenCache.VerifiedToken toVerified(String token, JwtVerification verification) {
+        // Backward-compatible if the ctx claim is absent
+        CDBContext context = verification.context();
+        if (context == null) {
+            context = CDBContext.builder().build();
+        }
+        List<GrantedAuthority> authorities = AuthorityInterner.grantedAuthorities(context);
+        long expiresAt = verification.expiresAt() == null ? Long.MAX_VALUE : verification.expiresAt().toEpochMilli();
+        VerifiedTokenCache.VerifiedToken verified = new VerifiedTokenCache.VerifiedToken(verification.subject(),
+                verification.jwtId(), context, authorities, expiresAt);
+        if (tokenCache != null) {
+            tokenCache.put(token, verified);
+        }
+        return verified;
+    }
+
+    /**
+     * @return true if the token's jti has been revoked; local and lock-free
+     */
+    public boolean isRevoked(VerifiedTokenCache.VerifiedToken verified) {
+        return revocationList != null && revocationList.isRevoked(verified.jwtId());
+    }
+
+    /**
+     * Cache lookup, then verification on a miss.
+     *
+     * @return the verified token, or null if the token is invalid or expired
+     */
+    public VerifiedTokenCache.VerifiedToken resolve(String token) {
+        VerifiedTokenCache.VerifiedToken verified = cached(token);
+        return verified != null ? verified : verify(token);
+    }
+}
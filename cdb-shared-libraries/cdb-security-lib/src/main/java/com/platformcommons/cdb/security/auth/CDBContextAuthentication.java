@@ -15,14 +15,23 @@ public class CDBContextAuthentication extends AbstractAuthenticationToken {
     private final Object principal;
     private final CDBContext context;
     private final String accessToken;
+    private final String internalContext;
 
     public CDBContextAuthentication(Object principal,
                                     CDBContext context,
                                     Collection<? extends GrantedAuthority> authorities, String accessToken) {
+        this(principal, context, authorities, accessToken, null);
+    }
+
+    public CDBContextAuthentication(Object principal,
+                                    CDBContext context,
+                                    Collection<? extends GrantedAuthority> authorities, String accessToken,
+                                    String internalContext) {
         super(authorities);
         this.principal = principal;
         this.context = context;
         this.accessToken = accessToken;
+        this.internalContext = internalContext;
         // JWT is already validated by filter
         setAuthenticated(true);
     }
@@ -44,4 +53,12 @@ public class CDBContextAuthentication extends AbstractAuthenticationToken {
     public String getAccessToken() {
         return accessToken;
     }
+
+    /**
+     * @return the signed {@link InternalContextCodec#HEADER} value to forward on service-to-service
+     * calls, or null when the internal context header is not configured
+     */
+    public String getInternalContext() {
+        return internalContext;
+    }
 }
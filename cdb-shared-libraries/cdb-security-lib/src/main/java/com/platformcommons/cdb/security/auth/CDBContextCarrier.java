@@ -0,0 +1,125 @@
+package com.platformcommons.cdb.security.auth;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Carries the caller's {@link CDBContextAuthentication} into work that runs on other threads
+ * (executors, CompletableFuture stages, virtual threads), where the request thread's
+ * SecurityContextHolder is not visible.
+ * <p>
+ * The shape follows {@code ScopedValue}: a value is bound for the dynamic extent of
+ * {@link Binding#run}/{@link Binding#call} and the previous binding is restored on exit, so a
+ * binding can never leak into the next task a pooled thread runs. {@code ScopedValue} itself is
+ * still a preview API on Java 21, so the binding is held in a plain (non-inheritable)
+ * ThreadLocal; when the platform moves to a JDK where it is final, only this class changes.
+ * {@link #wrap} captures the current authentication once, at submission, so a task costs one
+ * set/restore instead of copying the whole SecurityContext.
+ * </p>
+ * Readers ({@link CDBSecurityUtil}, and through it the JPA audit listener) use {@link #current()},
+ * which prefers a carried binding and falls back to SecurityContextHolder on request threads.
+ *
+ * @see CDBContextExecutors
+ */
+public final class CDBContextCarrier {
+
+    private static final ThreadLocal<CDBContextAuthentication> BOUND = new ThreadLocal<>();
+
+    private CDBContextCarrier() {
+    }
+
+    /**
+     * @return the carried authentication, else the SecurityContextHolder one if it is a
+     * CDBContextAuthentication, else null
+     */
+    public static CDBContextAuthentication current() {
+        CDBContextAuthentication bound = BOUND.get();
+        if (bound != null) {
+            return bound;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication instanceof CDBContextAuthentication cdbAuth ? cdbAuth : null;
+    }
+
+    /**
+     * @param authentication may be null, which runs work with no carried context
+     */
+    public static Binding where(CDBContextAuthentication authentication) {
+        return new Binding(authentication);
+    }
+
+    /**
+     * @return the task bound to the authentication current at this call, or the task itself when
+     * there is none
+     */
+    public static Runnable wrap(Runnable task) {
+        CDBContextAuthentication captured = current();
+        return captured == null ? task : () -> where(captured).run(task);
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        CDBContextAuthentication captured = current();
+        return captured == null ? task : () -> where(captured).call(task);
+    }
+
+    public static <T> Supplier<T> wrap(Supplier<T> task) {
+        CDBContextAuthentication captured = current();
+        return captured == null ? task : () -> where(captured).get(task);
+    }
+
+    /**
+     * A value bound for the extent of one call.
+     */
+    public static final class Binding {
+
+        private final CDBContextAuthentication authentication;
+
+        private Binding(CDBContextAuthentication authentication) {
+            this.authentication = authentication;
+        }
+
+        public void run(Runnable task) {
+            CDBContextAuthentication previous = bind();
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        }
+
+        public <T> T call(Callable<T> task) throws Exception {
+            CDBContextAuthentication previous = bind();
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        }
+
+        public <T> T get(Supplier<T> task) {
+            CDBContextAuthentication previous = bind();
+            try {
+                return task.get();
+            } finally {
+                restore(previous);
+            }
+        }
+
+        private CDBContextAuthentication bind() {
+            CDBContextAuthentication previous = BOUND.get();
+            BOUND.set(authentication);
+            return previous;
+        }
+
+        private static void restore(CDBContextAuthentication previous) {
+            if (previous == null) {
+                BOUND.remove();
+            } else {
+                BOUND.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.platformcommons.cdb.security.auth;
+
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Executor decorators that hand the submitting thread's {@link CDBContextCarrier} binding to each
+ * task, so audit stamping and {@link CDBSecurityUtil} keep working in parallel fan-out, e.g.
+ * {@code CDBContextExecutors.decorate(Executors.newVirtualThreadPerTaskExecutor())} or a
+ * {@code CompletableFuture.supplyAsync(supplier, decoratedExecutor)}. Spring's task executors
+ * (and so {@code @Async}) get the same behaviour from {@link #taskDecorator()}, which
+ * BaseSecurityConfig registers for Boot to apply.
+ */
+public final class CDBContextExecutors {
+
+    private CDBContextExecutors() {
+    }
+
+    public static Executor decorate(Executor executor) {
+        if (executor instanceof ExecutorService service) {
+            return decorate(service);
+        }
+        return task -> executor.execute(CDBContextCarrier.wrap(task));
+    }
+
+    public static ExecutorService decorate(ExecutorService executor) {
+        return executor instanceof PropagatingExecutorService ? executor : new PropagatingExecutorService(executor);
+    }
+
+    public static TaskDecorator taskDecorator() {
+        return CDBContextCarrier::wrap;
+    }
+
+    private static <T> List<Callable<T>> wrapAll(Collection<? extends Callable<T>> tasks) {
+        List<Callable<T>> wrapped = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            wrapped.add(CDBContextCarrier.wrap(task));
+        }
+        return wrapped;
+    }
+
+    private static final class PropagatingExecutorService implements ExecutorService {
+
+        private final ExecutorService delegate;
+
+        PropagatingExecutorService(ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(CDBContextCarrier.wrap(command));
+        }
+
+        @Override
+        public <T> Future<T> submit(Callable<T> task) {
+            return delegate.submit(CDBContextCarrier.wrap(task));
+        }
+
+        @Override
+        public <T> Future<T> submit(Runnable task, T result) {
+            return delegate.submit(CDBContextCarrier.wrap(task), result);
+        }
+
+        @Override
+        public Future<?> submit(Runnable task) {
+            return delegate.submit(CDBContextCarrier.wrap(task));
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+            return delegate.invokeAll(wrapAll(tasks));
+        }
+
+        @Override
+        public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+                throws InterruptedException {
+            return delegate.invokeAll(wrapAll(tasks), timeout, unit);
+        }
+
+        @Override
+        public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+                throws InterruptedException, ExecutionException {
+            return delegate.invokeAny(wrapAll(tasks));
+        }
+
+        @Override
+        public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            return delegate.invokeAny(wrapAll(tasks), timeout, unit);
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
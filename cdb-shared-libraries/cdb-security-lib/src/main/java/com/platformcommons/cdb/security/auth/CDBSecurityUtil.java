@@ -1,10 +1,12 @@
 package com.platformcommons.cdb.security.auth;
 
 import com.platformcommons.cdb.security.context.CDBContext;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+/**
+ * Current caller's identity, read through {@link CDBContextCarrier}: the binding carried into
+ * executor/async work, else the request thread's SecurityContextHolder.
+ */
 @Component
 public class CDBSecurityUtil {
 
@@ -25,28 +27,44 @@ public class CDBSecurityUtil {
     }
 
     public String  getCurrentAccessToken() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication instanceof CDBContextAuthentication cdbAuth) {
-            return cdbAuth.getAccessToken();
-        }
-        throw new IllegalStateException("Invalid authentication context");
+        return currentAuthentication().getAccessToken();
+    }
+
+    /**
+     * @return the signed internal context header value for outgoing calls, or null if not configured
+     */
+    public String getCurrentInternalContext() {
+        return currentAuthentication().getInternalContext();
+    }
+
+    /**
+     * Constant-time check against the current context's authority bitset.
+     */
+    public boolean hasAuthority(String code) {
+        CDBContextAuthentication cdbAuth = CDBContextCarrier.current();
+        return cdbAuth != null && cdbAuth.getContext() != null && cdbAuth.getContext().hasAuthority(code);
+    }
+
+    public boolean hasRole(String code) {
+        CDBContextAuthentication cdbAuth = CDBContextCarrier.current();
+        return cdbAuth != null && cdbAuth.getContext() != null && cdbAuth.getContext().hasRole(code);
     }
 
     private CDBContext.ProviderContext getCurrentProviderContext() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication instanceof CDBContextAuthentication cdbAuth) {
-            return cdbAuth.getContext().getProvider();
-        }
-        throw new IllegalStateException("Invalid authentication context");
+        return currentAuthentication().getContext().getProvider();
     }
 
 
     private CDBContext.UserContext getCurrentUserContext() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication instanceof CDBContextAuthentication cdbAuth) {
-            return cdbAuth.getContext().getUser();
+        return currentAuthentication().getContext().getUser();
+    }
+
+    private CDBContextAuthentication currentAuthentication() {
+        CDBContextAuthentication cdbAuth = CDBContextCarrier.current();
+        if (cdbAuth == null) {
+            throw new IllegalStateException("Invalid authentication context");
         }
-        throw new IllegalStateException("Invalid authentication context");
+        return cdbAuth;
     }
 
 
@@ -0,0 +1,246 @@
+package com.platformcommons.cdb.security.auth;
+
+import com.platformcommons.cdb.security.context.CDBContext;
+import org.springframework.security.core.GrantedAuthority;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Compact, HMAC-signed carrier of an already verified request context, passed between services
+ * in the {@value #HEADER} header.
+ * <p>
+ * A trusted hop that has verified the user's JWT (the gateway, or a service's AuthFilter) mints
+ * the header; the next service checks it with one HMAC over a few dozen bytes instead of an
+ * asymmetric signature over the full token, and skips the JSON ctx parse. The header is only as
+ * strong as the shared key, so the key must never leave the service mesh. Tokens are short-lived
+ * (ttl, capped by the original token's expiry) because they are only meant to ride along one
+ * request chain.
+ * </p>
+ * Wire format: {@code base64url(payload) "." base64url(mac)}, where payload is
+ * version, expiry (epoch millis), jti, subject, user id/login, provider id/code, role codes and
+ * authority codes, using unsigned varints for numbers and lengths and UTF-8 for strings, and
+ * mac is HMAC-SHA256(payload) truncated to 128 bits.
+ *
+ * Configuration (see SecurityJwtAutoConfiguration):
+ * - cdb.security.internal-context.secret (base64, at least 32 bytes; enables the header)
+ * - cdb.security.internal-context.ttl (seconds, default 60)
+ */
+public class InternalContextCodec {
+
+    public static final String HEADER = "X-CDB-Context";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int VERSION = 1;
+    private static final int MAC_LENGTH = 16;
+    private static final int MIN_KEY_LENGTH = 32;
+    private static final int MAX_HEADER_LENGTH = 8192;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final long ttlMillis;
+    private final ThreadLocal<Mac> macs;
+
+    public InternalContextCodec(byte[] secret, Duration ttl) {
+        if (secret == null || secret.length < MIN_KEY_LENGTH) {
+            throw new IllegalStateException("Internal context secret must be at least " + MIN_KEY_LENGTH + " bytes");
+        }
+        this.key = new SecretKeySpec(secret.clone(), ALGORITHM);
+        this.ttlMillis = ttl.toMillis();
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * Signs the verified context; the header expires after the ttl or with the token, whichever
+     * comes first.
+     */
+    public String encode(VerifiedTokenCache.VerifiedToken verified) {
+        long expiresAt = Math.min(verified.expiresAtMillis(), System.currentTimeMillis() + ttlMillis);
+        CDBContext context = verified.context();
+        CDBContext.UserContext user = context.getUser();
+        CDBContext.ProviderContext provider = context.getProvider();
+
+        Writer w = new Writer();
+        w.varint(VERSION);
+        w.varint(expiresAt);
+        w.string(verified.jwtId());
+        w.string(verified.principal());
+        w.optionalLong(user == null ? null : user.getId());
+        w.string(user == null ? null : user.getLogin());
+        w.optionalLong(provider == null ? null : provider.getId());
+        w.string(provider == null ? null : provider.getCode());
+        w.strings(context.getRoles());
+        w.strings(context.getAuthorities());
+        byte[] payload = w.toByteArray();
+        return ENCODER.encodeToString(payload) + '.' + ENCODER.encodeToString(mac(payload));
+    }
+
+    /**
+     * @return the verified context, or null if the header is malformed, forged or expired
+     */
+    public VerifiedTokenCache.VerifiedToken decode(String header) {
+        if (header == null || header.length() > MAX_HEADER_LENGTH) {
+            return null;
+        }
+        int dot = header.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        try {
+            byte[] payload = DECODER.decode(header.substring(0, dot));
+            byte[] mac = DECODER.decode(header.substring(dot + 1));
+            if (!MessageDigest.isEqual(mac, mac(payload))) {
+                return null;
+            }
+            Reader r = new Reader(payload);
+            if (r.varint() != VERSION) {
+                return null;
+            }
+            long expiresAt = r.varint();
+            if (expiresAt <= System.currentTimeMillis()) {
+                return null;
+            }
+            String jti = r.string();
+            String principal = r.string();
+            Long userId = r.optionalLong();
+            String login = r.string();
+            Long providerId = r.optionalLong();
+            String providerCode = r.string();
+            List<String> roles = r.strings();
+            List<String> authorities = r.strings();
+            CDBContext.Builder builder = CDBContext.builder().roles(roles).authorities(authorities);
+            if (userId != null || login != null) {
+                builder.user(new CDBContext.UserContext(userId, login));
+            }
+            if (providerId != null || providerCode != null) {
+                builder.provider(new CDBContext.ProviderContext(providerId, providerCode));
+            }
+            CDBContext context = builder.build();
+            List<GrantedAuthority> granted = AuthorityInterner.grantedAuthorities(context);
+            return new VerifiedTokenCache.VerifiedToken(principal, jti, context, granted, expiresAt);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private byte[] mac(byte[] payload) {
+        byte[] full = macs.get().doFinal(payload);
+        byte[] truncated = new byte[MAC_LENGTH];
+        System.arraycopy(full, 0, truncated, 0, MAC_LENGTH);
+        return truncated;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        }
+    }
+
+    private static final class Writer {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+
+        void varint(long v) {
+            while ((v & ~0x7FL) != 0) {
+                out.write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.write((int) v);
+        }
+
+        /** 0 for null, otherwise value + 1 (ids are non-negative). */
+        void optionalLong(Long v) {
+            varint(v == null || v < 0 ? 0 : v + 1);
+        }
+
+        /** 0 for null, otherwise UTF-8 length + 1 followed by the bytes. */
+        void string(String s) {
+            if (s == null) {
+                varint(0);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1L);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        void strings(List<String> values) {
+            varint(values.size());
+            for (String v : values) {
+                string(v);
+            }
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        long varint() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buf[pos++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        Long optionalLong() {
+            long v = varint();
+            return v == 0 ? null : v - 1;
+        }
+
+        String string() {
+            long len = varint();
+            if (len == 0) {
+                return null;
+            }
+            int n = Math.toIntExact(len - 1);
+            if (n > buf.length - pos) {
+                throw new IllegalArgumentException("Truncated string");
+            }
+            String s = new String(buf, pos, n, StandardCharsets.UTF_8);
+            pos += n;
+            return s;
+        }
+
+        List<String> strings() {
+            int count = Math.toIntExact(varint());
+            if (count > buf.length - pos) {
+                throw new IllegalArgumentException("Truncated list");
+            }
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String s = string();
+                if (s != null) {
+                    values.add(s);
+                }
+            }
+            return values;
+        }
+    }
+}
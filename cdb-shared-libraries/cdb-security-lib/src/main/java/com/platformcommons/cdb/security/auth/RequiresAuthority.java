@@ -0,0 +1,39 @@
+package com.platformcommons.cdb.security.auth;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Restricts a method (or every method of a class) to callers whose {@code CDBContext} holds the
+ * given authorities and/or roles. Enforced by {@link RequiresAuthorityInterceptor} with bitset
+ * checks; the required codes are resolved to an AuthoritySet once per method.
+ * When both {@link #value()} and {@link #roles()} are given, both conditions must hold.
+ * Denied calls throw AccessDeniedException (403).
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RequiresAuthority {
+
+    /**
+     * Authority codes, matched according to {@link #match()}.
+     */
+    String[] value() default {};
+
+    /**
+     * Role codes (without the ROLE_ prefix); at least one must be held.
+     */
+    String[] roles() default {};
+
+    Match match() default Match.ANY;
+
+    enum Match {
+        /** At least one of the authorities. */
+        ANY,
+        /** Every one of the authorities. */
+        ALL
+    }
+}
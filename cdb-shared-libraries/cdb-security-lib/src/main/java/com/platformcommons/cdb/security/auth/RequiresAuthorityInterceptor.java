@@ -0,0 +1,81 @@
+package com.platformcommons.cdb.security.auth;
+
+import com.platformcommons.cdb.security.context.AuthorityDictionary;
+import com.platformcommons.cdb.security.context.AuthoritySet;
+import com.platformcommons.cdb.security.context.CDBContext;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Enforces {@link RequiresAuthority} against the current {@link CDBContextAuthentication}.
+ * The annotation of each method is resolved (method first, then declaring class) and compiled to
+ * {@link AuthoritySet}s once; every later call is a few word-wise AND operations on the
+ * context's bitsets, with no collection scans or string comparisons.
+ */
+public class RequiresAuthorityInterceptor implements MethodInterceptor {
+
+    private static final Requirement NONE = new Requirement(AuthoritySet.EMPTY, AuthoritySet.EMPTY, false);
+
+    private final ConcurrentHashMap<MethodClassKey, Requirement> requirements = new ConcurrentHashMap<>();
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Requirement requirement = requirement(invocation);
+        if (requirement != NONE) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (!(authentication instanceof CDBContextAuthentication cdbAuth) || cdbAuth.getContext() == null) {
+                throw new AuthenticationCredentialsNotFoundException("No CDB authentication context");
+            }
+            if (!requirement.permits(cdbAuth.getContext())) {
+                throw new AccessDeniedException("Access is denied");
+            }
+        }
+        return invocation.proceed();
+    }
+
+    private Requirement requirement(MethodInvocation invocation) {
+        Method method = invocation.getMethod();
+        Class<?> targetClass = invocation.getThis() == null ? method.getDeclaringClass()
+                : AopUtils.getTargetClass(invocation.getThis());
+        MethodClassKey key = new MethodClassKey(method, targetClass);
+        Requirement cached = requirements.get(key);
+        return cached != null ? cached : requirements.computeIfAbsent(key, k -> resolve(method, targetClass));
+    }
+
+    private static Requirement resolve(Method method, Class<?> targetClass) {
+        Method specific = AopUtils.getMostSpecificMethod(method, targetClass);
+        RequiresAuthority annotation = AnnotatedElementUtils.findMergedAnnotation(specific, RequiresAuthority.class);
+        if (annotation == null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(targetClass, RequiresAuthority.class);
+        }
+        if (annotation == null) {
+            return NONE;
+        }
+        return new Requirement(
+                AuthorityDictionary.authorities().setOf(Arrays.asList(annotation.value())),
+                AuthorityDictionary.roles().setOf(Arrays.asList(annotation.roles())),
+                annotation.match() == RequiresAuthority.Match.ALL);
+    }
+
+    private record Requirement(AuthoritySet authorities, AuthoritySet roles, boolean all) {
+
+        boolean permits(CDBContext context) {
+            if (!authorities.isEmpty()) {
+                boolean ok = all ? context.hasAllAuthorities(authorities) : context.hasAnyAuthority(authorities);
+                if (!ok) return false;
+            }
+            return roles.isEmpty() || context.hasAnyRole(roles);
+        }
+    }
+}
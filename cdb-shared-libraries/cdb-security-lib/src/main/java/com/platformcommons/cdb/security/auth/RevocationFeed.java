@@ -0,0 +1,23 @@
+package com.platformcommons.cdb.security.auth;
+
+import java.util.List;
+
+/**
+ * One page of the auth-registry revocation feed ({@code GET /api/v1/auth/revocations?since=N}).
+ * Entries are ordered by their monotonically increasing sequence number; {@code sequence} is the
+ * highest sequence included, to be passed as {@code since} on the next poll.
+ */
+public record RevocationFeed(long sequence, List<Entry> revocations) {
+
+    public RevocationFeed {
+        revocations = revocations == null ? List.of() : List.copyOf(revocations);
+    }
+
+    /**
+     * @param seq       position in the feed
+     * @param jti       revoked token id
+     * @param expiresAt expiry of the revoked token (epoch seconds); the entry is dropped after it
+     */
+    public record Entry(long seq, String jti, long expiresAt) {
+    }
+}
@@ -0,0 +1,117 @@
+package com.platformcommons.cdb.security.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a {@link TokenRevocationList} in sync with the auth-registry revocation feed
+ * ({@code /api/v1/auth/revocations}, served by RevocationController).
+ * <p>
+ * A daemon thread asks for everything after the last sequence it has seen, page by page, and
+ * prunes expired entries after each poll. All network traffic happens on that thread; the
+ * request path only ever reads the local list. If a poll fails the list keeps what it has and
+ * the next poll resumes from the same sequence.
+ * </p>
+ * <p>
+ * Sequences are IDENTITY ids, allocated at insert but visible only at commit, so a revocation
+ * can appear below a sequence already seen. Each poll therefore starts {@code overlap} ids
+ * behind the last sequence; the entries it reads again are harmless, as revoking is idempotent.
+ * </p>
+ *
+ * Configuration (see SecurityJwtAutoConfiguration):
+ * - cdb.security.jwt.revocation.uri (enables polling)
+ * - cdb.security.jwt.revocation.refresh-interval (seconds, default 10)
+ * - cdb.security.jwt.revocation.page-size (default 1000)
+ * - cdb.security.jwt.revocation.overlap (ids re-read behind the last sequence, default 1000)
+ * - cdb.security.jwt.revocation.timeout-ms (default 2000)
+ */
+public class RevocationFeedPoller implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RevocationFeedPoller.class);
+
+    private final String feedUri;
+    private final TokenRevocationList revocationList;
+    private final Duration refreshInterval;
+    private final int pageSize;
+    private final long overlap;
+    private final RestTemplate restTemplate;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile long lastSequence;
+
+    public RevocationFeedPoller(String feedUri, TokenRevocationList revocationList,
+                                Duration refreshInterval, int pageSize, long overlap, long timeoutMs) {
+        this.feedUri = feedUri;
+        this.revocationList = revocationList;
+        this.refreshInterval = refreshInterval;
+        this.pageSize = pageSize;
+        this.overlap = Math.max(0L, overlap);
+        SimpleClientHttpRequestFactory rf = new SimpleClientHttpRequestFactory();
+        rf.setConnectTimeout((int) timeoutMs);
+        rf.setReadTimeout((int) timeoutMs);
+        this.restTemplate = new RestTemplate(rf);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cdb-revocation-poll");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Loads the current feed once (failures are logged, not thrown) and schedules polling.
+     */
+    public void start() {
+        poll();
+        long period = refreshInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::poll, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    void poll() {
+        try {
+            long cursor = Math.max(0L, lastSequence - overlap);
+            RevocationFeed page;
+            do {
+                String uri = UriComponentsBuilder.fromUriString(feedUri)
+                        .queryParam("since", cursor)
+                        .queryParam("limit", pageSize)
+                        .toUriString();
+                page = restTemplate.getForObject(uri, RevocationFeed.class);
+                if (page == null) {
+                    break;
+                }
+                Map<String, Long> entries = new HashMap<>();
+                for (RevocationFeed.Entry e : page.revocations()) {
+                    entries.put(e.jti(), TimeUnit.SECONDS.toMillis(e.expiresAt()));
+                }
+                revocationList.revokeAll(entries);
+                lastSequence = Math.max(lastSequence, page.sequence());
+                if (page.sequence() <= cursor) {
+                    break;
+                }
+                cursor = page.sequence();
+            } while (page.revocations().size() >= pageSize);
+        } catch (Exception e) {
+            log.warn("Failed to poll revocation feed {}: {}; resuming from sequence {}", feedUri, e.getMessage(), lastSequence);
+        }
+        revocationList.prune();
+    }
+}
@@ -0,0 +1,172 @@
+package com.platformcommons.cdb.security.auth;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local set of revoked token ids ({@code jti}), consulted by AuthFilter on every request.
+ * <p>
+ * A Bloom filter sits in front of an exact set. A token that was never revoked (almost every
+ * request) is answered by the Bloom filter alone: one (cached) hash of the jti and a handful of bit
+ * probes, no locks, no allocation and never a network call. Only a Bloom hit falls through to
+ * the exact set, which rules out false positives.
+ * </p>
+ * Entries are kept until the revoked token would have expired anyway; {@link #prune()} drops
+ * them and rebuilds the Bloom filter (which cannot delete) from what is left. Writers are
+ * serialized; readers only see fully built filters through a volatile reference.
+ *
+ * Configuration (see SecurityJwtAutoConfiguration):
+ * - cdb.security.jwt.revocation.enabled (default true)
+ * - cdb.security.jwt.revocation.expected-entries (Bloom filter sizing, default 100000)
+ */
+public class TokenRevocationList {
+
+    /** Bits per expected entry and probes per lookup; about 0.1% false positives at capacity. */
+    private static final int BITS_PER_ENTRY = 15;
+    private static final int HASHES = 10;
+
+    private final int expectedEntries;
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloom;
+
+    public TokenRevocationList(int expectedEntries) {
+        this.expectedEntries = Math.max(expectedEntries, 1024);
+        this.bloom = new BloomFilter(this.expectedEntries);
+    }
+
+    /**
+     * @return true if this jti has been revoked and the revocation has not yet aged out
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        long hash = hash(jti);
+        if (!bloom.mightContain(hash)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(jti);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * Records a revocation. Entries already past their expiry are ignored: the token is
+     * rejected on exp regardless.
+     *
+     * @param expiresAtMillis expiry of the revoked token (epoch millis)
+     */
+    public synchronized void revoke(String jti, long expiresAtMillis) {
+        if (jti == null || expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        revoked.put(jti, expiresAtMillis);
+        BloomFilter current = bloom;
+        if (revoked.size() > current.capacity) {
+            // Keep the false-positive rate in check as the set grows past its sizing
+            rebuild(revoked.size() * 2);
+        } else {
+            current.put(hash(jti));
+            // Volatile re-publish: readers that load the reference afterwards see the new bits
+            bloom = current;
+        }
+    }
+
+    public synchronized void revokeAll(Map<String, Long> entries) {
+        for (Map.Entry<String, Long> e : entries.entrySet()) {
+            revoke(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Drops entries whose token has expired and rebuilds the Bloom filter without them.
+     *
+     * @return number of entries removed
+     */
+    public synchronized int prune() {
+        long now = System.currentTimeMillis();
+        int before = revoked.size();
+        revoked.values().removeIf(exp -> exp <= now);
+        int removed = before - revoked.size();
+        if (removed > 0) {
+            rebuild(Math.max(expectedEntries, revoked.size() * 2));
+        }
+        return removed;
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    /**
+     * @return a copy of the current entries (jti to expiry millis)
+     */
+    public Map<String, Long> snapshot() {
+        return new HashMap<>(revoked);
+    }
+
+    private void rebuild(int capacity) {
+        BloomFilter next = new BloomFilter(capacity);
+        for (String jti : revoked.keySet()) {
+            next.put(hash(jti));
+        }
+        bloom = next;
+    }
+
+    /**
+     * Spreads the String hash (computed once and cached by the String itself, and the jti instance
+     * is reused across requests via the token cache) to 64 bits with the murmur3 finalizer.
+     * 32 bits of input entropy only add ~n/2^32 to the false-positive rate, which the exact set
+     * absorbs anyway.
+     */
+    private static long hash(String s) {
+        long h = s.hashCode() * 0x9e3779b97f4a7c15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Fixed-size Bloom filter using double hashing (Kirsch-Mitzenmacher) over one 64-bit hash.
+     * Bits are only ever set, and every write is followed by a volatile store of the filter
+     * reference, so plain long[] reads are sufficient: a read racing a {@link #put} can at worst
+     * miss the new bits, i.e. see the revocation one request late.
+     */
+    private static final class BloomFilter {
+        private final long[] bits;
+        private final int mask;
+        private final int capacity;
+
+        BloomFilter(int capacity) {
+            this.capacity = capacity;
+            long wanted = (long) capacity * BITS_PER_ENTRY;
+            int size = Integer.highestOneBit((int) Math.min(wanted, 1L << 30) - 1) << 1;
+            this.bits = new long[Math.max(size >>> 6, 1)];
+            this.mask = (bits.length << 6) - 1;
+        }
+
+        void put(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & mask;
+                bits[bit >>> 6] |= 1L << bit;
+            }
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & mask;
+                if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.platformcommons.cdb.security.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.platformcommons.cdb.security.context.CDBContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of access tokens whose signature has already been verified.
+ * <p>
+ * Entries are keyed by the SHA-256 digest of the raw token (the token itself is never retained)
+ * and expire exactly at the token's {@code exp} claim, so a hit is as trustworthy as a fresh
+ * signature check. The cache is size-bounded and records hit/miss/eviction counters, published
+ * through {@link #bindTo} as Micrometer's standard cache meters ({@code cache.gets},
+ * {@code cache.evictions}, {@code cache.size}, ...) under the name {@value #CACHE_NAME}.
+ * </p>
+ *
+ * Configuration (see SecurityJwtAutoConfiguration):
+ * - cdb.security.jwt.cache.enabled (default true)
+ * - cdb.security.jwt.cache.max-size (default 10000 entries)
+ */
+public class VerifiedTokenCache {
+
+    public static final String CACHE_NAME = "cdb.security.verified-tokens";
+
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return the verified entry for this token, or null if absent or already expired
+     */
+    public VerifiedToken get(String token) {
+        return cache.getIfPresent(key(token));
+    }
+
+    public void put(String token, VerifiedToken verified) {
+        if (verified.expiresAtMillis() <= System.currentTimeMillis()) {
+            return;
+        }
+        cache.put(key(token), verified);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Registers the hit, miss, eviction and size meters, tagged with the service name.
+     */
+    public void bindTo(MeterRegistry registry, String service) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME, Tags.of("service", service));
+    }
+
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+
+    public long evictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    private static String key(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Result of a successful verification: everything AuthFilter needs to build a
+     * {@link CDBContextAuthentication} without touching the token again.
+     */
+    public record VerifiedToken(String principal,
+                                String jwtId,
+                                CDBContext context,
+                                Collection<? extends GrantedAuthority> authorities,
+                                long expiresAtMillis) {
+        public VerifiedToken {
+            authorities = authorities == null ? List.of() : List.copyOf(authorities);
+        }
+    }
+
+    private static class TokenExpiry implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            return remaining(value);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return remaining(value);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        private static long remaining(VerifiedToken value) {
+            long millis = value.expiresAtMillis() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0L, millis));
+        }
+    }
+}
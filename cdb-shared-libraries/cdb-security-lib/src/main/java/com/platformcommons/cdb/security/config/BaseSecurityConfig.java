@@ -1,19 +1,40 @@
 package com.platformcommons.cdb.security.config;
 
+import com.platformcommons.cdb.security.auth.CDBContextExecutors;
+import com.platformcommons.cdb.security.auth.InternalContextCodec;
+import com.platformcommons.cdb.security.auth.RequiresAuthority;
+import com.platformcommons.cdb.security.auth.RequiresAuthorityInterceptor;
+import com.platformcommons.cdb.security.auth.TokenRevocationList;
+import com.platformcommons.cdb.security.auth.VerifiedTokenCache;
 import com.platformcommons.cdb.security.filter.AuthFilter;
-import com.platformcommons.cdb.security.filter.PublicEndpoints;
+import com.platformcommons.cdb.security.filter.AuthFilterMetrics;
+import com.platformcommons.cdb.security.filter.PublicPathMatcher;
 import com.platformcommons.cdb.security.jwt.JwtTokenService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
+import java.util.Arrays;
+
 @Configuration
 @ConditionalOnClass(HttpSecurity.class)
 @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
@@ -21,15 +42,14 @@ public class BaseSecurityConfig {
 
     @Bean
     @ConditionalOnMissingBean(SecurityFilterChain.class)
-    public SecurityFilterChain filterChain(HttpSecurity http, AuthFilter authFilter) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, AuthFilter authFilter,
+                                           PublicPathMatcher publicPathMatcher) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(Customizer.withDefaults())
                 .authorizeHttpRequests(auth -> auth
                         // Permit static assets and SPA routes
-                        .requestMatchers(
-                                PublicEndpoints.PUBLIC_PATTERNS
-                        ).permitAll()
+                        .requestMatchers(publicPathMatcher).permitAll()
                         .anyRequest().authenticated()
                 )
                 .formLogin(AbstractHttpConfigurer::disable)
@@ -40,8 +60,59 @@ public class BaseSecurityConfig {
 
     @Bean
     @ConditionalOnMissingBean(AuthFilter.class)
-    public AuthFilter authFilter(JwtTokenService jwtTokenService) {
-        return new AuthFilter(jwtTokenService);
+    public AuthFilter authFilter(JwtTokenService jwtTokenService, ObjectProvider<VerifiedTokenCache> tokenCache,
+                                 PublicPathMatcher publicPathMatcher, ObjectProvider<TokenRevocationList> revocationList,
+                                 ObjectProvider<InternalContextCodec> internalContextCodec,
+                                 ObjectProvider<AuthFilterMetrics> authFilterMetrics) {
+        return new AuthFilter(jwtTokenService, tokenCache.getIfAvailable(), publicPathMatcher,
+                revocationList.getIfAvailable(), internalContextCodec.getIfAvailable(),
+                authFilterMetrics.getIfAvailable());
+    }
+
+    /**
+     * AuthFilter phase timers and outcome counters, registered with the service's MeterRegistry
+     * (Actuator) or, without one, Micrometer's global registry.
+     */
+    @Bean
+    @ConditionalOnMissingBean(AuthFilterMetrics.class)
+    @ConditionalOnProperty(prefix = "cdb.security.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public AuthFilterMetrics authFilterMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+                                               @Value("${spring.application.name:unknown}") String service) {
+        return new AuthFilterMetrics(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), service);
+    }
+
+    /**
+     * Built-in public patterns plus service-specific ones from
+     * {@code cdb.security.public-paths} (comma-separated, same syntax as PublicEndpoints).
+     */
+    @Bean
+    @ConditionalOnMissingBean(PublicPathMatcher.class)
+    public PublicPathMatcher publicPathMatcher(@Value("${cdb.security.public-paths:}") String[] additionalPatterns) {
+        return PublicPathMatcher.defaults().extend(Arrays.asList(additionalPatterns));
+    }
+
+    /**
+     * Carries the submitting request's CDBContext into Spring task executors (including
+     * {@code @Async} methods); Boot applies a single TaskDecorator bean to the executors it builds.
+     */
+    @Bean
+    @ConditionalOnMissingBean(TaskDecorator.class)
+    public TaskDecorator cdbContextTaskDecorator() {
+        return CDBContextExecutors.taskDecorator();
     }
 
+    /**
+     * Enforces {@link RequiresAuthority} on any bean method or class carrying it. Registered as an
+     * infrastructure advisor so Boot's default auto-proxy creator applies it without AspectJ.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnMissingBean(name = "requiresAuthorityAdvisor")
+    public static Advisor requiresAuthorityAdvisor() {
+        ComposablePointcut pointcut = new ComposablePointcut(new AnnotationMatchingPointcut(RequiresAuthority.class, true))
+                .union(AnnotationMatchingPointcut.forMethodAnnotation(RequiresAuthority.class));
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, new RequiresAuthorityInterceptor());
+        advisor.setOrder(0);
+        return advisor;
+    }
 }
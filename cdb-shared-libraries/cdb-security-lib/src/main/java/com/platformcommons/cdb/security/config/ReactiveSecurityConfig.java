@@ -0,0 +1,71 @@
+package com.platformcommons.cdb.security.config;
+
+import com.platformcommons.cdb.security.auth.BearerTokenVerifier;
+import com.platformcommons.cdb.security.auth.InternalContextCodec;
+import com.platformcommons.cdb.security.auth.TokenRevocationList;
+import com.platformcommons.cdb.security.auth.VerifiedTokenCache;
+import com.platformcommons.cdb.security.filter.PublicPathMatcher;
+import com.platformcommons.cdb.security.filter.ReactiveAuthFilter;
+import com.platformcommons.cdb.security.jwt.JwtTokenService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.server.WebFilter;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Arrays;
+
+/**
+ * Reactive (WebFlux) counterpart of BaseSecurityConfig: registers {@link ReactiveAuthFilter}
+ * so reactive services, in particular the API gateway, reject bad tokens at the edge.
+ */
+@Configuration
+@ConditionalOnClass(WebFilter.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(prefix = "cdb.security.reactive", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ReactiveSecurityConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(ReactiveAuthFilter.class)
+    public ReactiveAuthFilter reactiveAuthFilter(JwtTokenService jwtTokenService,
+                                                 ObjectProvider<VerifiedTokenCache> tokenCache,
+                                                 ObjectProvider<TokenRevocationList> revocationList,
+                                                 ObjectProvider<InternalContextCodec> internalContextCodec,
+                                                 PublicPathMatcher publicPathMatcher,
+                                                 Scheduler cdbJwtVerifyScheduler,
+                                                 @Value("${cdb.security.reactive.strip-prefixes:}") String[] stripPrefixes) {
+        BearerTokenVerifier verifier = new BearerTokenVerifier(jwtTokenService, tokenCache.getIfAvailable(),
+                revocationList.getIfAvailable());
+        return new ReactiveAuthFilter(verifier, publicPathMatcher,
+                Arrays.stream(stripPrefixes).map(String::trim).filter(p -> !p.isEmpty()).toList(),
+                cdbJwtVerifyScheduler, internalContextCodec.getIfAvailable());
+    }
+
+    /**
+     * Bounded worker pool for signature checks: at most verify-threads concurrent verifications
+     * and verify-queue-size waiting ones; beyond that requests are shed with 503.
+     */
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnMissingBean(name = "cdbJwtVerifyScheduler")
+    public Scheduler cdbJwtVerifyScheduler(
+            @Value("${cdb.security.reactive.verify-threads:0}") int threads,
+            @Value("${cdb.security.reactive.verify-queue-size:10000}") int queueSize) {
+        int cap = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return Schedulers.newBoundedElastic(cap, queueSize, "cdb-jwt-verify", 60, true);
+    }
+
+    /**
+     * Same patterns as the servlet side, from {@code cdb.security.public-paths}.
+     */
+    @Bean
+    @ConditionalOnMissingBean(PublicPathMatcher.class)
+    public PublicPathMatcher publicPathMatcher(@Value("${cdb.security.public-paths:}") String[] additionalPatterns) {
+        return PublicPathMatcher.defaults().extend(Arrays.asList(additionalPatterns));
+    }
+}
@@ -1,13 +1,30 @@
 package com.platformcommons.cdb.security.config;
 
+import com.platformcommons.cdb.security.auth.InternalContextCodec;
+import com.platformcommons.cdb.security.auth.RevocationFeedPoller;
+import com.platformcommons.cdb.security.auth.TokenRevocationList;
+import com.platformcommons.cdb.security.auth.VerifiedTokenCache;
+import com.platformcommons.cdb.security.jwt.JwksKeyResolver;
+import com.platformcommons.cdb.security.jwt.JwtAlgorithm;
 import com.platformcommons.cdb.security.jwt.JwtTokenService;
+import com.platformcommons.cdb.security.jwt.TokenDictionaryResolver;
+import com.platformcommons.cdb.security.jwt.TokenDictionarySource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.Set;
 
 @Configuration
 public class SecurityJwtAutoConfiguration {
@@ -15,20 +32,163 @@ public class SecurityJwtAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean(JwtTokenService.class)
     public JwtTokenService jwtTokenService(
-            @Value("${cdb.security.jwt.rsa.private-key:}") String rsaPrivateKeyPem,
-            @Value("${cdb.security.jwt.rsa.public-key:}") String rsaPublicKeyPem,
-            @Value("${cdb.security.jwt.kid:}") String keyId
+            @Value("${cdb.security.jwt.algorithm:RS256}") String algorithmName,
+            @Value("${cdb.security.jwt.private-key:${cdb.security.jwt.rsa.private-key:}}") String privateKeyPem,
+            @Value("${cdb.security.jwt.public-key:${cdb.security.jwt.rsa.public-key:}}") String publicKeyPem,
+            @Value("${cdb.security.jwt.kid:}") String keyId,
+            @Value("${cdb.security.jwt.previous.public-key:}") String previousPublicKeyPem,
+            @Value("${cdb.security.jwt.previous.kid:}") String previousKeyId,
+            @Value("${cdb.security.jwt.accepted-algorithms:RS256,ES256,EdDSA}") String[] acceptedAlgorithmNames,
+            @Value("${cdb.security.jwt.precheck.enabled:true}") boolean precheckEnabled,
+            @Value("${cdb.security.jwt.precheck.clock-skew:30}") long clockSkewSeconds,
+            @Value("${cdb.security.jwt.precheck.max-token-length:8192}") int maxTokenLength,
+            @Value("${spring.application.name:unknown}") String serviceName,
+            ObjectProvider<JwksKeyResolver> jwksKeyResolver,
+            ObjectProvider<TokenDictionarySource> tokenDictionary,
+            ObjectProvider<MeterRegistry> meterRegistry
     ) {
-        String priv = rsaPrivateKeyPem;
-        String pub = rsaPublicKeyPem;
-        if (isBlank(pub)) {
+        JwtAlgorithm algorithm = JwtAlgorithm.fromName(algorithmName);
+        if (algorithm == null) {
+            throw new IllegalStateException("Unsupported cdb.security.jwt.algorithm: " + algorithmName);
+        }
+        Set<JwtAlgorithm> accepted = EnumSet.noneOf(JwtAlgorithm.class);
+        for (String name : acceptedAlgorithmNames) {
+            JwtAlgorithm a = JwtAlgorithm.fromName(name.trim());
+            if (a == null) {
+                throw new IllegalStateException("Unsupported algorithm in cdb.security.jwt.accepted-algorithms: " + name);
+            }
+            accepted.add(a);
+        }
+        String priv = privateKeyPem;
+        String pub = publicKeyPem;
+        JwksKeyResolver jwks = jwksKeyResolver.getIfAvailable();
+        // Bundled development keys are RSA, so they only apply to RS256
+        if (isBlank(pub) && jwks == null && algorithm == JwtAlgorithm.RS256) {
             pub = readClasspath("/cdb-jwt-keys/public.pem");
         }
-        if (isBlank(priv)) {
+        if (isBlank(priv) && algorithm == JwtAlgorithm.RS256) {
             // Private key may be absent on validator services; try default for dev issuer
             priv = readClasspath("/cdb-jwt-keys/private.pem");
         }
-        return new JwtTokenService(priv, pub, keyId);
+        JwtTokenService service = JwtTokenService.builder()
+                .algorithm(algorithm)
+                .privateKeyPem(priv)
+                .publicKeyPem(pub)
+                .keyId(keyId)
+                .previousPublicKeyPem(previousPublicKeyPem)
+                .previousKeyId(previousKeyId)
+                .acceptedAlgorithms(accepted)
+                .jwksKeyResolver(jwks)
+                .tokenDictionary(tokenDictionary.getIfAvailable())
+                .precheckEnabled(precheckEnabled)
+                .clockSkew(Duration.ofSeconds(clockSkewSeconds))
+                .maxTokenLength(maxTokenLength)
+                .build();
+        if (service.getPrecheck() != null) {
+            service.getPrecheck().bindTo(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), serviceName);
+        }
+        return service;
+    }
+
+    /**
+     * JWKS validator mode: enabled by setting cdb.security.jwt.jwks.uri, e.g.
+     * http://cdb-auth-registry:8083/.well-known/jwks.json
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnMissingBean(JwksKeyResolver.class)
+    @ConditionalOnProperty(prefix = "cdb.security.jwt.jwks", name = "uri")
+    public JwksKeyResolver jwksKeyResolver(
+            @Value("${cdb.security.jwt.jwks.uri}") String jwksUri,
+            @Value("${cdb.security.jwt.jwks.refresh-interval:300}") long refreshIntervalSeconds,
+            @Value("${cdb.security.jwt.jwks.min-refetch-interval:30}") long minRefetchIntervalSeconds,
+            @Value("${cdb.security.jwt.jwks.timeout-ms:2000}") long timeoutMs
+    ) {
+        return new JwksKeyResolver(jwksUri, Duration.ofSeconds(refreshIntervalSeconds),
+                Duration.ofSeconds(minRefetchIntervalSeconds), timeoutMs);
+    }
+
+    /**
+     * Compact v2 token support on validators: enabled by setting cdb.security.jwt.dictionary.uri,
+     * e.g. http://cdb-auth-registry:8083/api/v1/auth/token-dictionary. Auth-registry provides its
+     * own source backed by the master tables.
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnMissingBean(TokenDictionarySource.class)
+    @ConditionalOnProperty(prefix = "cdb.security.jwt.dictionary", name = "uri")
+    public TokenDictionaryResolver tokenDictionaryResolver(
+            @Value("${cdb.security.jwt.dictionary.uri}") String dictionaryUri,
+            @Value("${cdb.security.jwt.dictionary.refresh-interval:300}") long refreshIntervalSeconds,
+            @Value("${cdb.security.jwt.dictionary.min-refetch-interval:30}") long minRefetchIntervalSeconds,
+            @Value("${cdb.security.jwt.dictionary.timeout-ms:2000}") long timeoutMs
+    ) {
+        return new TokenDictionaryResolver(dictionaryUri, Duration.ofSeconds(refreshIntervalSeconds),
+                Duration.ofSeconds(minRefetchIntervalSeconds), timeoutMs);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(VerifiedTokenCache.class)
+    @ConditionalOnProperty(prefix = "cdb.security.jwt.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public VerifiedTokenCache verifiedTokenCache(
+            @Value("${cdb.security.jwt.cache.max-size:10000}") long maxSize,
+            @Value("${cdb.security.metrics.enabled:true}") boolean metricsEnabled,
+            @Value("${spring.application.name:unknown}") String serviceName,
+            ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        VerifiedTokenCache cache = new VerifiedTokenCache(maxSize);
+        // Same switch and registry as AuthFilterMetrics
+        if (metricsEnabled) {
+            cache.bindTo(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), serviceName);
+        }
+        return cache;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(TokenRevocationList.class)
+    @ConditionalOnProperty(prefix = "cdb.security.jwt.revocation", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public TokenRevocationList tokenRevocationList(
+            @Value("${cdb.security.jwt.revocation.expected-entries:100000}") int expectedEntries
+    ) {
+        return new TokenRevocationList(expectedEntries);
+    }
+
+    /**
+     * Revocation feed polling: enabled by setting cdb.security.jwt.revocation.uri, e.g.
+     * http://cdb-auth-registry:8083/api/v1/auth/revocations
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnMissingBean(RevocationFeedPoller.class)
+    @ConditionalOnBean(TokenRevocationList.class)
+    @ConditionalOnProperty(prefix = "cdb.security.jwt.revocation", name = "uri")
+    public RevocationFeedPoller revocationFeedPoller(
+            TokenRevocationList tokenRevocationList,
+            @Value("${cdb.security.jwt.revocation.uri}") String feedUri,
+            @Value("${cdb.security.jwt.revocation.refresh-interval:10}") long refreshIntervalSeconds,
+            @Value("${cdb.security.jwt.revocation.page-size:1000}") int pageSize,
+            @Value("${cdb.security.jwt.revocation.overlap:1000}") long overlap,
+            @Value("${cdb.security.jwt.revocation.timeout-ms:2000}") long timeoutMs
+    ) {
+        return new RevocationFeedPoller(feedUri, tokenRevocationList, Duration.ofSeconds(refreshIntervalSeconds),
+                pageSize, overlap, timeoutMs);
+    }
+
+    /**
+     * Internal context header: enabled by setting cdb.security.internal-context.secret to the
+     * same base64 key (at least 32 bytes) on the gateway and on every service behind it.
+     */
+    @Bean
+    @ConditionalOnMissingBean(InternalContextCodec.class)
+    @ConditionalOnProperty(prefix = "cdb.security.internal-context", name = "secret")
+    public InternalContextCodec internalContextCodec(
+            @Value("${cdb.security.internal-context.secret}") String secret,
+            @Value("${cdb.security.internal-context.ttl:60}") long ttlSeconds
+    ) {
+        byte[] key;
+        try {
+            key = Base64.getDecoder().decode(secret.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("cdb.security.internal-context.secret must be base64", e);
+        }
+        return new InternalContextCodec(key, Duration.ofSeconds(ttlSeconds));
     }
 
     private static boolean isBlank(String s) {
@@ -0,0 +1,101 @@
+package com.platformcommons.cdb.security.context;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide mapping of role/authority codes to small, dense integer ids, used to back
+ * {@link AuthoritySet} bitsets. Ids are assigned on first sight and never reused, so a set built
+ * at any time stays valid for the life of the process. There is one dictionary for roles and one
+ * for authorities, mirroring the two lists in {@link CDBContext}.
+ * <p>
+ * Lookups are a single ConcurrentHashMap read; registration (once per distinct code) is
+ * serialized. Codes come from the RBAC master tables via signed tokens, so the dictionary is
+ * bounded by the size of that catalogue.
+ * </p>
+ */
+public final class AuthorityDictionary {
+
+    private static final AuthorityDictionary ROLES = new AuthorityDictionary();
+    private static final AuthorityDictionary AUTHORITIES = new AuthorityDictionary();
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] codes = new String[64];
+    private int size;
+
+    private AuthorityDictionary() {
+    }
+
+    public static AuthorityDictionary roles() {
+        return ROLES;
+    }
+
+    public static AuthorityDictionary authorities() {
+        return AUTHORITIES;
+    }
+
+    /**
+     * @return the id for this code, registering it if new
+     */
+    public int id(String code) {
+        Integer id = ids.get(code);
+        return id != null ? id : register(code);
+    }
+
+    /**
+     * @return the id for this code, or -1 if it has never been seen (no context can hold it)
+     */
+    public int lookup(String code) {
+        Integer id = ids.get(code);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @return the code for an id, or null if unassigned
+     */
+    public String code(int id) {
+        String[] current = codes;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Bitset of the given codes, registering any new ones.
+     */
+    public AuthoritySet setOf(Collection<String> values) {
+        if (values.isEmpty()) {
+            return AuthoritySet.EMPTY;
+        }
+        long[] words = new long[1];
+        for (String code : values) {
+            if (code == null) continue;
+            int id = id(code);
+            int word = id >>> 6;
+            if (word >= words.length) {
+                words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+            }
+            words[word] |= 1L << id;
+        }
+        return AuthoritySet.of(words);
+    }
+
+    private synchronized int register(String code) {
+        Integer existing = ids.get(code);
+        if (existing != null) {
+            return existing;
+        }
+        int id = size++;
+        String[] current = codes;
+        if (id >= current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[id] = code;
+        codes = current;
+        ids.put(code, id);
+        return id;
+    }
+}
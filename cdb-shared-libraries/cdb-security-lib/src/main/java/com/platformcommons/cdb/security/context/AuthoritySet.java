@@ -0,0 +1,79 @@
+package com.platformcommons.cdb.security.context;
+
+import java.util.Arrays;
+
+/**
+ * Immutable bitset of {@link AuthorityDictionary} ids. Membership, any-of and all-of checks are a
+ * few word-wise AND operations, independent of how many codes either side holds.
+ */
+public final class AuthoritySet {
+
+    public static final AuthoritySet EMPTY = new AuthoritySet(new long[0]);
+
+    private final long[] words;
+
+    private AuthoritySet(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * @param words bit words, trailing zero words allowed; not copied, must not be modified
+     */
+    static AuthoritySet of(long[] words) {
+        int n = words.length;
+        while (n > 0 && words[n - 1] == 0) n--;
+        if (n == 0) return EMPTY;
+        return new AuthoritySet(n == words.length ? words : Arrays.copyOf(words, n));
+    }
+
+    public boolean contains(int id) {
+        if (id < 0) return false;
+        int word = id >>> 6;
+        return word < words.length && (words[word] & (1L << id)) != 0;
+    }
+
+    /**
+     * @return true if this set shares at least one id with {@code required}
+     */
+    public boolean containsAny(AuthoritySet required) {
+        int n = Math.min(words.length, required.words.length);
+        for (int i = 0; i < n; i++) {
+            if ((words[i] & required.words[i]) != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if every id in {@code required} is in this set
+     */
+    public boolean containsAll(AuthoritySet required) {
+        long[] req = required.words;
+        for (int i = 0; i < req.length; i++) {
+            long have = i < words.length ? words[i] : 0L;
+            if ((req[i] & ~have) != 0) return false;
+        }
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long w : words) {
+            count += Long.bitCount(w);
+        }
+        return count;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof AuthoritySet other && Arrays.equals(words, other.words));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+}
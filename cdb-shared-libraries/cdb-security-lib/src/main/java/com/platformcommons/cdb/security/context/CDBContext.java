@@ -1,13 +1,18 @@
 package com.platformcommons.cdb.security.context;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Strongly-typed security context carried inside JWT (ctx claim).
  * Fields are optional and may be null depending on token type.
+ * Deserialized from the claim in a single pass by {@link CDBContextDeserializer}.
  */
+@JsonDeserialize(using = CDBContextDeserializer.class)
 public class CDBContext {
 
     private final UserContext user;
@@ -15,15 +20,21 @@ public class CDBContext {
     private final List<String> roles;
     private final List<String> authorities;
 
-    // Raw claims for forward compatibility (non-type-safe extras)
-    private final Map<String, Object> extras;
+    // Raw claims for forward compatibility (non-type-safe extras); built lazily unless given explicitly
+    private volatile Map<String, Object> extras;
+    // ctx fields without a typed counterpart, kept for the lazily built extras
+    private final Map<String, Object> unmapped;
+    // Bitset views over AuthorityDictionary ids, built on first permission check
+    private volatile AuthoritySet roleSet;
+    private volatile AuthoritySet authoritySet;
 
     private CDBContext(Builder b) {
         this.user = b.user;
         this.provider = b.provider;
         this.roles = b.roles == null ? List.of() : List.copyOf(b.roles);
         this.authorities = b.authorities == null ? List.of() : List.copyOf(b.authorities);
-        this.extras = b.extras == null ? Map.of() : Collections.unmodifiableMap(b.extras);
+        this.extras = b.extras == null ? null : Collections.unmodifiableMap(b.extras);
+        this.unmapped = b.unmapped == null ? Map.of() : b.unmapped;
     }
 
     public static Builder builder() {
@@ -46,8 +57,81 @@ public class CDBContext {
         return authorities;
     }
 
+    /**
+     * Authorities as an immutable bitset over {@link AuthorityDictionary#authorities()} ids.
+     */
+    public AuthoritySet getAuthoritySet() {
+        AuthoritySet set = authoritySet;
+        if (set == null) {
+            set = AuthorityDictionary.authorities().setOf(authorities);
+            authoritySet = set;
+        }
+        return set;
+    }
+
+    /**
+     * Roles as an immutable bitset over {@link AuthorityDictionary#roles()} ids.
+     */
+    public AuthoritySet getRoleSet() {
+        AuthoritySet set = roleSet;
+        if (set == null) {
+            set = AuthorityDictionary.roles().setOf(roles);
+            roleSet = set;
+        }
+        return set;
+    }
+
+    public boolean hasAuthority(String code) {
+        return getAuthoritySet().contains(AuthorityDictionary.authorities().lookup(code));
+    }
+
+    public boolean hasAnyAuthority(AuthoritySet required) {
+        return getAuthoritySet().containsAny(required);
+    }
+
+    public boolean hasAllAuthorities(AuthoritySet required) {
+        return getAuthoritySet().containsAll(required);
+    }
+
+    public boolean hasRole(String code) {
+        return getRoleSet().contains(AuthorityDictionary.roles().lookup(code));
+    }
+
+    public boolean hasAnyRole(AuthoritySet required) {
+        return getRoleSet().containsAny(required);
+    }
+
+    /**
+     * Raw view of the ctx claim. Only materialized on first access, since the typed
+     * getters cover what request handling needs.
+     */
     public Map<String, Object> getExtras() {
-        return extras;
+        Map<String, Object> e = extras;
+        if (e == null) {
+            e = buildExtras();
+            extras = e;
+        }
+        return e;
+    }
+
+    private Map<String, Object> buildExtras() {
+        Map<String, Object> raw = new LinkedHashMap<>();
+        if (user != null) {
+            Map<String, Object> u = new LinkedHashMap<>();
+            u.put("id", user.getId());
+            u.put("login", user.getLogin());
+            raw.put("user", Collections.unmodifiableMap(u));
+        }
+        if (provider != null) {
+            Map<String, Object> pr = new LinkedHashMap<>();
+            pr.put("id", provider.getId());
+            pr.put("code", provider.getCode());
+            raw.put("provider", Collections.unmodifiableMap(pr));
+        }
+        raw.put("roles", roles);
+        raw.put("authorities", authorities);
+        raw.putAll(unmapped);
+        return Collections.unmodifiableMap(raw);
     }
 
     public static class Builder {
@@ -56,6 +140,7 @@ public class CDBContext {
         private List<String> roles;
         private List<String> authorities;
         private Map<String, Object> extras;
+        private Map<String, Object> unmapped;
 
         public Builder user(UserContext user) {
             this.user = user;
@@ -82,6 +167,11 @@ public class CDBContext {
             return this;
         }
 
+        Builder unmapped(Map<String, Object> unmapped) {
+            this.unmapped = unmapped;
+            return this;
+        }
+
         public CDBContext build() {
             return new CDBContext(this);
         }
@@ -0,0 +1,139 @@
+package com.platformcommons.cdb.security.context;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams the JWT {@code ctx} claim straight into an immutable {@link CDBContext} in one pass,
+ * without materializing the intermediate {@code Map<String,Object>} tree.
+ * <p>
+ * Lenient like the map-walking code it replaces: ids may be numbers or numeric strings, wrong
+ * shapes are skipped rather than failing the token, and a {@code user} object that wraps another
+ * {@code user} object (as in executive context tokens) is unwrapped. Fields other than
+ * user/provider/roles/authorities are kept for {@link CDBContext#getExtras()}.
+ * </p>
+ */
+public class CDBContextDeserializer extends StdDeserializer<CDBContext> {
+
+    public CDBContextDeserializer() {
+        super(CDBContext.class);
+    }
+
+    @Override
+    public CDBContext deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        CDBContext.Builder builder = CDBContext.builder();
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return builder.build();
+        }
+        Map<String, Object> unmapped = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "user" -> builder.user(readUser(p));
+                case "provider" -> builder.provider(readProvider(p));
+                case "roles" -> builder.roles(readStrings(p));
+                case "authorities" -> builder.authorities(readStrings(p));
+                default -> {
+                    if (unmapped == null) unmapped = new LinkedHashMap<>();
+                    unmapped.put(name, p.readValueAs(Object.class));
+                }
+            }
+        }
+        return builder.unmapped(unmapped).build();
+    }
+
+    private static CDBContext.UserContext readUser(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return null;
+        }
+        Long id = null;
+        String login = null;
+        CDBContext.UserContext nested = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "id" -> id = readLong(p);
+                case "login" -> login = readString(p);
+                case "user" -> nested = readUser(p);
+                default -> p.skipChildren();
+            }
+        }
+        if (id == null && login == null && nested != null) {
+            return nested;
+        }
+        return new CDBContext.UserContext(id, login);
+    }
+
+    private static CDBContext.ProviderContext readProvider(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return null;
+        }
+        Long id = null;
+        String code = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "id" -> id = readLong(p);
+                case "code" -> code = readString(p);
+                default -> p.skipChildren();
+            }
+        }
+        return new CDBContext.ProviderContext(id, code);
+    }
+
+    private static List<String> readStrings(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return List.of();
+        }
+        List<String> values = new ArrayList<>();
+        JsonToken t;
+        while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (t.isScalarValue() && t != JsonToken.VALUE_NULL) {
+                values.add(p.getValueAsString());
+            } else {
+                p.skipChildren();
+            }
+        }
+        return values;
+    }
+
+    private static Long readLong(JsonParser p) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.VALUE_NUMBER_INT) {
+            return p.getLongValue();
+        }
+        if (t == JsonToken.VALUE_STRING) {
+            try {
+                return Long.parseLong(p.getText());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        p.skipChildren();
+        return null;
+    }
+
+    private static String readString(JsonParser p) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t.isScalarValue() && t != JsonToken.VALUE_NULL) {
+            return p.getValueAsString();
+        }
+        p.skipChildren();
+        return null;
+    }
+}
@@ -1,157 +1,151 @@
 package com.platformcommons.cdb.security.filter;
 
+import com.platformcommons.cdb.security.auth.BearerTokenVerifier;
 import com.platformcommons.cdb.security.auth.CDBContextAuthentication;
-import com.platformcommons.cdb.security.context.CDBContext;
+import com.platformcommons.cdb.security.auth.InternalContextCodec;
+import com.platformcommons.cdb.security.auth.TokenRevocationList;
+import com.platformcommons.cdb.security.auth.VerifiedTokenCache;
+import com.platformcommons.cdb.security.filter.AuthFilterMetrics.Outcome;
+import com.platformcommons.cdb.security.filter.AuthFilterMetrics.Phase;
 import com.platformcommons.cdb.security.jwt.JwtTokenService;
-import io.jsonwebtoken.Claims;
+import com.platformcommons.cdb.security.jwt.JwtVerification;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpHeaders;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Map;
 
 /**
  * AuthFilter validates Bearer JWT on protected endpoints.
- * - Skips known public endpoints (OpenAPI/Swagger and some public auth/provider endpoints).
+ * - Skips known public endpoints (OpenAPI/Swagger and some public auth/provider endpoints),
+ *   as decided by the shared {@link PublicPathMatcher}.
  * - If a protected path has no/invalid/expired token, responds with 401.
+ * - Verified tokens are remembered in an optional {@link VerifiedTokenCache} until their expiry,
+ *   so repeated requests with the same token skip signature verification and claim mapping.
+ * - Tokens whose {@code jti} is in the optional {@link TokenRevocationList} are rejected with 401,
+ *   whether they came from the cache or were just verified. The check is local and lock-free.
+ * - With an {@link InternalContextCodec}, a valid signed {@value InternalContextCodec#HEADER}
+ *   header minted by a trusted hop is accepted instead of the JWT (one HMAC, no JSON parse);
+ *   when it is missing or does not verify, the Bearer JWT path applies as usual. Either way the
+ *   authentication carries a header value to forward on outgoing service calls.
+ * - With {@link AuthFilterMetrics}, each phase is timed and each request counted by outcome.
  */
 public class AuthFilter extends OncePerRequestFilter {
 
-    private final JwtTokenService jwtTokenService;
+    private final BearerTokenVerifier verifier;
+    private final PublicPathMatcher publicPaths;
+    private final InternalContextCodec internalContextCodec; // may be null when the header mode is off
+    private final AuthFilterMetrics metrics;
 
     public AuthFilter(JwtTokenService jwtTokenService) {
-        this.jwtTokenService = jwtTokenService;
+        this(jwtTokenService, null);
+    }
+
+    public AuthFilter(JwtTokenService jwtTokenService, VerifiedTokenCache tokenCache) {
+        this(jwtTokenService, tokenCache, PublicPathMatcher.defaults());
+    }
+
+    public AuthFilter(JwtTokenService jwtTokenService, VerifiedTokenCache tokenCache, PublicPathMatcher publicPaths) {
+        this(jwtTokenService, tokenCache, publicPaths, null);
+    }
+
+    public AuthFilter(JwtTokenService jwtTokenService, VerifiedTokenCache tokenCache, PublicPathMatcher publicPaths,
+                      TokenRevocationList revocationList) {
+        this(jwtTokenService, tokenCache, publicPaths, revocationList, null);
+    }
+
+    public AuthFilter(JwtTokenService jwtTokenService, VerifiedTokenCache tokenCache, PublicPathMatcher publicPaths,
+                      TokenRevocationList revocationList, InternalContextCodec internalContextCodec) {
+        this(jwtTokenService, tokenCache, publicPaths, revocationList, internalContextCodec, null);
+    }
+
+    public AuthFilter(JwtTokenService jwtTokenService, VerifiedTokenCache tokenCache, PublicPathMatcher publicPaths,
+                      TokenRevocationList revocationList, InternalContextCodec internalContextCodec,
+                      AuthFilterMetrics metrics) {
+        this.verifier = new BearerTokenVerifier(jwtTokenService, tokenCache, revocationList);
+        this.publicPaths = publicPaths;
+        this.internalContextCodec = internalContextCodec;
+        this.metrics = metrics == null ? AuthFilterMetrics.disabled() : metrics;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
-        if (PublicEndpoints.isPublicPath(request.getRequestURI())) {
+        long mark = metrics.start();
+        boolean publicPath = publicPaths.isPublicPath(request.getRequestURI());
+        mark = metrics.phase(Phase.PUBLIC_PATH, mark);
+        if (publicPath) {
+            metrics.outcome(Outcome.PUBLIC);
             filterChain.doFilter(request, response);
             return;
         }
         String auth = request.getHeader(HttpHeaders.AUTHORIZATION);
-        if (auth == null || !auth.regionMatches(true, 0, "Bearer ", 0, 7)) {
-            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
-            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-            response.getWriter().write("Missing Bearer token");
+        String token = auth != null && auth.regionMatches(true, 0, "Bearer ", 0, 7) ? auth.substring(7) : null;
+        String internalContext = internalContextCodec == null ? null : request.getHeader(InternalContextCodec.HEADER);
+        mark = metrics.phase(Phase.TOKEN_EXTRACTION, mark);
+        if (internalContext == null && token == null) {
+            metrics.outcome(Outcome.MISSING_TOKEN);
+            reject(response, "Bearer", "Missing Bearer token");
             return;
         }
-        String token = auth.substring(7);
         try {
-            if (!jwtTokenService.validate(token)) {
-                response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
-                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                response.getWriter().write("Invalid or expired token");
+            VerifiedTokenCache.VerifiedToken verified = internalContext == null ? null
+                    : internalContextCodec.decode(internalContext);
+            boolean fromHeader = verified != null;
+            if (!fromHeader && token == null) {
+                metrics.phase(Phase.SIGNATURE_VERIFICATION, mark);
+                metrics.outcome(Outcome.MISSING_TOKEN);
+                reject(response, "Bearer", "Missing Bearer token");
                 return;
             }
-            // Set Authentication so downstream can see authenticated user
-            Claims claims = jwtTokenService.parseClaims(token);
-            String username = claims.getSubject();
-
-            // Extract context map from claim key "ctx" (backward-compatible if absent)
-            Object ctxObj = claims.get("ctx");
-            Map<String, Object> ctx = ctxObj instanceof Map ? (Map<String, Object>) ctxObj : Map.of();
-
-            // Build authorities from ctx.roles and ctx.authorities if present
-            Collection<GrantedAuthority> authorities = new ArrayList<>();
-            List<String> roles = new ArrayList<>();
-            List<String> authz = new ArrayList<>();
-            try {
-                Object rolesObj = ctx.get("roles");
-                if (rolesObj instanceof Iterable<?> rolesIt) {
-                    for (Object r : rolesIt) {
-                        if (r != null) {
-                            String rc = r.toString();
-                            roles.add(rc);
-                            authorities.add(new SimpleGrantedAuthority("ROLE_" + rc));
-                        }
-                    }
-                }
-            } catch (Exception ignored) {
+            if (!fromHeader) {
+                verified = verifier.cached(token);
             }
-            try {
-                Object authObj = ctx.get("authorities");
-                if (authObj instanceof Iterable<?> authIt) {
-                    for (Object a : authIt) {
-                        if (a != null) {
-                            String ac = a.toString();
-                            authz.add(ac);
-                            authorities.add(new SimpleGrantedAuthority(ac));
-                        }
-                    }
+            if (verified == null) {
+                JwtVerification verification = verifier.checkSignature(token);
+                mark = metrics.phase(Phase.SIGNATURE_VERIFICATION, mark);
+                if (!verification.isValid()) {
+                    metrics.outcome(verification.failure() == JwtVerification.Failure.EXPIRED
+                            ? Outcome.EXPIRED : Outcome.INVALID);
+                    reject(response, "Bearer error=\"invalid_token\"", "Invalid or expired token");
+                    return;
                 }
-            } catch (Exception ignored) {
+                verified = verifier.toVerified(token, verification);
+                mark = metrics.phase(Phase.CONTEXT_MAPPING, mark);
+            } else {
+                mark = metrics.phase(Phase.SIGNATURE_VERIFICATION, mark);
             }
-
-            // Build type-safe context
-            CDBContext.UserContext userCtx = null;
-            try {
-                Object uo = ctx.get("user");
-                if (uo instanceof Map<?, ?> um) {
-                    Long id = null;
-                    Object idObj = um.get("id");
-                    if (idObj instanceof Number n) id = n.longValue();
-                    else if (idObj != null) {
-                        try {
-                            id = Long.parseLong(idObj.toString());
-                        } catch (Exception ignored2) {
-                        }
-                    }
-                    String login = um.get("login") == null ? null : um.get("login").toString();
-                    userCtx = new CDBContext.UserContext(id, login);
-                }
-            } catch (Exception ignored) {
+            if (verifier.isRevoked(verified)) {
+                metrics.outcome(Outcome.REVOKED);
+                reject(response, "Bearer error=\"invalid_token\"", "Token has been revoked");
+                return;
             }
-
-            CDBContext.ProviderContext providerCtx = null;
-            try {
-                Object po = ctx.get("provider");
-                if (po instanceof Map<?, ?> pm) {
-                    Long id = null;
-                    Object idObj = pm.get("id");
-                    if (idObj instanceof Number n) id = n.longValue();
-                    else if (idObj != null) {
-                        try {
-                            id = Long.parseLong(idObj.toString());
-                        } catch (Exception ignored2) {
-                        }
-                    }
-                    String code = pm.get("code") == null ? null : pm.get("code").toString();
-                    providerCtx = new CDBContext.ProviderContext(id, code);
-                }
-            } catch (Exception ignored) {
+            if (!fromHeader && internalContextCodec != null) {
+                internalContext = internalContextCodec.encode(verified);
             }
-
-            CDBContext context = CDBContext.builder()
-                    .user(userCtx)
-                    .provider(providerCtx)
-                    .roles(roles)
-                    .authorities(authz)
-                    .extras(ctx)
-                    .build();
-
-            CDBContextAuthentication authentication = new CDBContextAuthentication(username, context,
-                    authorities,token);
+            // Set Authentication so downstream can see authenticated user
+            CDBContextAuthentication authentication = new CDBContextAuthentication(verified.principal(),
+                    verified.context(), verified.authorities(), token, internalContext);
             authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(authentication);
+            metrics.phase(Phase.SECURITY_CONTEXT, mark);
+            metrics.outcome(Outcome.OK);
         } catch (Exception e) {
-            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
-            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-            response.getWriter().write("Invalid or expired token");
+            metrics.outcome(Outcome.INVALID);
+            reject(response, "Bearer error=\"invalid_token\"", "Invalid or expired token");
             return;
         }
         filterChain.doFilter(request, response);
     }
+
+    private static void reject(HttpServletResponse response, String challenge, String message) throws IOException {
+        response.setHeader(HttpHeaders.WWW_AUTHENTICATE, challenge);
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.getWriter().write(message);
+    }
 }
@@ -0,0 +1,110 @@
+package com.platformcommons.cdb.security.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for {@link AuthFilter}: one timer per request phase and one counter per
+ * outcome, all tagged with the service name. Every meter is registered up front, so the request
+ * path only reads {@link System#nanoTime()} and records into an array slot; no tags are built and
+ * no registry lookups happen per request. The {@link #disabled()} instance records nothing.
+ *
+ * Meters:
+ * - cdb.security.filter.phase (timer; tags service, phase)
+ * - cdb.security.filter.requests (counter; tags service, outcome)
+ *
+ * Configuration (see BaseSecurityConfig):
+ * - cdb.security.metrics.enabled (default true)
+ * - spring.application.name (used as the service tag)
+ */
+public final class AuthFilterMetrics {
+
+    public static final String PHASE_TIMER = "cdb.security.filter.phase";
+    public static final String OUTCOME_COUNTER = "cdb.security.filter.requests";
+
+    /** Steps of AuthFilter, in request order. */
+    public enum Phase {
+        /** Matching the request path against the public patterns. */
+        PUBLIC_PATH,
+        /** Reading the Authorization and internal context headers. */
+        TOKEN_EXTRACTION,
+        /** Cache lookup and signature (or internal context HMAC) check. */
+        SIGNATURE_VERIFICATION,
+        /** Turning verified claims into a CDBContext and authorities. */
+        CONTEXT_MAPPING,
+        /** Building the Authentication and installing it in the SecurityContext. */
+        SECURITY_CONTEXT
+    }
+
+    /** How a request left AuthFilter. */
+    public enum Outcome {
+        PUBLIC, MISSING_TOKEN, INVALID, EXPIRED, REVOKED, OK
+    }
+
+    private static final AuthFilterMetrics DISABLED = new AuthFilterMetrics();
+
+    private final boolean enabled;
+    private final Timer[] phases;
+    private final Counter[] outcomes;
+
+    private AuthFilterMetrics() {
+        this.enabled = false;
+        this.phases = null;
+        this.outcomes = null;
+    }
+
+    public AuthFilterMetrics(MeterRegistry registry, String service) {
+        this.enabled = true;
+        this.phases = new Timer[Phase.values().length];
+        for (Phase phase : Phase.values()) {
+            phases[phase.ordinal()] = Timer.builder(PHASE_TIMER)
+                    .description("Time spent in each AuthFilter phase")
+                    .tag("service", service)
+                    .tag("phase", phase.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+        this.outcomes = new Counter[Outcome.values().length];
+        for (Outcome outcome : Outcome.values()) {
+            outcomes[outcome.ordinal()] = Counter.builder(OUTCOME_COUNTER)
+                    .description("Requests handled by AuthFilter, by outcome")
+                    .tag("service", service)
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+    }
+
+    public static AuthFilterMetrics disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * @return the start mark for the first phase (0 when disabled)
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records the time since {@code startNanos} against the phase.
+     *
+     * @return the end mark, to be used as the start of the next phase
+     */
+    public long phase(Phase phase, long startNanos) {
+        if (!enabled) {
+            return 0L;
+        }
+        long now = System.nanoTime();
+        phases[phase.ordinal()].record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    public void outcome(Outcome outcome) {
+        if (enabled) {
+            outcomes[outcome.ordinal()].increment();
+        }
+    }
+}
@@ -2,7 +2,8 @@ package com.platformcommons.cdb.security.filter;
 
 /**
  * Centralized constants and helpers for public (unauthenticated) endpoints.
- * Can be referenced from filters and security config to keep behavior aligned.
+ * The patterns are compiled once into {@link PublicPathMatcher}, which filters and security
+ * config share to keep behavior aligned.
  */
 public final class PublicEndpoints {
 
@@ -25,18 +26,11 @@ public final class PublicEndpoints {
     private PublicEndpoints() {
     }
 
+    /**
+     * Checks the built-in patterns only; services should prefer the {@link PublicPathMatcher}
+     * bean, which also includes patterns from {@code cdb.security.public-paths}.
+     */
     public static boolean isPublicPath(String path) {
-        if (path == null) return true;
-        for (String p : PUBLIC_PATTERNS) {
-            if (p.endsWith("/**") || p.endsWith("/*")) {
-                String base = p.replace("/**", "/").replace("/*", "/");
-                if (path.startsWith(base)) return true;
-            }
-            if (p.endsWith("/")) {
-                if (path.startsWith(p)) return true;
-            }
-            if (path.equals(p)) return true;
-        }
-        return false;
+        return PublicPathMatcher.defaults().isPublicPath(path);
     }
 }
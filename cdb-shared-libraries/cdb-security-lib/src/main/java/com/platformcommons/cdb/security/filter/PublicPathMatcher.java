@@ -0,0 +1,144 @@
+package com.platformcommons.cdb.security.filter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Public-path matcher compiled once at startup into a character trie.
+ * <p>
+ * Pattern semantics are those of {@link PublicEndpoints#PUBLIC_PATTERNS}:
+ * entries ending with {@code /**} or {@code /*} and entries ending with {@code /} match by prefix,
+ * anything else matches exactly. A lookup walks the request path once and never allocates,
+ * so its cost depends on the path length, not on how many patterns are registered.
+ * </p>
+ * Shared by {@link AuthFilter} (skip token checks) and BaseSecurityConfig (permitAll) so both
+ * always agree on what is public. Services add their own routes via {@code cdb.security.public-paths}.
+ */
+public final class PublicPathMatcher implements RequestMatcher {
+
+    private static final PublicPathMatcher DEFAULTS = new PublicPathMatcher(Arrays.asList(PublicEndpoints.PUBLIC_PATTERNS));
+
+    private final Node root = new Node();
+    private final List<String> patterns;
+
+    public PublicPathMatcher(Collection<String> patterns) {
+        Set<String> unique = new LinkedHashSet<>();
+        for (String p : patterns) {
+            if (p != null && !p.isBlank()) {
+                unique.add(p.trim());
+            }
+        }
+        this.patterns = List.copyOf(unique);
+        for (String p : this.patterns) {
+            compile(p);
+        }
+    }
+
+    /**
+     * @return matcher for the built-in {@link PublicEndpoints#PUBLIC_PATTERNS}
+     */
+    public static PublicPathMatcher defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @return a new matcher with the given patterns added to this one's
+     */
+    public PublicPathMatcher extend(Collection<String> additional) {
+        if (additional == null || additional.isEmpty()) {
+            return this;
+        }
+        List<String> all = new ArrayList<>(patterns);
+        all.addAll(additional);
+        return new PublicPathMatcher(all);
+    }
+
+    public List<String> getPatterns() {
+        return patterns;
+    }
+
+    public boolean isPublicPath(String path) {
+        return isPublicPath(path, 0);
+    }
+
+    /**
+     * Matches the suffix of {@code path} starting at {@code fromIndex}, without copying it; used
+     * to test gateway paths after a stripped service prefix.
+     */
+    public boolean isPublicPath(String path, int fromIndex) {
+        if (path == null) return true;
+        Node node = root;
+        for (int i = fromIndex, n = path.length(); i < n; i++) {
+            if (node.prefix) return true;
+            node = node.child(path.charAt(i));
+            if (node == null) return false;
+        }
+        return node.prefix || node.exact;
+    }
+
+    @Override
+    public boolean matches(HttpServletRequest request) {
+        return isPublicPath(request.getRequestURI());
+    }
+
+    private void compile(String pattern) {
+        String key = pattern;
+        boolean prefix = false;
+        if (key.endsWith("/**")) {
+            key = key.substring(0, key.length() - 2);
+            prefix = true;
+        } else if (key.endsWith("/*")) {
+            key = key.substring(0, key.length() - 1);
+            prefix = true;
+        } else if (key.endsWith("/")) {
+            prefix = true;
+        }
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+        }
+        if (prefix) {
+            node.prefix = true;
+        } else {
+            node.exact = true;
+        }
+    }
+
+    /**
+     * Trie node. Fan-out per node is tiny for URL paths, so children are kept in parallel
+     * arrays and scanned linearly. Nodes are only mutated while the enclosing matcher is
+     * being constructed.
+     */
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private boolean exact;
+        private boolean prefix;
+
+        Node child(char c) {
+            char[] k = keys;
+            for (int i = 0; i < k.length; i++) {
+                if (k[i] == c) return children[i];
+            }
+            return null;
+        }
+
+        Node childOrCreate(char c) {
+            Node existing = child(c);
+            if (existing != null) return existing;
+            int n = keys.length;
+            keys = Arrays.copyOf(keys, n + 1);
+            children = Arrays.copyOf(children, n + 1);
+            keys[n] = c;
+            children[n] = new Node();
+            return children[n];
+        }
+    }
+}
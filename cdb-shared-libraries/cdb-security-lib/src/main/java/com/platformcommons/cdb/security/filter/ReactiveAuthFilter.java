@@ -0,0 +1,161 @@
+package com.platformcommons.cdb.security.filter;
+
+import com.platformcommons.cdb.security.auth.BearerTokenVerifier;
+import com.platformcommons.cdb.security.auth.CDBContextAuthentication;
+import com.platformcommons.cdb.security.auth.InternalContextCodec;
+import com.platformcommons.cdb.security.auth.VerifiedTokenCache;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.cors.reactive.CorsUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * WebFlux counterpart of {@link AuthFilter}, for reactive services such as the API gateway.
+ * - Any client-supplied {@value InternalContextCodec#HEADER} header is dropped first, whatever
+ *   the path, so it can never reach a service behind the gateway unless this filter set it.
+ * - Public paths and CORS preflights (OPTIONS with Origin and Access-Control-Request-Method)
+ *   pass through; any other OPTIONS request needs a token like every other method. Paths may
+ *   first have one of the configured service prefixes stripped, so
+ *   {@code /cdb-auth-registry/api/v1/auth/login} is matched as {@code /api/v1/auth/login}.
+ * - Cache hits and the revocation check are answered inline on the event loop; only the
+ *   signature check runs on the given bounded scheduler. When that scheduler's queue is full
+ *   the request is shed with 503 instead of queuing without bound.
+ * - Missing, invalid, expired and revoked tokens get 401 before the request is routed, so the
+ *   gateway never proxies traffic that downstream services would reject anyway.
+ * - Authenticated requests carry a {@link CDBContextAuthentication} as the exchange principal
+ *   and in the ReactiveSecurityContextHolder context.
+ * - With an {@link InternalContextCodec}, the verified context is forwarded downstream as a
+ *   signed {@value InternalContextCodec#HEADER} header, so services behind the gateway check
+ *   one HMAC instead of re-verifying the JWT.
+ *
+ * Configuration (see ReactiveSecurityConfig):
+ * - cdb.security.reactive.enabled (default true)
+ * - cdb.security.reactive.strip-prefixes (comma-separated service prefixes, e.g. /cdb-auth-registry)
+ * - cdb.security.reactive.verify-threads (default: available processors)
+ * - cdb.security.reactive.verify-queue-size (default 10000)
+ */
+public class ReactiveAuthFilter implements WebFilter, Ordered {
+
+    /** Same slot as Spring Security's WebFilterChainProxy: ahead of routing and handlers. */
+    public static final int DEFAULT_ORDER = -100;
+
+    private final BearerTokenVerifier verifier;
+    private final PublicPathMatcher publicPaths;
+    private final List<String> stripPrefixes;
+    private final Scheduler verifyScheduler;
+    private final InternalContextCodec internalContextCodec; // may be null when the header mode is off
+
+    public ReactiveAuthFilter(BearerTokenVerifier verifier, PublicPathMatcher publicPaths,
+                              List<String> stripPrefixes, Scheduler verifyScheduler) {
+        this(verifier, publicPaths, stripPrefixes, verifyScheduler, null);
+    }
+
+    public ReactiveAuthFilter(BearerTokenVerifier verifier, PublicPathMatcher publicPaths,
+                              List<String> stripPrefixes, Scheduler verifyScheduler,
+                              InternalContextCodec internalContextCodec) {
+        this.verifier = verifier;
+        this.publicPaths = publicPaths;
+        this.stripPrefixes = List.copyOf(stripPrefixes);
+        this.verifyScheduler = verifyScheduler;
+        this.internalContextCodec = internalContextCodec;
+    }
+
+    @Override
+    public int getOrder() {
+        return DEFAULT_ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return authenticate(withoutInternalContext(exchange), chain);
+    }
+
+    private Mono<Void> authenticate(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (CorsUtils.isPreFlightRequest(request) || isPublicPath(request.getPath().value())) {
+            return chain.filter(exchange);
+        }
+        String auth = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (auth == null || !auth.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return reject(exchange, HttpStatus.UNAUTHORIZED, "Bearer", "Missing Bearer token");
+        }
+        String token = auth.substring(7);
+        VerifiedTokenCache.VerifiedToken cached = verifier.cached(token);
+        if (cached != null) {
+            return authenticated(exchange, chain, cached, token);
+        }
+        return Mono.fromCallable(() -> verifier.verify(token))
+                .subscribeOn(verifyScheduler)
+                .flatMap(verified -> authenticated(exchange, chain, verified, token))
+                .switchIfEmpty(Mono.defer(() -> reject(exchange, HttpStatus.UNAUTHORIZED,
+                        "Bearer error=\"invalid_token\"", "Invalid or expired token")))
+                .onErrorResume(RejectedExecutionException.class, e -> reject(exchange,
+                        HttpStatus.SERVICE_UNAVAILABLE, null, "Token verification overloaded"));
+    }
+
+    private Mono<Void> authenticated(ServerWebExchange exchange, WebFilterChain chain,
+                                     VerifiedTokenCache.VerifiedToken verified, String token) {
+        if (verifier.isRevoked(verified)) {
+            return reject(exchange, HttpStatus.UNAUTHORIZED, "Bearer error=\"invalid_token\"", "Token has been revoked");
+        }
+        String internalContext = internalContextCodec == null ? null : internalContextCodec.encode(verified);
+        CDBContextAuthentication authentication = new CDBContextAuthentication(verified.principal(),
+                verified.context(), verified.authorities(), token, internalContext);
+        ServerWebExchange.Builder builder = exchange.mutate().principal(Mono.just(authentication));
+        if (internalContext != null) {
+            builder.request(r -> r.headers(h -> h.set(InternalContextCodec.HEADER, internalContext)));
+        }
+        ServerWebExchange authenticatedExchange = builder.build();
+        return chain.filter(authenticatedExchange)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+    }
+
+    /**
+     * Only this filter may set the internal context header; a client-supplied one is dropped
+     * on every request, public paths and preflights included.
+     */
+    private static ServerWebExchange withoutInternalContext(ServerWebExchange exchange) {
+        if (!exchange.getRequest().getHeaders().containsKey(InternalContextCodec.HEADER)) {
+            return exchange;
+        }
+        return exchange.mutate()
+                .request(r -> r.headers(h -> h.remove(InternalContextCodec.HEADER)))
+                .build();
+    }
+
+    private boolean isPublicPath(String path) {
+        if (publicPaths.isPublicPath(path)) {
+            return true;
+        }
+        for (String prefix : stripPrefixes) {
+            int end = prefix.length();
+            if (path.startsWith(prefix) && path.length() > end && path.charAt(end) == '/') {
+                return publicPaths.isPublicPath(path, end);
+            }
+        }
+        return false;
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange, HttpStatus status, String challenge, String message) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        if (challenge != null) {
+            response.getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, challenge);
+        }
+        DataBuffer body = response.bufferFactory().wrap(message.getBytes(StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(body));
+    }
+}
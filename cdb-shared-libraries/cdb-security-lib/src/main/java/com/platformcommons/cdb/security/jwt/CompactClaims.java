@@ -0,0 +1,133 @@
+package com.platformcommons.cdb.security.jwt;
+
+import com.platformcommons.cdb.security.context.CDBContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Layout of compact (v2) access tokens.
+ * <p>
+ * v1 tokens carry a nested {@code ctx} object: the user map (wrapped in a second user map by
+ * executive context tokens), the provider map, and every role and authority code as a string,
+ * plus a separate {@code userId} claim. v2 flattens that into short top-level claims and replaces
+ * codes with the master table ids published in the {@link TokenDictionary}:
+ * </p>
+ * <pre>
+ *   v    2 (format version; absent on v1 tokens)
+ *   uid  user id
+ *   lg   user login, only when it differs from sub
+ *   pid  provider id
+ *   pc   provider code
+ *   r    role ids, sorted and de-duplicated
+ *   a    authority ids, sorted and de-duplicated
+ * </pre>
+ * Validators expand v2 claims into the same {@link CDBContext} a v1 token yields, so everything
+ * after {@link JwtTokenService#verify(String)} is format-agnostic and both formats are accepted
+ * side by side during a migration.
+ */
+public final class CompactClaims {
+
+    public static final int VERSION = 2;
+
+    public static final String VERSION_CLAIM = "v";
+    public static final String USER_ID = "uid";
+    public static final String LOGIN = "lg";
+    public static final String PROVIDER_ID = "pid";
+    public static final String PROVIDER_CODE = "pc";
+    public static final String ROLES = "r";
+    public static final String AUTHORITIES = "a";
+
+    private static final long[] NO_IDS = new long[0];
+
+    private CompactClaims() {
+    }
+
+    /**
+     * Issuer side: the v2 claims for a context. Null values are left out.
+     */
+    public static Map<String, Object> claims(String subject, Long userId, String login, Long providerId,
+                                             String providerCode, Collection<Long> roleIds,
+                                             Collection<Long> authorityIds) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put(VERSION_CLAIM, VERSION);
+        putIfNotNull(claims, USER_ID, userId);
+        if (login != null && !login.equals(subject)) {
+            claims.put(LOGIN, login);
+        }
+        putIfNotNull(claims, PROVIDER_ID, providerId);
+        putIfNotNull(claims, PROVIDER_CODE, providerCode);
+        long[] roles = sortedIds(roleIds);
+        if (roles.length > 0) claims.put(ROLES, roles);
+        long[] authorities = sortedIds(authorityIds);
+        if (authorities.length > 0) claims.put(AUTHORITIES, authorities);
+        return claims;
+    }
+
+    public static boolean isCompact(Map<String, ?> claims) {
+        return claims.get(VERSION_CLAIM) instanceof Number v && v.intValue() == VERSION;
+    }
+
+    /**
+     * Validator side: expands verified v2 claims. Ids still unknown after one refresh of the
+     * dictionary are dropped, so a stale dictionary can only ever narrow a token's permissions.
+     */
+    public static CDBContext toContext(Map<String, ?> claims, String subject, TokenDictionarySource source) {
+        long[] roleIds = ids(claims.get(ROLES));
+        long[] authorityIds = ids(claims.get(AUTHORITIES));
+        TokenDictionary dictionary = source.current();
+        if (!dictionary.covers(roleIds, authorityIds)) {
+            dictionary = source.refreshForUnknownIds();
+        }
+        List<String> roles = new ArrayList<>(roleIds.length);
+        for (long id : roleIds) {
+            String code = dictionary.roleCode(id);
+            if (code != null) roles.add(code);
+        }
+        List<String> authorities = new ArrayList<>(authorityIds.length);
+        for (long id : authorityIds) {
+            String code = dictionary.authorityCode(id);
+            if (code != null) authorities.add(code);
+        }
+        CDBContext.Builder builder = CDBContext.builder().roles(roles).authorities(authorities);
+        Long userId = asLong(claims.get(USER_ID));
+        Object login = claims.get(LOGIN);
+        builder.user(new CDBContext.UserContext(userId, login instanceof String s ? s : subject));
+        Long providerId = asLong(claims.get(PROVIDER_ID));
+        Object providerCode = claims.get(PROVIDER_CODE);
+        if (providerId != null || providerCode != null) {
+            builder.provider(new CDBContext.ProviderContext(providerId,
+                    providerCode instanceof String s ? s : null));
+        }
+        return builder.build();
+    }
+
+    private static void putIfNotNull(Map<String, Object> claims, String name, Object value) {
+        if (value != null) claims.put(name, value);
+    }
+
+    private static long[] sortedIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return NO_IDS;
+        }
+        return ids.stream().filter(id -> id != null).mapToLong(Long::longValue).sorted().distinct().toArray();
+    }
+
+    /** Accepts long[] (as registered with the parser) or a generic JSON number list. */
+    private static long[] ids(Object value) {
+        if (value instanceof long[] ids) {
+            return ids;
+        }
+        if (value instanceof Collection<?> list) {
+            return list.stream().filter(Number.class::isInstance).mapToLong(n -> ((Number) n).longValue()).toArray();
+        }
+        return NO_IDS;
+    }
+
+    private static Long asLong(Object value) {
+        return value instanceof Number n ? n.longValue() : null;
+    }
+}
@@ -0,0 +1,197 @@
+package com.platformcommons.cdb.security.jwt;
+
+import io.jsonwebtoken.JweHeader;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.InvalidKeyException;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.security.Key;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Resolves JWT verification keys by {@code kid} from the auth-registry JWKS endpoint
+ * ({@code /.well-known/jwks.json}, served by JwksController).
+ * <p>
+ * Parsed keys live in an immutable map behind a volatile reference, so lookups on the request
+ * path are lock-free. A daemon thread re-fetches the set every refresh interval; if a fetch fails
+ * the previous keys stay in use (stale-while-revalidate). A token carrying an unknown {@code kid}
+ * triggers an on-demand fetch, at most once per min-refetch interval and shared by all callers
+ * that hit the same miss, which is what lets a new signing key roll out without redeploying.
+ * </p>
+ * Tokens without a {@code kid} are verified with the only key in the set, or else with the
+ * first key of the token's algorithm family.
+ *
+ * Configuration (see SecurityJwtAutoConfiguration):
+ * - cdb.security.jwt.jwks.uri (enables JWKS mode)
+ * - cdb.security.jwt.jwks.refresh-interval (seconds, default 300)
+ * - cdb.security.jwt.jwks.min-refetch-interval (seconds, default 30)
+ * - cdb.security.jwt.jwks.timeout-ms (default 2000)
+ */
+public class JwksKeyResolver extends LocatorAdapter<Key> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksKeyResolver.class);
+    private static final String NO_KID = "";
+
+    private final String jwksUri;
+    private final Duration refreshInterval;
+    private final long minRefetchNanos;
+    private final long timeoutMs;
+    private final RestTemplate restTemplate;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private final AtomicReference<CompletableFuture<Map<String, PublicKey>>> inFlight = new AtomicReference<>();
+    private final AtomicLong lastOnDemandFetch = new AtomicLong(System.nanoTime() - Long.MAX_VALUE / 2);
+
+    public JwksKeyResolver(String jwksUri, Duration refreshInterval, Duration minRefetchInterval, long timeoutMs) {
+        this.jwksUri = jwksUri;
+        this.refreshInterval = refreshInterval;
+        this.minRefetchNanos = minRefetchInterval.toNanos();
+        this.timeoutMs = timeoutMs;
+        SimpleClientHttpRequestFactory rf = new SimpleClientHttpRequestFactory();
+        rf.setConnectTimeout((int) timeoutMs);
+        rf.setReadTimeout((int) timeoutMs);
+        this.restTemplate = new RestTemplate(rf);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cdb-jwks-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Loads the key set once (failures are logged, not thrown, so a service can start before
+     * auth-registry is reachable) and schedules background refreshes.
+     */
+    public void start() {
+        refresh();
+        long period = refreshInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::refresh, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        String kid = header.getKeyId();
+        JwtAlgorithm alg = JwtAlgorithm.fromName(header.getAlgorithm());
+        PublicKey key = lookup(keys, kid, alg);
+        if (key != null) {
+            return key;
+        }
+        key = lookup(fetchOnDemand(), kid, alg);
+        if (key == null) {
+            throw new InvalidKeyException("No JWKS key for kid " + kid);
+        }
+        return key;
+    }
+
+    @Override
+    protected Key locate(JweHeader header) {
+        throw new UnsupportedJwtException("Encrypted JWTs are not supported");
+    }
+
+    /**
+     * @return the currently cached key for this kid, or null; never fetches
+     */
+    public PublicKey getCachedKey(String kid) {
+        return lookup(keys, kid, null);
+    }
+
+    public Map<String, PublicKey> getKeys() {
+        return keys;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private static PublicKey lookup(Map<String, PublicKey> current, String kid, JwtAlgorithm alg) {
+        if (kid != null) {
+            return current.get(kid);
+        }
+        PublicKey anonymous = current.get(NO_KID);
+        if (anonymous != null) return anonymous;
+        if (current.size() == 1) return current.values().iterator().next();
+        for (PublicKey candidate : current.values()) {
+            if (alg != null && JwtAlgorithm.forKey(candidate) == alg) return candidate;
+        }
+        return null;
+    }
+
+    /**
+     * Re-fetch for an unknown kid, rate limited. Concurrent callers share one in-flight fetch;
+     * callers inside the rate-limit window just see the current keys.
+     */
+    private Map<String, PublicKey> fetchOnDemand() {
+        CompletableFuture<Map<String, PublicKey>> running = inFlight.get();
+        if (running == null) {
+            long now = System.nanoTime();
+            long last = lastOnDemandFetch.get();
+            if (now - last >= minRefetchNanos && lastOnDemandFetch.compareAndSet(last, now)) {
+                CompletableFuture<Map<String, PublicKey>> mine = new CompletableFuture<>();
+                inFlight.set(mine);
+                try {
+                    mine.complete(refresh());
+                } finally {
+                    inFlight.set(null);
+                }
+                return mine.join();
+            }
+            running = inFlight.get();
+            if (running == null) {
+                return keys;
+            }
+        }
+        try {
+            return running.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            return keys;
+        }
+    }
+
+    private Map<String, PublicKey> refresh() {
+        try {
+            String json = restTemplate.getForObject(jwksUri, String.class);
+            Map<String, PublicKey> parsed = parse(json);
+            if (parsed.isEmpty()) {
+                log.warn("JWKS at {} contained no usable public keys; keeping {} cached key(s)", jwksUri, keys.size());
+            } else {
+                keys = parsed;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to refresh JWKS from {}: {}; keeping {} cached key(s)", jwksUri, e.getMessage(), keys.size());
+        }
+        return keys;
+    }
+
+    static Map<String, PublicKey> parse(String json) {
+        if (json == null || json.isBlank()) {
+            return Map.of();
+        }
+        JwkSet set = Jwks.setParser().build().parse(json);
+        Map<String, PublicKey> parsed = new HashMap<>();
+        for (Jwk<?> jwk : set) {
+            if (jwk.toKey() instanceof PublicKey pk) {
+                parsed.put(jwk.getId() == null ? NO_KID : jwk.getId(), pk);
+            }
+        }
+        return Map.copyOf(parsed);
+    }
+}
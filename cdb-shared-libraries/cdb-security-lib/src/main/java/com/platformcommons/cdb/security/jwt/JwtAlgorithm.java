@@ -0,0 +1,77 @@
+package com.platformcommons.cdb.security.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+
+import java.security.Key;
+import java.security.interfaces.ECKey;
+import java.security.interfaces.EdECKey;
+import java.security.interfaces.RSAKey;
+
+/**
+ * Asymmetric JWS algorithms supported for signing and verification.
+ * <ul>
+ *   <li>RS256 - RSA PKCS#1 v1.5 with SHA-256 (default, existing deployments)</li>
+ *   <li>ES256 - ECDSA on P-256; much cheaper signing and ~1/4 the signature size of RSA-2048</li>
+ *   <li>EdDSA - Ed25519; fastest signing, smallest keys</li>
+ * </ul>
+ */
+public enum JwtAlgorithm {
+
+    RS256("RS256", "RSA", Jwts.SIG.RS256),
+    ES256("ES256", "EC", Jwts.SIG.ES256),
+    EDDSA("EdDSA", "EdDSA", Jwts.SIG.EdDSA);
+
+    private final String jwsName;
+    private final String keyFactoryAlgorithm;
+    private final SignatureAlgorithm signatureAlgorithm;
+
+    JwtAlgorithm(String jwsName, String keyFactoryAlgorithm, SignatureAlgorithm signatureAlgorithm) {
+        this.jwsName = jwsName;
+        this.keyFactoryAlgorithm = keyFactoryAlgorithm;
+        this.signatureAlgorithm = signatureAlgorithm;
+    }
+
+    /**
+     * Name used in the JWS {@code alg} header and in JWKS entries.
+     */
+    public String getJwsName() {
+        return jwsName;
+    }
+
+    /**
+     * JCA KeyFactory algorithm used to decode PEM keys for this algorithm.
+     */
+    public String getKeyFactoryAlgorithm() {
+        return keyFactoryAlgorithm;
+    }
+
+    public SignatureAlgorithm getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    /**
+     * Accepts JWS names ("RS256", "ES256", "EdDSA") and enum names, case-insensitively.
+     *
+     * @return the algorithm, or null if unsupported
+     */
+    public static JwtAlgorithm fromName(String name) {
+        if (name == null) return null;
+        for (JwtAlgorithm a : values()) {
+            if (a.jwsName.equalsIgnoreCase(name) || a.name().equalsIgnoreCase(name)) {
+                return a;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the algorithm matching the key's family, or null for unsupported key types
+     */
+    public static JwtAlgorithm forKey(Key key) {
+        if (key instanceof RSAKey) return RS256;
+        if (key instanceof ECKey) return ES256;
+        if (key instanceof EdECKey) return EDDSA;
+        return null;
+    }
+}
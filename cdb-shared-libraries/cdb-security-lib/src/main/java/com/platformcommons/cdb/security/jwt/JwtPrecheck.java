@@ -0,0 +1,172 @@
+package com.platformcommons.cdb.security.jwt;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cheap structural checks run by {@link JwtTokenService#verify(String)} before any signature
+ * work, so floods of garbage or stale tokens are turned away without an RSA/ECDSA operation.
+ * Only the header and the top-level payload fields are decoded, with a streaming parser that
+ * stops at {@code exp}; nothing here is trusted beyond deciding to reject, and every token that
+ * passes is still fully verified.
+ * <p>
+ * Rejected are: tokens longer than the configured maximum, anything that is not three non-empty
+ * base64url segments with JSON objects in the first two, an {@code alg} outside the accepted set,
+ * a {@code kid} that no configured key carries (static keys only; with JWKS, unknown kids are
+ * left to the resolver so rotation keeps working), and an {@code exp} already past by more than
+ * the clock skew.
+ * </p>
+ * Each rejection is counted by reason; see {@link #bindTo(MeterRegistry, String)}.
+ */
+public final class JwtPrecheck {
+
+    public static final String REJECTION_COUNTER = "cdb.security.jwt.precheck.rejections";
+
+    /** Why a token was rejected before verification, with the failure reported to callers. */
+    public enum Rejection {
+        OVERSIZE(JwtVerification.Failure.MALFORMED),
+        MALFORMED(JwtVerification.Failure.MALFORMED),
+        UNSUPPORTED_ALGORITHM(JwtVerification.Failure.UNSUPPORTED),
+        UNKNOWN_KID(JwtVerification.Failure.UNSUPPORTED),
+        EXPIRED(JwtVerification.Failure.EXPIRED);
+
+        private final JwtVerification.Failure failure;
+
+        Rejection(JwtVerification.Failure failure) {
+            this.failure = failure;
+        }
+
+        public JwtVerification.Failure failure() {
+            return failure;
+        }
+    }
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Set<JwtAlgorithm> acceptedAlgorithms;
+    private final Set<String> knownKeyIds; // empty: any kid is left to the key locator
+    private final long clockSkewMillis;
+    private final int maxTokenLength;
+    private final LongAdder[] rejections = new LongAdder[Rejection.values().length];
+
+    public JwtPrecheck(Set<JwtAlgorithm> acceptedAlgorithms, Set<String> knownKeyIds, Duration clockSkew,
+                       int maxTokenLength) {
+        this.acceptedAlgorithms = Set.copyOf(acceptedAlgorithms);
+        this.knownKeyIds = knownKeyIds == null ? Set.of() : Set.copyOf(knownKeyIds);
+        this.clockSkewMillis = clockSkew.toMillis();
+        this.maxTokenLength = maxTokenLength;
+        for (int i = 0; i < rejections.length; i++) {
+            rejections[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @return the reason to reject the token without verifying it, or null if it may be verified
+     */
+    public Rejection check(String token) {
+        Rejection rejection = inspect(token);
+        if (rejection != null) {
+            rejections[rejection.ordinal()].increment();
+        }
+        return rejection;
+    }
+
+    public long rejections(Rejection reason) {
+        return rejections[reason.ordinal()].sum();
+    }
+
+    /**
+     * Publishes the rejection counts as {@value #REJECTION_COUNTER} (tags service, reason).
+     */
+    public void bindTo(MeterRegistry registry, String service) {
+        for (Rejection reason : Rejection.values()) {
+            FunctionCounter.builder(REJECTION_COUNTER, rejections[reason.ordinal()], LongAdder::sum)
+                    .description("Bearer tokens rejected before signature verification, by reason")
+                    .tag("service", service)
+                    .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+    }
+
+    private Rejection inspect(String token) {
+        int length = token.length();
+        if (length > maxTokenLength) {
+            return Rejection.OVERSIZE;
+        }
+        int first = token.indexOf('.');
+        int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+        if (first <= 0 || second <= first + 1 || second == length - 1 || token.indexOf('.', second + 1) >= 0) {
+            return Rejection.MALFORMED;
+        }
+        try {
+            Rejection headerRejection = inspectHeader(DECODER.decode(token.substring(0, first)));
+            if (headerRejection != null) {
+                return headerRejection;
+            }
+            return inspectPayload(DECODER.decode(token.substring(first + 1, second)));
+        } catch (IllegalArgumentException | IOException e) {
+            return Rejection.MALFORMED;
+        }
+    }
+
+    private Rejection inspectHeader(byte[] header) throws IOException {
+        String alg = null;
+        String kid = null;
+        try (JsonParser p = JSON.createParser(header)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                return Rejection.MALFORMED;
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("alg".equals(field)) {
+                    alg = value == JsonToken.VALUE_STRING ? p.getText() : null;
+                } else if ("kid".equals(field)) {
+                    kid = value == JsonToken.VALUE_STRING ? p.getText() : null;
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+        JwtAlgorithm algorithm = JwtAlgorithm.fromName(alg);
+        if (algorithm == null || !acceptedAlgorithms.contains(algorithm)) {
+            return Rejection.UNSUPPORTED_ALGORITHM;
+        }
+        if (kid != null && !knownKeyIds.isEmpty() && !knownKeyIds.contains(kid)) {
+            return Rejection.UNKNOWN_KID;
+        }
+        return null;
+    }
+
+    private Rejection inspectPayload(byte[] payload) throws IOException {
+        try (JsonParser p = JSON.createParser(payload)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                return Rejection.MALFORMED;
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("exp".equals(field)) {
+                    if (value != JsonToken.VALUE_NUMBER_INT) {
+                        return Rejection.MALFORMED;
+                    }
+                    long expiresAtMillis = p.getLongValue() * 1000L;
+                    return expiresAtMillis + clockSkewMillis < System.currentTimeMillis() ? Rejection.EXPIRED : null;
+                }
+                p.skipChildren();
+            }
+        }
+        return null;
+    }
+}
@@ -1,151 +1,410 @@
 package com.platformcommons.cdb.security.jwt;
 
+import com.platformcommons.cdb.security.context.CDBContext;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.jackson.io.JacksonDeserializer;
+import io.jsonwebtoken.security.InvalidKeyException;
+import io.jsonwebtoken.security.SignatureException;
 
+import java.security.Key;
 import java.security.KeyFactory;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.EdECPublicKey;
 import java.security.interfaces.RSAPublicKey;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * Central JWT service for key management and common operations.
- * RS256-only (asymmetric) implementation.
+ * Asymmetric only: RS256 (default), ES256 or EdDSA, see {@link JwtAlgorithm}.
  *
  * Configuration (see SecurityJwtAutoConfiguration):
- * - cdb.security.jwt.rsa.private-key (PEM PKCS#8, required on issuer)
- * - cdb.security.jwt.rsa.public-key (PEM X.509 SubjectPublicKeyInfo, required on validators)
+ * - cdb.security.jwt.algorithm (signing algorithm on the issuer: RS256, ES256 or EdDSA; default RS256)
+ * - cdb.security.jwt.private-key (PEM PKCS#8, required on issuer; falls back to cdb.security.jwt.rsa.private-key)
+ * - cdb.security.jwt.public-key (PEM X.509 SubjectPublicKeyInfo, required on validators;
+ *   falls back to cdb.security.jwt.rsa.public-key)
  * - cdb.security.jwt.kid (optional, will be set in JWT header and JWKS)
+ * - cdb.security.jwt.previous.public-key / cdb.security.jwt.previous.kid (optional; a retired key,
+ *   possibly of another algorithm, still accepted and published in JWKS during a migration)
+ * - cdb.security.jwt.accepted-algorithms (default RS256,ES256,EdDSA; tokens with any other alg are rejected)
+ * - cdb.security.jwt.jwks.uri (optional; validators then resolve keys by kid from the issuer's JWKS,
+ *   see {@link JwksKeyResolver})
+ * - cdb.security.jwt.dictionary.uri (optional; enables compact v2 tokens on validators, see
+ *   {@link CompactClaims} and {@link TokenDictionaryResolver})
+ * - cdb.security.jwt.precheck.enabled (default true; see {@link JwtPrecheck})
+ * - cdb.security.jwt.precheck.clock-skew (seconds, default 30)
+ * - cdb.security.jwt.precheck.max-token-length (characters, default 8192)
  *
  * If keys are not configured via properties/env, defaults bundled in the library
  * will be used (development only). Override them in deployment via environment variables
  * or application.yml.
+ *
+ * Verification goes through a single immutable, thread-safe parser built at construction.
+ * Prefer {@link #verify(String)}, which checks the signature once and returns the claims together
+ * with a typed failure reason, over calling validate/parseClaims/getSubject on the same token.
  */
 public class JwtTokenService {
 
-    private final PrivateKey rsaPrivate; // for RS256 signing (issuer)
-    private final PublicKey rsaPublic;   // for RS256 verification (validators)
-    private final String keyId;          // optional KID
+    /** Claim carrying the security context; deserialized directly into {@link CDBContext}. */
+    public static final String CONTEXT_CLAIM = "ctx";
+
+    private final PrivateKey signingKey;           // for signing (issuer)
+    private final JwtAlgorithm algorithm;          // signing algorithm
+    private final String keyId;                    // optional KID
+    private final List<VerificationKey> verificationKeys; // own + previous keys, published in JWKS
+    private final Set<JwtAlgorithm> acceptedAlgorithms;
+    private final JwksKeyResolver jwksKeyResolver; // optional, replaces static keys for verification
+    private final JwtParser parser;                // immutable, shared by all verifications
+    private final JwtPrecheck precheck;            // may be null when the pre-verification stage is off
+    private final TokenDictionarySource tokenDictionary; // may be null; v2 tokens are then rejected
 
     public JwtTokenService(String rsaPrivateKeyPem, String rsaPublicKeyPem, String keyId) {
-        this.keyId = (keyId == null || keyId.isBlank()) ? null : keyId.trim();
-        PrivateKey rpriv = null;
-        PublicKey rpub = null;
+        this(rsaPrivateKeyPem, rsaPublicKeyPem, keyId, null);
+    }
+
+    /**
+     * @param jwksKeyResolver when non-null, signatures are verified against keys fetched from the
+     *                        issuer's JWKS (looked up by kid) instead of the static public key,
+     *                        which then becomes optional
+     */
+    public JwtTokenService(String rsaPrivateKeyPem, String rsaPublicKeyPem, String keyId,
+                           JwksKeyResolver jwksKeyResolver) {
+        this(builder()
+                .privateKeyPem(rsaPrivateKeyPem)
+                .publicKeyPem(rsaPublicKeyPem)
+                .keyId(keyId)
+                .jwksKeyResolver(jwksKeyResolver));
+    }
+
+    private JwtTokenService(Builder b) {
+        this.algorithm = b.algorithm == null ? JwtAlgorithm.RS256 : b.algorithm;
+        this.keyId = (b.keyId == null || b.keyId.isBlank()) ? null : b.keyId.trim();
+        this.acceptedAlgorithms = b.acceptedAlgorithms == null || b.acceptedAlgorithms.isEmpty()
+                ? EnumSet.allOf(JwtAlgorithm.class)
+                : EnumSet.copyOf(b.acceptedAlgorithms);
+        this.jwksKeyResolver = b.jwksKeyResolver;
+        this.tokenDictionary = b.tokenDictionary;
+        PrivateKey priv = null;
+        PublicKey pub = null;
+        PublicKey previous = null;
         try {
-            if (rsaPublicKeyPem != null && !rsaPublicKeyPem.isBlank()) {
-                rpub = parsePublicKeyFromPem(rsaPublicKeyPem);
+            if (b.publicKeyPem != null && !b.publicKeyPem.isBlank()) {
+                pub = parsePublicKeyFromPem(b.publicKeyPem, algorithm);
             }
-            if (rsaPrivateKeyPem != null && !rsaPrivateKeyPem.isBlank()) {
-                rpriv = parsePrivateKeyFromPem(rsaPrivateKeyPem);
+            if (b.privateKeyPem != null && !b.privateKeyPem.isBlank()) {
+                priv = parsePrivateKeyFromPem(b.privateKeyPem, algorithm);
+            }
+            if (b.previousPublicKeyPem != null && !b.previousPublicKeyPem.isBlank()) {
+                previous = parsePublicKeyFromPem(b.previousPublicKeyPem, null);
             }
         } catch (Exception e) {
-            throw new IllegalStateException("Failed to parse RSA keys from PEM: " + e.getMessage(), e);
+            throw new IllegalStateException("Failed to parse " + algorithm.getJwsName() + " keys from PEM: " + e.getMessage(), e);
+        }
+        // Public key is mandatory for all services (validators and issuers) unless keys come from JWKS
+        if (pub == null && jwksKeyResolver == null) {
+            throw new IllegalStateException("Public key (cdb.security.jwt.public-key) is required but was not provided or could not be parsed");
+        }
+        if (pub != null && JwtAlgorithm.forKey(pub) != algorithm) {
+            throw new IllegalStateException("Public key type does not match signing algorithm " + algorithm.getJwsName());
+        }
+        this.signingKey = priv; // may be null on validator-only services
+        List<VerificationKey> keys = new ArrayList<>();
+        if (pub != null) { // may be null in JWKS mode
+            keys.add(new VerificationKey(this.keyId, pub, algorithm));
         }
-        // Public key is mandatory for all services (validators and issuers)
-        if (rpub == null) {
-            throw new IllegalStateException("RSA public key (cdb.security.jwt.rsa.public-key) is required but was not provided or could not be parsed");
+        if (previous != null) {
+            String prevKid = (b.previousKeyId == null || b.previousKeyId.isBlank()) ? null : b.previousKeyId.trim();
+            keys.add(new VerificationKey(prevKid, previous, JwtAlgorithm.forKey(previous)));
         }
-        this.rsaPrivate = rpriv; // may be null on validator-only services
-        this.rsaPublic = rpub;
+        this.verificationKeys = List.copyOf(keys);
+        this.precheck = b.precheckEnabled
+                ? new JwtPrecheck(acceptedAlgorithms, knownKeyIds(verificationKeys, jwksKeyResolver), b.clockSkew, b.maxTokenLength)
+                : null;
+        this.parser = Jwts.parser()
+                .json(new JacksonDeserializer<>(Map.of(CONTEXT_CLAIM, CDBContext.class,
+                        CompactClaims.ROLES, long[].class, CompactClaims.AUTHORITIES, long[].class)))
+                .keyLocator(this::locateVerificationKey)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public JwtAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public Set<JwtAlgorithm> getAcceptedAlgorithms() {
+        return acceptedAlgorithms;
+    }
+
+    /**
+     * @return the pre-verification stage, or null if disabled
+     */
+    public JwtPrecheck getPrecheck() {
+        return precheck;
     }
 
+    /**
+     * Signs a new token. Every token carries a random {@code jti} so it can be revoked on its own
+     * (see TokenRevocationList).
+     */
     public String generate(String subject, Long userId, Long ttl, Map<String, Object> extraClaims) {
-        Date expiry = Date.from(Instant.now().plusSeconds(ttl));
-        io.jsonwebtoken.JwtBuilder builder = Jwts.builder()
-                .subject(subject)
-                .claim("userId", userId)
-                .issuedAt(new Date())
-                .expiration(expiry);
+        io.jsonwebtoken.JwtBuilder builder = newToken(subject, ttl)
+                .claim("userId", userId);
         if (extraClaims != null) {
             for (Map.Entry<String, Object> e : extraClaims.entrySet()) {
                 builder.claim(e.getKey(), e.getValue());
             }
         }
+        return sign(builder);
+    }
+
+    /**
+     * Signs a compact v2 token; see {@link CompactClaims#claims} for building the claims.
+     */
+    public String generateCompact(String subject, Long ttl, Map<String, Object> compactClaims) {
+        io.jsonwebtoken.JwtBuilder builder = newToken(subject, ttl);
+        for (Map.Entry<String, Object> e : compactClaims.entrySet()) {
+            builder.claim(e.getKey(), e.getValue());
+        }
+        return sign(builder);
+    }
+
+    private io.jsonwebtoken.JwtBuilder newToken(String subject, Long ttl) {
+        Date expiry = Date.from(Instant.now().plusSeconds(ttl));
+        return Jwts.builder()
+                .id(UUID.randomUUID().toString())
+                .subject(subject)
+                .issuedAt(new Date())
+                .expiration(expiry);
+    }
+
+    private String sign(io.jsonwebtoken.JwtBuilder builder) {
         if (keyId != null && !keyId.isBlank()) {
             builder.header().keyId(keyId);
         }
-        if (rsaPrivate == null) {
-            throw new IllegalStateException("RS256 signing requested but private key is not configured on this service");
+        if (signingKey == null) {
+            throw new IllegalStateException(algorithm.getJwsName() + " signing requested but private key is not configured on this service");
         }
-        return builder.signWith(rsaPrivate).compact();
+        return builder.signWith(signingKey, algorithm.getSignatureAlgorithm()).compact();
     }
 
-    public boolean validate(String token) {
+    /**
+     * Verify the token signature and expiry exactly once.
+     *
+     * @return verified claims, or a typed failure reason; never throws for bad tokens
+     */
+    public JwtVerification verify(String token) {
+        if (token == null || token.isBlank()) {
+            return JwtVerification.failed(JwtVerification.Failure.MISSING);
+        }
+        if (precheck != null) {
+            JwtPrecheck.Rejection rejection = precheck.check(token);
+            if (rejection != null) {
+                return JwtVerification.failed(rejection.failure());
+            }
+        }
         try {
-            Jwts.parser().verifyWith(rsaPublic).build().parseSignedClaims(token);
-            return true;
-        } catch (Exception e) {
-            return false;
+            Jws<Claims> jws = parser.parseSignedClaims(token);
+            Claims claims = jws.getPayload();
+            CDBContext context;
+            if (CompactClaims.isCompact(claims)) {
+                if (tokenDictionary == null) {
+                    return JwtVerification.failed(JwtVerification.Failure.UNSUPPORTED);
+                }
+                context = CompactClaims.toContext(claims, claims.getSubject(), tokenDictionary);
+            } else {
+                context = claims.get(CONTEXT_CLAIM, CDBContext.class);
+            }
+            return JwtVerification.verified(claims, jws.getHeader().getKeyId(), context);
+        } catch (ExpiredJwtException e) {
+            return JwtVerification.failed(JwtVerification.Failure.EXPIRED);
+        } catch (SignatureException e) {
+            return JwtVerification.failed(JwtVerification.Failure.BAD_SIGNATURE);
+        } catch (MalformedJwtException e) {
+            return JwtVerification.failed(JwtVerification.Failure.MALFORMED);
+        } catch (UnsupportedJwtException e) {
+            return JwtVerification.failed(JwtVerification.Failure.UNSUPPORTED);
+        } catch (RuntimeException e) {
+            return JwtVerification.failed(JwtVerification.Failure.INVALID);
         }
     }
 
+    public boolean validate(String token) {
+        return verify(token).isValid();
+    }
+
+    /**
+     * @throws JwtException if the token is invalid or expired
+     */
     public Claims parseClaims(String token) {
-        return Jwts.parser().verifyWith(rsaPublic).build().parseSignedClaims(token).getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     public String getSubject(String token) {
-        try {
-            return parseClaims(token).getSubject();
-        } catch (Exception e) {
-            return null;
-        }
+        return verify(token).subject();
     }
 
     /**
-     * Return JWKS for RS256 configuration.
+     * Return JWKS with one kid-tagged entry per static verification key (current and previous).
      */
     public Map<String, Object> getJwks() {
         Map<String, Object> jwks = new HashMap<>();
-        if (rsaPublic instanceof RSAPublicKey rsa) {
-            Map<String, Object> jwk = new HashMap<>();
+        List<Map<String, Object>> entries = new ArrayList<>();
+        for (VerificationKey vk : verificationKeys) {
+            Map<String, Object> jwk = toJwk(vk);
+            if (jwk != null) entries.add(jwk);
+        }
+        jwks.put("keys", List.copyOf(entries));
+        return jwks;
+    }
+
+    private static Map<String, Object> toJwk(VerificationKey vk) {
+        Map<String, Object> jwk = new HashMap<>();
+        if (vk.key() instanceof RSAPublicKey rsa) {
             jwk.put("kty", "RSA");
-            jwk.put("alg", "RS256");
-            if (keyId != null) jwk.put("kid", keyId);
-            jwk.put("use", "sig");
             jwk.put("n", base64Url(rsa.getModulus().toByteArray()));
             jwk.put("e", base64Url(rsa.getPublicExponent().toByteArray()));
-            jwks.put("keys", java.util.List.of(jwk));
+        } else if (vk.key() instanceof ECPublicKey ec) {
+            int size = (ec.getParams().getCurve().getField().getFieldSize() + 7) / 8;
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+            jwk.put("x", base64UrlFixed(ec.getW().getAffineX().toByteArray(), size));
+            jwk.put("y", base64UrlFixed(ec.getW().getAffineY().toByteArray(), size));
+        } else if (vk.key() instanceof EdECPublicKey) {
+            // X.509 SubjectPublicKeyInfo for Ed25519 ends with the raw 32-byte public key
+            byte[] encoded = vk.key().getEncoded();
+            jwk.put("kty", "OKP");
+            jwk.put("crv", "Ed25519");
+            jwk.put("x", Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(Arrays.copyOfRange(encoded, encoded.length - 32, encoded.length)));
         } else {
-            jwks.put("keys", java.util.List.of());
+            return null;
         }
-        return jwks;
+        jwk.put("alg", vk.algorithm().getJwsName());
+        if (vk.kid() != null) jwk.put("kid", vk.kid());
+        jwk.put("use", "sig");
+        return jwk;
+    }
+
+    /**
+     * Key locator for the shared parser: rejects algorithms outside the accepted set, then picks
+     * the JWKS key (JWKS mode) or the static key with the token's kid, falling back to the static
+     * key of the token's algorithm so kid-less tokens keep verifying during a migration.
+     */
+    private Key locateVerificationKey(Header header) {
+        if (!(header instanceof JwsHeader jws)) {
+            throw new UnsupportedJwtException("Only signed JWTs are supported");
+        }
+        JwtAlgorithm alg = JwtAlgorithm.fromName(jws.getAlgorithm());
+        if (alg == null || !acceptedAlgorithms.contains(alg)) {
+            throw new UnsupportedJwtException("JWS algorithm not accepted: " + jws.getAlgorithm());
+        }
+        if (jwksKeyResolver != null) {
+            return jwksKeyResolver.locate(header);
+        }
+        String kid = jws.getKeyId();
+        if (kid != null) {
+            for (VerificationKey vk : verificationKeys) {
+                if (kid.equals(vk.kid()) && vk.algorithm() == alg) return vk.key();
+            }
+        }
+        for (VerificationKey vk : verificationKeys) {
+            if (vk.algorithm() == alg) return vk.key();
+        }
+        throw new InvalidKeyException("No " + alg.getJwsName() + " verification key configured");
+    }
+
+    /**
+     * Kids a token may carry: only checked with static keys that all have one, since the locator
+     * otherwise falls back by algorithm and JWKS mode fetches unknown kids on demand.
+     */
+    private static Set<String> knownKeyIds(List<VerificationKey> keys, JwksKeyResolver jwksKeyResolver) {
+        Set<String> kids = new HashSet<>();
+        for (VerificationKey vk : keys) {
+            if (vk.kid() == null) return Set.of();
+            kids.add(vk.kid());
+        }
+        return jwksKeyResolver != null ? Set.of() : kids;
     }
 
     private static String base64Url(byte[] bytes) {
         // Ensure positive integer for modulus/exponent encoding
         byte[] normalized = bytes;
         if (bytes.length > 0 && bytes[0] == 0x00) {
-            normalized = java.util.Arrays.copyOfRange(bytes, 1, bytes.length);
+            normalized = Arrays.copyOfRange(bytes, 1, bytes.length);
         }
         return Base64.getUrlEncoder().withoutPadding().encodeToString(normalized);
     }
 
-    private static PublicKey parsePublicKeyFromPem(String pem) throws Exception {
+    /**
+     * Fixed-length (left zero-padded) base64url encoding for EC coordinates.
+     */
+    private static String base64UrlFixed(byte[] bytes, int length) {
+        byte[] out = new byte[length];
+        int copy = Math.min(bytes.length, length);
+        System.arraycopy(bytes, bytes.length - copy, out, length - copy, copy);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(out);
+    }
+
+    /**
+     * @param algorithm expected key family, or null to try every supported family
+     */
+    private static PublicKey parsePublicKeyFromPem(String pem, JwtAlgorithm algorithm) throws Exception {
         String content = pem.replaceAll("-----BEGIN (.*)-----", "")
                 .replaceAll("-----END (.*)-----", "")
                 .replaceAll("\\s", "");
         byte[] bytes = decodeBase64Lenient(content);
         X509EncodedKeySpec spec = new X509EncodedKeySpec(bytes);
-        return KeyFactory.getInstance("RSA").generatePublic(spec);
+        if (algorithm != null) {
+            return KeyFactory.getInstance(algorithm.getKeyFactoryAlgorithm()).generatePublic(spec);
+        }
+        Exception last = null;
+        for (JwtAlgorithm candidate : JwtAlgorithm.values()) {
+            try {
+                return KeyFactory.getInstance(candidate.getKeyFactoryAlgorithm()).generatePublic(spec);
+            } catch (Exception e) {
+                last = e;
+            }
+        }
+        throw last;
     }
 
-    private static PrivateKey parsePrivateKeyFromPem(String pem) throws Exception {
+    private static PrivateKey parsePrivateKeyFromPem(String pem, JwtAlgorithm algorithm) throws Exception {
         String content = pem.replaceAll("-----BEGIN (.*)-----", "")
                 .replaceAll("-----END (.*)-----", "")
                 .replaceAll("\\s", "");
         byte[] bytes = decodeBase64Lenient(content);
         PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(bytes);
-        return KeyFactory.getInstance("RSA").generatePrivate(spec);
+        return KeyFactory.getInstance(algorithm.getKeyFactoryAlgorithm()).generatePrivate(spec);
     }
 
     /**
@@ -173,4 +432,86 @@ public class JwtTokenService {
         }
     }
 
+    private record VerificationKey(String kid, PublicKey key, JwtAlgorithm algorithm) {
+    }
+
+    public static class Builder {
+        private JwtAlgorithm algorithm;
+        private String privateKeyPem;
+        private String publicKeyPem;
+        private String keyId;
+        private String previousPublicKeyPem;
+        private String previousKeyId;
+        private Set<JwtAlgorithm> acceptedAlgorithms;
+        private JwksKeyResolver jwksKeyResolver;
+        private TokenDictionarySource tokenDictionary;
+        private boolean precheckEnabled = true;
+        private Duration clockSkew = Duration.ofSeconds(30);
+        private int maxTokenLength = 8192;
+
+        public Builder algorithm(JwtAlgorithm algorithm) {
+            this.algorithm = algorithm;
+            return this;
+        }
+
+        public Builder privateKeyPem(String privateKeyPem) {
+            this.privateKeyPem = privateKeyPem;
+            return this;
+        }
+
+        public Builder publicKeyPem(String publicKeyPem) {
+            this.publicKeyPem = publicKeyPem;
+            return this;
+        }
+
+        public Builder keyId(String keyId) {
+            this.keyId = keyId;
+            return this;
+        }
+
+        public Builder previousPublicKeyPem(String previousPublicKeyPem) {
+            this.previousPublicKeyPem = previousPublicKeyPem;
+            return this;
+        }
+
+        public Builder previousKeyId(String previousKeyId) {
+            this.previousKeyId = previousKeyId;
+            return this;
+        }
+
+        public Builder acceptedAlgorithms(Set<JwtAlgorithm> acceptedAlgorithms) {
+            this.acceptedAlgorithms = acceptedAlgorithms;
+            return this;
+        }
+
+        public Builder jwksKeyResolver(JwksKeyResolver jwksKeyResolver) {
+            this.jwksKeyResolver = jwksKeyResolver;
+            return this;
+        }
+
+        public Builder tokenDictionary(TokenDictionarySource tokenDictionary) {
+            this.tokenDictionary = tokenDictionary;
+            return this;
+        }
+
+        public Builder precheckEnabled(boolean precheckEnabled) {
+            this.precheckEnabled = precheckEnabled;
+            return this;
+        }
+
+        public Builder clockSkew(Duration clockSkew) {
+            this.clockSkew = clockSkew;
+            return this;
+        }
+
+        public Builder maxTokenLength(int maxTokenLength) {
+            this.maxTokenLength = maxTokenLength;
+            return this;
+        }
+
+        public JwtTokenService build() {
+            return new JwtTokenService(this);
+        }
+    }
+
 }
@@ -0,0 +1,60 @@
+package com.platformcommons.cdb.security.jwt;
+
+import com.platformcommons.cdb.security.context.CDBContext;
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+
+/**
+ * Outcome of a single signature verification performed by {@link JwtTokenService#verify(String)}.
+ * Either carries the verified claims (with subject, kid, expiry and the mapped context pulled out
+ * for convenience) or a typed {@link Failure} reason; never both.
+ *
+ * @param context the typed context from the v1 {@code ctx} claim or the compact v2 claims, or null
+ *                if the token is invalid or carries no context
+ */
+public record JwtVerification(Claims claims,
+                              String subject,
+                              String keyId,
+                              Instant expiresAt,
+                              CDBContext context,
+                              Failure failure) {
+
+    /**
+     * Reasons a token can be rejected.
+     */
+    public enum Failure {
+        /** Token was null or blank. */
+        MISSING,
+        /** Not a well-formed compact JWS. */
+        MALFORMED,
+        /** Signature did not verify against the configured key. */
+        BAD_SIGNATURE,
+        /** exp is in the past. */
+        EXPIRED,
+        /** Well-formed but of a type/algorithm this service does not accept (e.g. unsigned). */
+        UNSUPPORTED,
+        /** Any other verification error. */
+        INVALID
+    }
+
+    static JwtVerification verified(Claims claims, String keyId, CDBContext context) {
+        Instant exp = claims.getExpiration() == null ? null : claims.getExpiration().toInstant();
+        return new JwtVerification(claims, claims.getSubject(), keyId, exp, context, null);
+    }
+
+    static JwtVerification failed(Failure failure) {
+        return new JwtVerification(null, null, null, null, null, failure);
+    }
+
+    public boolean isValid() {
+        return failure == null;
+    }
+
+    /**
+     * @return the {@code jti} claim used for revocation, or null for tokens issued without one
+     */
+    public String jwtId() {
+        return claims == null ? null : claims.getId();
+    }
+}
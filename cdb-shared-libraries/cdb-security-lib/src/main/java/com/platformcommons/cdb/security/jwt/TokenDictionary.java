@@ -0,0 +1,46 @@
+package com.platformcommons.cdb.security.jwt;
+
+import java.util.Map;
+
+/**
+ * Published mapping of numeric role and authority ids (the auth-registry master table ids) to
+ * their codes, used to expand the id arrays of compact v2 tokens (see {@link CompactClaims}).
+ * Served as JSON by auth-registry at {@code /api/v1/auth/token-dictionary}; ids are never reused,
+ * so a dictionary only ever grows.
+ */
+public record TokenDictionary(Map<Long, String> roles, Map<Long, String> authorities) {
+
+    public static final TokenDictionary EMPTY = new TokenDictionary(Map.of(), Map.of());
+
+    public TokenDictionary {
+        roles = roles == null ? Map.of() : Map.copyOf(roles);
+        authorities = authorities == null ? Map.of() : Map.copyOf(authorities);
+    }
+
+    /**
+     * @return the role code for this id, or null if unknown
+     */
+    public String roleCode(long id) {
+        return roles.get(id);
+    }
+
+    /**
+     * @return the authority code for this id, or null if unknown
+     */
+    public String authorityCode(long id) {
+        return authorities.get(id);
+    }
+
+    /**
+     * @return true if every id resolves to a code
+     */
+    public boolean covers(long[] roleIds, long[] authorityIds) {
+        for (long id : roleIds) {
+            if (!roles.containsKey(id)) return false;
+        }
+        for (long id : authorityIds) {
+            if (!authorities.containsKey(id)) return false;
+        }
+        return true;
+    }
+}
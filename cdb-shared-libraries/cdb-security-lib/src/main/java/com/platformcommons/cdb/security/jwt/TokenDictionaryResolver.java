@@ -0,0 +1,129 @@
+package com.platformcommons.cdb.security.jwt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the {@link TokenDictionary} published by auth-registry
+ * ({@code /api/v1/auth/token-dictionary}, served by TokenDictionaryController) for expanding
+ * compact v2 tokens.
+ * <p>
+ * Same model as {@link JwksKeyResolver}: the dictionary sits behind a volatile reference, a
+ * daemon thread re-fetches it every refresh interval and keeps the previous one if a fetch fails,
+ * and a token carrying unknown ids triggers an on-demand fetch at most once per min-refetch
+ * interval, shared by all callers that hit the same miss.
+ * </p>
+ *
+ * Configuration (see SecurityJwtAutoConfiguration):
+ * - cdb.security.jwt.dictionary.uri (enables v2 token support on validators)
+ * - cdb.security.jwt.dictionary.refresh-interval (seconds, default 300)
+ * - cdb.security.jwt.dictionary.min-refetch-interval (seconds, default 30)
+ * - cdb.security.jwt.dictionary.timeout-ms (default 2000)
+ */
+public class TokenDictionaryResolver implements TokenDictionarySource, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenDictionaryResolver.class);
+
+    private final String dictionaryUri;
+    private final Duration refreshInterval;
+    private final long minRefetchNanos;
+    private final long timeoutMs;
+    private final RestTemplate restTemplate;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile TokenDictionary dictionary = TokenDictionary.EMPTY;
+    private final AtomicReference<CompletableFuture<TokenDictionary>> inFlight = new AtomicReference<>();
+    private final AtomicLong lastOnDemandFetch = new AtomicLong(System.nanoTime() - Long.MAX_VALUE / 2);
+
+    public TokenDictionaryResolver(String dictionaryUri, Duration refreshInterval, Duration minRefetchInterval,
+                                   long timeoutMs) {
+        this.dictionaryUri = dictionaryUri;
+        this.refreshInterval = refreshInterval;
+        this.minRefetchNanos = minRefetchInterval.toNanos();
+        this.timeoutMs = timeoutMs;
+        SimpleClientHttpRequestFactory rf = new SimpleClientHttpRequestFactory();
+        rf.setConnectTimeout((int) timeoutMs);
+        rf.setReadTimeout((int) timeoutMs);
+        this.restTemplate = new RestTemplate(rf);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cdb-token-dictionary-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Loads the dictionary once (failures are logged, not thrown, so a service can start before
+     * auth-registry is reachable) and schedules background refreshes.
+     */
+    public void start() {
+        refresh();
+        long period = refreshInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::refresh, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public TokenDictionary current() {
+        return dictionary;
+    }
+
+    /**
+     * Re-fetch for unknown ids, rate limited. Concurrent callers share one in-flight fetch;
+     * callers inside the rate-limit window just see the current dictionary.
+     */
+    @Override
+    public TokenDictionary refreshForUnknownIds() {
+        CompletableFuture<TokenDictionary> running = inFlight.get();
+        if (running == null) {
+            long now = System.nanoTime();
+            long last = lastOnDemandFetch.get();
+            if (now - last >= minRefetchNanos && lastOnDemandFetch.compareAndSet(last, now)) {
+                CompletableFuture<TokenDictionary> mine = new CompletableFuture<>();
+                inFlight.set(mine);
+                try {
+                    mine.complete(refresh());
+                } finally {
+                    inFlight.set(null);
+                }
+                return mine.join();
+            }
+            running = inFlight.get();
+            if (running == null) {
+                return dictionary;
+            }
+        }
+        try {
+            return running.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            return dictionary;
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private TokenDictionary refresh() {
+        try {
+            TokenDictionary fetched = restTemplate.getForObject(dictionaryUri, TokenDictionary.class);
+            if (fetched != null) {
+                dictionary = fetched;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to refresh token dictionary from {}: {}; keeping {} role(s) and {} authority(ies)",
+                    dictionaryUri, e.getMessage(), dictionary.roles().size(), dictionary.authorities().size());
+        }
+        return dictionary;
+    }
+}
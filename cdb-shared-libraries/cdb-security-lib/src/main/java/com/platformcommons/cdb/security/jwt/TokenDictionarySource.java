@@ -0,0 +1,23 @@
+package com.platformcommons.cdb.security.jwt;
+
+/**
+ * Where {@link JwtTokenService} gets the {@link TokenDictionary} for compact v2 tokens: the
+ * {@link TokenDictionaryResolver} on validators, or the master tables directly on auth-registry.
+ */
+public interface TokenDictionarySource {
+
+    /**
+     * @return the current dictionary; never blocks on I/O
+     */
+    TokenDictionary current();
+
+    /**
+     * Called when a token carries ids the current dictionary does not know (roles or authorities
+     * created after it was loaded). Implementations may reload, rate limited.
+     *
+     * @return the dictionary to retry with
+     */
+    default TokenDictionary refreshForUnknownIds() {
+        return current();
+    }
+}